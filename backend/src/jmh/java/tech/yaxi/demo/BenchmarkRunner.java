@@ -0,0 +1,60 @@
+package tech.yaxi.demo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the selected benchmarks with 1, 4 and N (= available processors)
+ * threads and the GC profiler attached, so that both throughput and
+ * allocation rate show up for contended and uncontended runs.
+ *
+ * All regular JMH command line options are accepted. If a thread count is
+ * given explicitly with {@code -t}, only that thread count is used.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        var commandLine = new CommandLineOptions(args);
+        List<Integer> threadCounts = commandLine.getThreads().hasValue()
+                ? List.of(commandLine.getThreads().get())
+                : List.of(1, 4, Runtime.getRuntime().availableProcessors());
+
+        var results = new ArrayList<RunResult>();
+        for (int threads : threadCounts.stream().distinct().toList()) {
+            var options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            results.addAll(new Runner(options).run());
+        }
+        printSummary(results);
+    }
+
+    private static void printSummary(Collection<RunResult> results) {
+        System.out.println();
+        System.out.printf("%-70s %8s %16s %16s%n", "Benchmark", "Threads", "ops/s", "alloc MB/s");
+        for (var result : results) {
+            var params = result.getParams();
+            var name = params.getBenchmark().replace("tech.yaxi.demo.", "");
+            for (var key : params.getParamsKeys()) {
+                name += " " + key + "=" + params.getParam(key);
+            }
+            var allocRate = result.getSecondaryResults().get("gc.alloc.rate");
+            System.out.printf("%-70s %8d %16.1f %16.1f%n",
+                    name,
+                    params.getThreads(),
+                    result.getPrimaryResult().getScore(),
+                    allocRate == null ? Double.NaN : allocRate.getScore());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package tech.yaxi.demo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.util.Base64URL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+
+/**
+ * Signature check of the {@code transactions.txt} fixture: the pooled
+ * {@link Hs256Verifier} against nimbus' {@link MACVerifier}, which creates
+ * a new {@code Mac} for every verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Hs256VerifierBenchmark {
+
+    private Hs256Verifier verifier;
+    private MACVerifier nimbusVerifier;
+    private byte[] data;
+    private int headerEnd;
+    private int payloadEnd;
+
+    @Setup
+    public void setup() throws IOException, JOSEException {
+        var key = Base64.getDecoder().decode(ResultVerificationBenchmark.RESULT_KEY);
+        this.verifier = new Hs256Verifier(key);
+        this.nimbusVerifier = new MACVerifier(key);
+        this.data = new DefaultResourceLoader()
+                .getResource("classpath:transactions.txt")
+                .getContentAsString(StandardCharsets.UTF_8)
+                .trim()
+                .getBytes(StandardCharsets.US_ASCII);
+        var serialized = new String(this.data, StandardCharsets.US_ASCII);
+        this.headerEnd = serialized.indexOf('.');
+        this.payloadEnd = serialized.lastIndexOf('.');
+    }
+
+    @Benchmark
+    public void pooledVerifier() {
+        this.verifier.verify(this.data, this.payloadEnd, this.data.length);
+    }
+
+    @Benchmark
+    public boolean nimbusMacVerifier() throws Exception {
+        var serialized = new String(this.data, StandardCharsets.US_ASCII);
+        var header = JWSHeader.parse(new Base64URL(serialized.substring(0, this.headerEnd)));
+        var signature = new Base64URL(serialized.substring(this.payloadEnd + 1));
+        return this.nimbusVerifier.verify(
+                header,
+                serialized.substring(0, this.payloadEnd).getBytes(StandardCharsets.US_ASCII),
+                signature);
+    }
+}
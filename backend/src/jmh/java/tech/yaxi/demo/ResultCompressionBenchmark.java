@@ -0,0 +1,143 @@
+package tech.yaxi.demo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+
+/**
+ * Size and latency of posting a result with the transactions of
+ * {@code random_transactions.json} to {@code POST /results}, uncompressed
+ * and with each supported {@code Content-Encoding}, against the application
+ * running in-process. The body sizes are printed during setup.
+ *
+ * Over loopback, the latency shows the cost of decompressing on the server
+ * (and compressing on the client in {@code compressAndPost}); on a real
+ * network the smaller body has to be weighed against that.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultCompressionBenchmark {
+
+    @Param({"identity", "gzip", "deflate"})
+    public String encoding;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI uri;
+    private byte[] result;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException, JOSEException {
+        this.context = new SpringApplicationBuilder(TransactionsApplication.class).run(
+                "--server.port=0",
+                "--yaxi.keyId=test",
+                "--yaxi.key=" + ResultVerificationBenchmark.RESULT_KEY,
+                "--yaxi.results.sinks=noop",
+                "--yaxi.webhook.dedup.capacity=0",
+                "--yaxi.tickets.registry.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn");
+        int port = this.context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        this.uri = URI.create("http://localhost:" + port + "/results");
+        this.client = HttpClient.newHttpClient();
+        this.result = signResult();
+        this.body = compress(this.encoding, this.result);
+        System.out.printf("%n%s: %d bytes (%.1f%% of %d)%n",
+                this.encoding, this.body.length, 100.0 * this.body.length / this.result.length, this.result.length);
+        int status = send(this.body);
+        if (status != 200) {
+            throw new IllegalStateException("POST /results failed with status " + status);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.client.close();
+        this.context.close();
+    }
+
+    @Benchmark
+    public int post() throws IOException, InterruptedException {
+        return send(this.body);
+    }
+
+    @Benchmark
+    public int compressAndPost() throws IOException, InterruptedException {
+        return send(compress(this.encoding, this.result));
+    }
+
+    private int send(byte[] body) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(this.uri).POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (!this.encoding.equals("identity")) {
+            request.header("Content-Encoding", this.encoding);
+        }
+        return this.client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static byte[] compress(String encoding, byte[] data) throws IOException {
+        if (encoding.equals("identity")) {
+            return data;
+        }
+        var compressed = new ByteArrayOutputStream(data.length / 4);
+        try (OutputStream out = encoding.equals("gzip")
+                ? new GZIPOutputStream(compressed, 8192)
+                : new DeflaterOutputStream(compressed)) {
+            out.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] signResult() throws IOException, JOSEException {
+        List<Object> transactions = new ObjectMapper().readValue(
+                new DefaultResourceLoader().getResource("classpath:random_transactions.json").getContentAsByteArray(),
+                new TypeReference<>() { });
+        var header = new JWSHeader.Builder(JWSAlgorithm.HS256).keyID("test").type(JOSEObjectType.JWT).build();
+        var claims = new JWTClaimsSet.Builder()
+                .claim("data", Map.of("ticketId", UUID.randomUUID().toString(), "data", transactions))
+                .build();
+        var jwt = new SignedJWT(header, claims);
+        jwt.sign(new MACSigner(Base64.getDecoder().decode(ResultVerificationBenchmark.RESULT_KEY)));
+        return jwt.serialize().getBytes();
+    }
+}
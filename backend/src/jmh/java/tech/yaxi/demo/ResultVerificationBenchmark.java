@@ -0,0 +1,111 @@
+package tech.yaxi.demo;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.proc.SingleKeyJWSKeySelector;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Verifies and decodes the {@code transactions.txt} fixture through both the
+ * string/map based and the streaming {@code verifyResults} paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultVerificationBenchmark {
+
+    static final String RESULT_KEY =
+            "/fVLyhshE5E0kJO8FlX018bMNiemXo0SBAWEv4E4MjrurBZ6gKtWoEAqj4wtfnpumtPoztqxgE4ErAsPv88xhQ==";
+
+    private TicketService ticketService;
+    private DefaultJWTProcessor<SecurityContext> nimbusProcessor;
+    private ObjectMapper objectMapper;
+    private ObjectReader transactionReader;
+    private String results;
+    private byte[] resultBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        this.ticketService = new TicketService("test", RESULT_KEY);
+        this.nimbusProcessor = new DefaultJWTProcessor<>();
+        this.nimbusProcessor.setJWSKeySelector(new SingleKeyJWSKeySelector<>(
+                JWSAlgorithm.HS256,
+                new SecretKeySpec(Base64.getDecoder().decode(RESULT_KEY), "MAC")));
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.transactionReader = this.objectMapper.readerFor(Transaction.class);
+        this.results = new DefaultResourceLoader()
+                .getResource("classpath:transactions.txt")
+                .getContentAsString(StandardCharsets.UTF_8)
+                .trim();
+        this.resultBytes = this.results.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Signature and claims verification only, through the pooled HS256
+     * verifier. The identity converter keeps the data as parsed maps.
+     */
+    @Benchmark
+    public TicketResult<Object> verifyResultsClaims() {
+        return this.ticketService.verifyResults(this.results, (Object data) -> data);
+    }
+
+    /**
+     * The same work as {@link #verifyResultsClaims()} through nimbus'
+     * {@code DefaultJWTProcessor}, which {@code verifyResults} used before.
+     */
+    @Benchmark
+    public JWTClaimsSet verifyResultsClaimsNimbus() throws ParseException, BadJOSEException, JOSEException {
+        return this.nimbusProcessor.process(SignedJWT.parse(this.results), null);
+    }
+
+    @Benchmark
+    public TicketResult<List<Transaction>> verifyResults() {
+        return this.ticketService.verifyResults(this.results, (List<Object> xs) -> xs.stream()
+                .map(transaction -> this.objectMapper.convertValue(transaction, Transaction.class))
+                .toList());
+    }
+
+    @Benchmark
+    public TicketResult<List<Transaction>> verifyResultsStreaming() {
+        return this.ticketService.verifyResults(this.resultBytes, parser -> {
+            var transactions = new ArrayList<Transaction>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                transactions.add(this.transactionReader.readValue(parser));
+            }
+            return transactions;
+        });
+    }
+}
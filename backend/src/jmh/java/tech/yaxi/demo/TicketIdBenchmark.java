@@ -0,0 +1,55 @@
+package tech.yaxi.demo;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ticket ID generation and issuance with many concurrent callers, as with a
+ * burst of {@code /ticket} requests. Run it with {@code -t 32} (or more) to
+ * see the contention on the shared {@code SecureRandom} behind random IDs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketIdBenchmark {
+
+    @Param({"random", "time-ordered"})
+    public String ids;
+
+    private Supplier<UUID> idSupplier;
+    private TicketService ticketService;
+
+    @Setup
+    public void setup() {
+        this.idSupplier = TicketService.idSupplier(this.ids, Clock.systemUTC());
+        this.ticketService = new TicketService(
+                "benchmark-key", TicketServiceBenchmark.KEY, Clock.systemUTC(), this.idSupplier);
+    }
+
+    @Benchmark
+    public UUID nextId() {
+        return this.idSupplier.get();
+    }
+
+    @Benchmark
+    public Ticket issueTicket() {
+        return this.ticketService.issueTicket("Transactions", null);
+    }
+}
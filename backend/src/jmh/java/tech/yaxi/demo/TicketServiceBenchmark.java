@@ -0,0 +1,81 @@
+package tech.yaxi.demo;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketServiceBenchmark {
+
+    static final byte[] KEY = "extremely-secret-key-do-not-leak".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Size of the ticket data: {@code small} mirrors what the frontend sends
+     * for a transactions ticket, {@code large} adds a couple of hundred
+     * nested entries.
+     */
+    @Param({"small", "large"})
+    public String ticketDataSize;
+
+    private TicketService ticketService;
+    private Map<String, Object> ticketData;
+
+    @Setup
+    public void setup() {
+        this.ticketService = new TicketService("benchmark-key", KEY, Clock.systemUTC(), UUID::randomUUID);
+        this.ticketData = createTicketData(this.ticketDataSize.equals("large") ? 200 : 0);
+    }
+
+    @Benchmark
+    public Ticket issueTicket() {
+        return this.ticketService.issueTicket("Transactions", this.ticketData);
+    }
+
+    /**
+     * The nimbus based reference implementation that {@code issueTicket}
+     * used before tickets were written from precompiled templates.
+     */
+    @Benchmark
+    public String issueTicketNimbus() {
+        var exp = Instant.now().plus(10, ChronoUnit.MINUTES);
+        return this.ticketService.signTicket("Transactions", UUID.randomUUID(), exp, this.ticketData);
+    }
+
+    static Map<String, Object> createTicketData(int extraEntries) {
+        var data = new LinkedHashMap<String, Object>();
+        data.put("account", Map.of("iban", "NL31YAXI1234567891", "currency", "EUR"));
+        data.put("range", Map.of("from", "2024-01-01", "to", "2024-12-31"));
+        for (int i = 0; i < extraEntries; ++i) {
+            data.put("entry" + i, Map.of(
+                    "name", "Entry number " + i,
+                    "index", i,
+                    "enabled", i % 2 == 0,
+                    "tags", List.of("a", "b", "c")));
+        }
+        return data;
+    }
+
+}
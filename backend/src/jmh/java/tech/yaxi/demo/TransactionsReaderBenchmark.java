@@ -0,0 +1,91 @@
+package tech.yaxi.demo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Sequential vs. parallel reading of result lists of increasing size, built
+ * by repeating {@code random_transactions.json}. The size at which
+ * {@code parallel} overtakes {@code sequential} is a good value for
+ * {@code yaxi.results.parallelThreshold}. Run with a single benchmark thread,
+ * the parallel reader brings its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class TransactionsReaderBenchmark {
+
+    @Param({"100", "500", "1000", "5000", "10000", "50000"})
+    private int size;
+
+    @Param({"0"})
+    private int parallelism;
+
+    private ObjectMapper objectMapper;
+    private TransactionsReader sequentialReader;
+    private TransactionsReader parallelReader;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Transaction> transactions = this.objectMapper.readValue(
+                new DefaultResourceLoader().getResource("classpath:random_transactions.json").getContentAsByteArray(),
+                new TypeReference<>() { });
+        var scaled = new ArrayList<Transaction>(this.size);
+        while (scaled.size() < this.size) {
+            scaled.addAll(transactions.subList(0, Math.min(transactions.size(), this.size - scaled.size())));
+        }
+        this.json = this.objectMapper.writeValueAsBytes(scaled);
+        this.sequentialReader = new TransactionsReader(this.objectMapper, Integer.MAX_VALUE, 1, 256);
+        this.parallelReader = new TransactionsReader(this.objectMapper, 0, this.parallelism, 256);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.parallelReader.stop();
+    }
+
+    @Benchmark
+    public List<Transaction> sequential() throws IOException {
+        return read(this.sequentialReader);
+    }
+
+    @Benchmark
+    public List<Transaction> parallel() throws IOException {
+        return read(this.parallelReader);
+    }
+
+    private List<Transaction> read(TransactionsReader reader) throws IOException {
+        try (JsonParser parser = this.objectMapper.createParser(this.json)) {
+            parser.nextToken();
+            return reader.read(parser);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package tech.yaxi.demo;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+
+/**
+ * Results per second delivered one per request to {@code POST /results} and
+ * {@value #BATCH_SIZE} per request to {@code POST /results/batch}, against
+ * the application running in-process. Both report results, not requests,
+ * per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebhookBatchBenchmark {
+
+    static final int BATCH_SIZE = 32;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest single;
+    private HttpRequest batch;
+
+    @Setup
+    public void setup() throws IOException {
+        this.context = new SpringApplicationBuilder(TransactionsApplication.class).run(
+                "--server.port=0",
+                "--yaxi.keyId=test",
+                "--yaxi.key=" + ResultVerificationBenchmark.RESULT_KEY,
+                "--yaxi.results.sinks=noop",
+                "--yaxi.webhook.dedup.capacity=0",
+                "--yaxi.tickets.registry.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn");
+        int port = this.context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        var result = new DefaultResourceLoader()
+                .getResource("classpath:transactions.txt")
+                .getContentAsString(StandardCharsets.US_ASCII)
+                .strip();
+
+        this.client = HttpClient.newHttpClient();
+        this.single = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/results"))
+                .POST(HttpRequest.BodyPublishers.ofString(result))
+                .build();
+        this.batch = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/results/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString((result + "\n").repeat(BATCH_SIZE)))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.client.close();
+        this.context.close();
+    }
+
+    @Benchmark
+    public int single() throws IOException, InterruptedException {
+        return this.client.send(this.single, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int batch() throws IOException, InterruptedException {
+        return this.client.send(this.batch, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
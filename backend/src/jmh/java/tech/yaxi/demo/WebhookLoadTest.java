@@ -0,0 +1,190 @@
+package tech.yaxi.demo;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+
+/**
+ * Load test for {@code POST /results} with many concurrent, slow clients,
+ * comparing Tomcat's platform thread pool with virtual threads.
+ *
+ * For each mode the application is started in-process on a random port.
+ * Every client holds its own keep-alive connection and uploads the result
+ * in chunks with a pause in between, which keeps a request thread busy for
+ * the whole upload. Throughput and latency percentiles are printed per mode.
+ *
+ * Run it with {@code ./mvnw -Pjmh test-compile exec:exec
+ * -Djmh.main=tech.yaxi.demo.WebhookLoadTest -Djmh.args="1000 20 10"}. The
+ * arguments are the number of connections, the seconds per mode, and the
+ * pause between chunks in milliseconds.
+ */
+public class WebhookLoadTest {
+
+    private static final String RESULT_KEY =
+            "/fVLyhshE5E0kJO8FlX018bMNiemXo0SBAWEv4E4MjrurBZ6gKtWoEAqj4wtfnpumtPoztqxgE4ErAsPv88xhQ==";
+    private static final int CHUNKS = 4;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int pauseMillis = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        var body = new DefaultResourceLoader().getResource("classpath:transactions.txt").getContentAsByteArray();
+
+        System.out.printf("%d connections, %d s per mode, %d ms between %d chunks of %d bytes%n",
+                connections, seconds, pauseMillis, CHUNKS, body.length / CHUNKS);
+        System.out.printf("%-10s %12s %10s %10s %10s %10s%n", "Threads", "requests/s", "p50 (ms)", "p99 (ms)", "max (ms)", "errors");
+        for (boolean virtual : new boolean[] {false, true}) {
+            run(virtual, connections, seconds, pauseMillis, body);
+        }
+    }
+
+    private static void run(boolean virtual, int connections, int seconds, int pauseMillis, byte[] body) throws Exception {
+        // Command line arguments, as they take precedence over application.yaml
+        var context = new SpringApplicationBuilder(TransactionsApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.max-connections=" + (connections + 100),
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--yaxi.keyId=test",
+                "--yaxi.key=" + RESULT_KEY,
+                "--yaxi.results.sinks=noop",
+                "--yaxi.webhook.dedup.capacity=0",
+                "--yaxi.tickets.registry.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn");
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            var clients = new ArrayList<Future<Client>>();
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < connections; ++i) {
+                    clients.add(executor.submit(() -> new Client(port, body, pauseMillis).run(deadline)));
+                }
+            }
+
+            var latencies = new long[0];
+            long errors = 0;
+            for (var future : clients) {
+                var client = future.get();
+                int offset = latencies.length;
+                latencies = Arrays.copyOf(latencies, offset + client.count);
+                System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+                errors += client.errors;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("%-10s %12.1f %10.1f %10.1f %10.1f %10d%n",
+                    virtual ? "virtual" : "platform",
+                    latencies.length / (double) seconds,
+                    percentile(latencies, 50), percentile(latencies, 99),
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6,
+                    errors);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    private static final class Client {
+        private final int port;
+        private final byte[] body;
+        private final int pauseMillis;
+        private final byte[] header;
+        long[] latencies = new long[256];
+        int count;
+        long errors;
+
+        Client(int port, byte[] body, int pauseMillis) {
+            this.port = port;
+            this.body = body;
+            this.pauseMillis = pauseMillis;
+            this.header = ("POST /results HTTP/1.1\r\nHost: localhost\r\nContent-Type: text/plain\r\n"
+                    + "Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        }
+
+        Client run(long deadline) {
+            while (System.nanoTime() < deadline) {
+                try (var socket = new Socket("localhost", this.port)) {
+                    var in = new BufferedInputStream(socket.getInputStream());
+                    var out = socket.getOutputStream();
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        send(out);
+                        if (readStatus(in) != 200) {
+                            ++this.errors;
+                        }
+                        record(System.nanoTime() - start);
+                    }
+                } catch (IOException | InterruptedException e) {
+                    ++this.errors;
+                }
+            }
+            return this;
+        }
+
+        private void send(OutputStream out) throws IOException, InterruptedException {
+            out.write(this.header);
+            int chunk = (this.body.length + CHUNKS - 1) / CHUNKS;
+            for (int offset = 0; offset < this.body.length; offset += chunk) {
+                if (offset > 0) {
+                    Thread.sleep(this.pauseMillis);
+                }
+                out.write(this.body, offset, Math.min(chunk, this.body.length - offset));
+                out.flush();
+            }
+        }
+
+        /**
+         * Reads a response and returns its status code. Only bodies with a
+         * Content-Length are expected.
+         */
+        private static int readStatus(InputStream in) throws IOException {
+            var statusLine = readLine(in);
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            long contentLength = 0;
+            for (var line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+                if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Long.parseLong(line.substring(15).trim());
+                }
+            }
+            in.skipNBytes(contentLength);
+            return status;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            var line = new StringBuilder();
+            for (int c = in.read(); c != '\n'; c = in.read()) {
+                if (c < 0) {
+                    throw new IOException("Connection closed");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+
+        private void record(long nanos) {
+            if (this.count == this.latencies.length) {
+                this.latencies = Arrays.copyOf(this.latencies, this.count * 2);
+            }
+            this.latencies[this.count++] = nanos;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package tech.yaxi.demo.analytics;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Totals one million transactions by currency and month, once from the
+ * {@link TransactionColumns} and once by walking the list of records. The
+ * transactions are {@code random_transactions.json} a thousand times over,
+ * with amounts of up to 10,000 with two decimals instead of the random ones.
+ * The list repeats the same thousand records (a million distinct ones don't
+ * fit the heap), which keeps them in cache and flatters {@code records}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionColumnsBenchmark {
+
+    private static final int COPIES = 1000;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private List<Transaction> transactions;
+    private TransactionColumns columns;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        var json = (ArrayNode) objectMapper.readTree(
+                new DefaultResourceLoader().getResource("classpath:random_transactions.json").getContentAsByteArray());
+        var random = new Random(42);
+        json.forEach(transaction -> ((ObjectNode) transaction.get("amount"))
+                .put("amount", BigDecimal.valueOf(random.nextLong(-1_000_000, 1_000_000), 2)));
+        List<Transaction> transactions = objectMapper.treeToValue(json, new TypeReference<>() { });
+        this.transactions = new ArrayList<>();
+        this.columns = new TransactionColumns(65536, this.parallelism, Optional.empty());
+        for (int i = 0; i < COPIES; ++i) {
+            this.transactions.addAll(transactions);
+            this.columns.append(List.of(new TicketResult<>(UUID.randomUUID(), transactions)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.columns.stop();
+    }
+
+    @Benchmark
+    public TransactionColumns.Aggregation columns() {
+        return this.columns.aggregate(List.of(Dimension.CURRENCY, Dimension.MONTH), null, null, 100);
+    }
+
+    @Benchmark
+    public Map<List<Object>, BigDecimal> records() {
+        var totals = new HashMap<List<Object>, BigDecimal>();
+        for (var transaction : this.transactions) {
+            var month = transaction.bookingDate().map(date -> date.getYear() * 12 + date.getMonthValue()).orElse(null);
+            totals.merge(Arrays.asList(transaction.amount().currency(), month),
+                    transaction.amount().amount(), BigDecimal::add);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,82 @@
+package tech.yaxi.demo.model;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing and summing 10,000 typical booking amounts with {@link BigDecimal}
+ * and {@link Money}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private String[] amounts;
+    private BigDecimal[] decimals;
+    private Money[] money;
+
+    @Setup
+    public void setup() {
+        var random = ThreadLocalRandom.current();
+        this.amounts = new String[10_000];
+        this.decimals = new BigDecimal[this.amounts.length];
+        this.money = new Money[this.amounts.length];
+        for (int i = 0; i < this.amounts.length; ++i) {
+            this.amounts[i] = BigDecimal.valueOf(random.nextLong(-1_000_000, 1_000_000), 2).toPlainString();
+            this.decimals[i] = new BigDecimal(this.amounts[i]);
+            this.money[i] = Money.parse(this.amounts[i]);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        var sum = BigDecimal.ZERO;
+        for (var decimal : this.decimals) {
+            sum = sum.add(decimal);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Money sumMoney() {
+        var sum = new Money.Sum();
+        for (var money : this.money) {
+            sum.add(money);
+        }
+        return sum.result();
+    }
+
+    @Benchmark
+    public BigDecimal parseAndSumBigDecimal() {
+        var sum = BigDecimal.ZERO;
+        for (var amount : this.amounts) {
+            sum = sum.add(new BigDecimal(amount));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Money parseAndSumMoney() {
+        var sum = new Money.Sum();
+        for (var amount : this.amounts) {
+            sum.add(Money.parse(amount));
+        }
+        return sum.result();
+    }
+}
@@ -0,0 +1,56 @@
+package tech.yaxi.demo.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionDecodingBenchmark {
+
+    private ObjectReader reader;
+    private ObjectReader handWrittenReader;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        this.reader = Jackson2ObjectMapperBuilder.json().build()
+                .readerFor(new TypeReference<List<Transaction>>() { });
+        this.handWrittenReader = Jackson2ObjectMapperBuilder.json().modulesToInstall(new TransactionModule()).build()
+                .readerFor(new TypeReference<List<Transaction>>() { });
+        this.json = new DefaultResourceLoader()
+                .getResource("classpath:random_transactions.json")
+                .getContentAsString(StandardCharsets.UTF_8)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Transaction> decodeRandomTransactions() throws IOException {
+        return this.reader.readValue(this.json);
+    }
+
+    @Benchmark
+    public List<Transaction> decodeRandomTransactionsHandWritten() throws IOException {
+        return this.handWrittenReader.readValue(this.json);
+    }
+}
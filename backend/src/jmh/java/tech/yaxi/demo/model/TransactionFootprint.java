@@ -0,0 +1,54 @@
+package tech.yaxi.demo.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jol.info.GraphLayout;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Prints the retained heap size per transaction of {@link Transaction}
+ * records and {@link CompactTransaction}s, measured with JOL. Run with
+ *
+ *     ./mvnw -Pjmh test-compile exec:exec -Djmh.main=tech.yaxi.demo.model.TransactionFootprint
+ *
+ * {@code transaction.json} is decoded 10,000 times to model a realistic
+ * account where most values repeat; {@code random_transactions.json} has
+ * hardly any repetition and shows the lower bound of the savings.
+ */
+public class TransactionFootprint {
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    public static void main(String[] args) throws IOException {
+        // JOL can't get record field offsets through the regular API
+        System.setProperty("jol.magicFieldOffset", "true");
+        var repeated = new ArrayList<Transaction>();
+        var json = load("transaction.json");
+        for (int i = 0; i < 10_000; ++i) {
+            repeated.add(OBJECT_MAPPER.readValue(json, Transaction.class));
+        }
+        List<Transaction> random = OBJECT_MAPPER.readValue(load("random_transactions.json"), new TypeReference<>() { });
+
+        System.out.printf("%-28s %12s %12s %8s%n", "Fixture", "Transaction", "Compact", "Saved");
+        print("transaction.json x 10000", repeated);
+        print("random_transactions.json", random);
+    }
+
+    private static void print(String name, List<Transaction> transactions) {
+        var compact = transactions.stream().map(CompactTransaction::of).toList();
+        double recordBytes = (double) GraphLayout.parseInstance(transactions.toArray()).totalSize() / transactions.size();
+        double compactBytes = (double) GraphLayout.parseInstance(compact.toArray()).totalSize() / compact.size();
+        System.out.printf(
+                "%-28s %10.0f B %10.0f B %7.0f%%%n",
+                name, recordBytes, compactBytes, 100 * (1 - compactBytes / recordBytes));
+    }
+
+    private static byte[] load(String name) throws IOException {
+        return new DefaultResourceLoader().getResource("classpath:" + name).getContentAsByteArray();
+    }
+}
@@ -0,0 +1,94 @@
+package tech.yaxi.demo.reconciliation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Matches bookings to their pending entries among {@code history} earlier
+ * transactions, once with the {@link ReconciliationIndex} (which keeps
+ * {@code history} entries, so every pending entry and booking pair also
+ * evicts one) and once by scanning the history for the transaction ID.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReconciliationIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int history;
+
+    private final UUID ticketId = UUID.randomUUID();
+    private Transaction[] pending;
+    private Transaction[] booked;
+    private ReconciliationIndex index;
+    private List<Transaction> scanned;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        int count = this.history * 2;
+        this.pending = new Transaction[count];
+        this.booked = new Transaction[count];
+        for (int i = 0; i < count; ++i) {
+            this.pending[i] = transaction(objectMapper, "Pending", i);
+            this.booked[i] = transaction(objectMapper, "Booked", i);
+        }
+        this.index = new ReconciliationIndex(this.history);
+        this.scanned = new ArrayList<>(List.of(this.pending).subList(0, this.history));
+        for (int i = 0; i < this.history; ++i) {
+            this.index.append(List.of(new TicketResult<>(this.ticketId, List.of(this.pending[i]))));
+        }
+    }
+
+    @Benchmark
+    public void index() {
+        int i = this.next++ % this.pending.length;
+        this.index.append(List.of(new TicketResult<>(this.ticketId, List.of(this.pending[i]))));
+        this.index.append(List.of(new TicketResult<>(this.ticketId, List.of(this.booked[i]))));
+    }
+
+    @Benchmark
+    public Transaction scan() {
+        var booking = this.booked[this.next++ % this.history];
+        for (var transaction : this.scanned) {
+            if (transaction.transactionId().equals(booking.transactionId())) {
+                return transaction;
+            }
+        }
+        return null;
+    }
+
+    private static Transaction transaction(ObjectMapper objectMapper, String status, int i) throws IOException {
+        var json = objectMapper.createObjectNode()
+                .put("status", status)
+                .put("transactionId", "tx-" + i)
+                .put("endToEndId", "NOTPROVIDED")
+                .put("valueDate", "2026-03-02");
+        json.putObject("amount").put("currency", "EUR").put("amount", (i % 10_000) + ".00");
+        json.putObject("creditor").put("iban", "NL31YAXI1234567891");
+        return objectMapper.treeToValue(json, Transaction.class);
+    }
+}
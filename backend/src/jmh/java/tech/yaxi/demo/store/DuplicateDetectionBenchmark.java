@@ -0,0 +1,117 @@
+package tech.yaxi.demo.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.FileSystemUtils;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Appends results of {@value #BATCH_SIZE} transactions, half of them stored
+ * already as with overlapping windows, to a {@link TransactionStore} with
+ * {@code history} transactions and duplicate detection. Reports
+ * transactions per second and, at the end of each iteration, the size of
+ * the Bloom filter and the fingerprint table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DuplicateDetectionBenchmark {
+
+    static final int BATCH_SIZE = 100;
+
+    @Param({"100000"})
+    public int history;
+
+    private ObjectMapper objectMapper;
+    private List<ObjectNode> templates;
+    private Path directory;
+    private TransactionStore store;
+    private int next;
+    private List<TicketResult<List<Transaction>>> batch;
+
+    @Setup
+    public void setup() throws IOException {
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.templates = this.objectMapper.readValue(
+                new DefaultResourceLoader().getResource("classpath:random_transactions.json").getContentAsByteArray(),
+                new TypeReference<>() { });
+    }
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        this.directory = Files.createTempDirectory("duplicate-detection");
+        this.store = new TransactionStore(this.directory, 64 << 20, false, true, 0.01, 100_000);
+        for (this.next = 0; this.next < this.history; this.next += BATCH_SIZE) {
+            this.store.append(batch(this.next));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws IOException {
+        var duplicates = this.store.stats().duplicates();
+        System.out.printf("%nBloom filter: %d stage(s), %d bytes; fingerprint table: %d entries, %d bytes; "
+                + "%d of %d checked dropped%n",
+                duplicates.filterStages(), duplicates.filterBytes(), duplicates.indexed(), duplicates.indexBytes(),
+                duplicates.dropped(), duplicates.checked());
+        this.store.close();
+        FileSystemUtils.deleteRecursively(this.directory);
+    }
+
+    /**
+     * Prepares the next batch, half of which overlaps with the previous one.
+     * A batch takes long enough to append for a setup per invocation.
+     */
+    @Setup(Level.Invocation)
+    public void prepare() throws IOException {
+        this.next += BATCH_SIZE / 2;
+        this.batch = batch(this.next - BATCH_SIZE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void append() throws IOException {
+        this.store.append(this.batch);
+    }
+
+    /**
+     * Transactions {@code first} to {@code first + BATCH_SIZE}, each made
+     * distinct by its entry reference.
+     */
+    private List<TicketResult<List<Transaction>>> batch(int first) throws IOException {
+        var transactions = new ArrayList<Transaction>(BATCH_SIZE);
+        for (int i = first; i < first + BATCH_SIZE; ++i) {
+            var json = this.templates.get(i % this.templates.size()).deepCopy().put("entryReference", "ref-" + i);
+            transactions.add(this.objectMapper.treeToValue(json, Transaction.class));
+        }
+        return List.of(new TicketResult<>(UUID.randomUUID(), transactions));
+    }
+}
@@ -0,0 +1,101 @@
+package tech.yaxi.demo.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.FileSystemUtils;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Appends batches of {@value #BATCH_SIZE} transactions from
+ * {@code random_transactions.json} to a {@link TransactionStore}, with and
+ * without a sync per batch, and looks transactions up by entry reference.
+ * {@code append} reports transactions per second. {@code reopen} rebuilds
+ * the indexes of a store with 10,000 transactions and more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionStoreBenchmark {
+
+    static final int BATCH_SIZE = 100;
+
+    @Param({"true", "false"})
+    public boolean sync;
+
+    private List<TicketResult<List<Transaction>>> batch;
+    private List<String> entryReferences;
+    private Path directory;
+    private TransactionStore store;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        List<Transaction> transactions = Jackson2ObjectMapperBuilder.json().build().readValue(
+                new DefaultResourceLoader().getResource("classpath:random_transactions.json").getContentAsByteArray(),
+                new TypeReference<>() { });
+        this.batch = List.of(new TicketResult<>(UUID.randomUUID(), transactions.subList(0, BATCH_SIZE)));
+        this.entryReferences = transactions.subList(0, BATCH_SIZE).stream()
+                .flatMap(transaction -> transaction.entryReference().stream())
+                .toList();
+    }
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        this.directory = Files.createTempDirectory("transaction-store");
+        this.store = new TransactionStore(this.directory, 64 << 20, this.sync);
+        for (int i = 0; i < 100; ++i) {
+            this.store.append(this.batch);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws IOException {
+        this.store.close();
+        FileSystemUtils.deleteRecursively(this.directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void append() throws IOException {
+        this.store.append(this.batch);
+    }
+
+    @Benchmark
+    public List<StoredTransaction> findByEntryReference() {
+        var reference = this.entryReferences.get(this.next++ % this.entryReferences.size());
+        return this.store.findByEntryReference(reference);
+    }
+
+    @Benchmark
+    public long reopen() throws IOException {
+        try (var store = new TransactionStore(this.directory, 64 << 20, this.sync)) {
+            return store.stats().transactions();
+        }
+    }
+}
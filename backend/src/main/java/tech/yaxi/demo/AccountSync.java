@@ -0,0 +1,326 @@
+package tech.yaxi.demo;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Keeps per-account sync state, so that a repeated transactions request only
+ * asks for, and only passes on, bookings that weren't seen before.
+ *
+ * For every account (by IBAN) the latest booking date of a booked
+ * transaction, the entry references booked on that date and the earliest
+ * date from which on all bookings up to it were fetched are remembered.
+ * When a transactions ticket is issued for the account whose range starts
+ * within those fetched dates and reaches the latest booking date, the start
+ * of its range is moved up to that date. When its result arrives, booked
+ * transactions from the fetched dates before the latest booking date, and
+ * those on it whose entry reference (or, lacking one, account servicer
+ * reference) is already known, are dropped. Bookings from older ranges,
+ * pending transactions and those without a booking date always pass, and a
+ * range adjoining the fetched dates extends them. The work per result thus
+ * grows with the new bookings rather than with the history of the account.
+ *
+ * Tickets are mapped to their account until their result arrives, for at
+ * most {@code yaxi.sync.maxTickets} tickets at a time.
+ */
+@Component
+@ConditionalOnProperty(name = "yaxi.sync.enabled", havingValue = "true")
+public class AccountSync {
+
+    static final String TRANSACTIONS_SERVICE = "Transactions";
+
+    private final int maxTickets;
+    private final Map<String, AccountState> accounts = new ConcurrentHashMap<>();
+    private final ReentrantLock ticketsLock = new ReentrantLock();
+    private final LinkedHashMap<UUID, Window> tickets = new LinkedHashMap<>();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public AccountSync(@Value("${yaxi.sync.maxTickets:10000}") int maxTickets) {
+        if (maxTickets <= 0) {
+            throw new IllegalArgumentException("maxTickets must be positive");
+        }
+        this.maxTickets = maxTickets;
+    }
+
+    /**
+     * The sync state of an account: the latest booking date and the last
+     * entry reference booked on it.
+     */
+    public record State(LocalDate bookingDate, @Nullable String entryReference, int bookingsOnDate) {
+    }
+
+    public record Stats(int accounts, int tickets, long received, long dropped) {
+    }
+
+    /**
+     * Returns the ticket data to issue a ticket for {@code service} with:
+     * for a transactions ticket of a known account whose range starts within
+     * the fetched dates and doesn't end before the latest booking date,
+     * {@code data} with the start of the range moved up to that date;
+     * otherwise {@code data} itself.
+     */
+    public Map<String, Object> ticketData(String service, Map<String, Object> data) {
+        var iban = iban(service, data);
+        var account = iban == null ? null : this.accounts.get(iban);
+        var window = window(iban, data);
+        var from = account == null ? null : account.narrowedFrom(window);
+        if (from == null) {
+            return data;
+        }
+        var range = new HashMap<Object, Object>();
+        if (data.get("range") instanceof Map<?, ?> requested) {
+            range.putAll(requested);
+        }
+        range.put("from", from.toString());
+        var adjusted = new HashMap<>(data);
+        adjusted.put("range", range);
+        return adjusted;
+    }
+
+    /**
+     * Remembers the account and range of a ticket issued with {@code data},
+     * so that its result can be filtered.
+     */
+    public void ticketIssued(UUID ticketId, String service, Map<String, Object> data) {
+        var iban = iban(service, data);
+        if (iban == null) {
+            return;
+        }
+        this.ticketsLock.lock();
+        try {
+            this.tickets.put(ticketId, window(iban, data));
+            if (this.tickets.size() > this.maxTickets) {
+                this.tickets.pollFirstEntry();
+            }
+        } finally {
+            this.ticketsLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the bookings of {@code result} that were already seen for the
+     * account of its ticket, and advances the account's state. Results for
+     * unknown tickets are returned as they are.
+     */
+    public TicketResult<List<Transaction>> filter(TicketResult<List<Transaction>> result) {
+        if (result.data() == null) {
+            return result;
+        }
+        Window window;
+        this.ticketsLock.lock();
+        try {
+            window = this.tickets.remove(result.id());
+        } finally {
+            this.ticketsLock.unlock();
+        }
+        if (window == null) {
+            return result;
+        }
+        var account = this.accounts.computeIfAbsent(window.iban(), key -> new AccountState());
+        var fresh = account.filter(result.data(), window);
+        this.received.add(result.data().size());
+        this.dropped.add(result.data().size() - fresh.size());
+        return fresh.size() == result.data().size() ? result : new TicketResult<>(result.id(), fresh);
+    }
+
+    @Nullable
+    public State state(String iban) {
+        var account = this.accounts.get(normalizeIban(iban));
+        return account == null ? null : account.state();
+    }
+
+    public Stats stats() {
+        int tickets;
+        this.ticketsLock.lock();
+        try {
+            tickets = this.tickets.size();
+        } finally {
+            this.ticketsLock.unlock();
+        }
+        return new Stats(this.accounts.size(), tickets, this.received.sum(), this.dropped.sum());
+    }
+
+    @Nullable
+    private static String iban(String service, Map<String, Object> data) {
+        if (!TRANSACTIONS_SERVICE.equals(service)
+                || !(data.get("account") instanceof Map<?, ?> account)
+                || !(account.get("iban") instanceof String iban)
+                || iban.isBlank()) {
+            return null;
+        }
+        return normalizeIban(iban);
+    }
+
+    /**
+     * The range requested by ticket data. A missing or invalid start means
+     * the whole history, a missing end up to today.
+     */
+    @Nullable
+    private static Window window(@Nullable String iban, Map<String, Object> data) {
+        if (iban == null) {
+            return null;
+        }
+        var range = data.get("range") instanceof Map<?, ?> requested ? requested : Map.of();
+        var from = parseDate(range.get("from"));
+        return new Window(iban, from == null ? LocalDate.MIN : from, parseDate(range.get("to")));
+    }
+
+    private static String normalizeIban(String iban) {
+        return iban.replace(" ", "").toUpperCase(Locale.ROOT);
+    }
+
+    @Nullable
+    private static LocalDate parseDate(@Nullable Object value) {
+        if (!(value instanceof String date)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The key a booking is recognized by, if it has one.
+     */
+    private static Optional<String> bookingKey(Transaction transaction) {
+        return transaction.entryReference().or(transaction::accountServicerReference);
+    }
+
+    private static boolean isBooking(Transaction transaction) {
+        return transaction.status() == Transaction.Status.BOOKED && transaction.bookingDate().isPresent();
+    }
+
+    /**
+     * The account and range of an issued ticket.
+     */
+    private record Window(String iban, LocalDate from, @Nullable LocalDate to) {
+    }
+
+    private static final class AccountState {
+
+        // Not synchronized, which would pin virtual threads
+        private final ReentrantLock lock = new ReentrantLock();
+        @Nullable
+        private LocalDate bookingDate;
+        @Nullable
+        private String entryReference;
+        /** Keys of the bookings on {@link #bookingDate}. */
+        private final Set<String> boundary = new HashSet<>();
+        /**
+         * Start of the dates up to {@link #bookingDate} whose bookings were
+         * all fetched, {@link LocalDate#MIN} for the whole history.
+         */
+        @Nullable
+        private LocalDate fetchedFrom;
+
+        /**
+         * The date to move the start of {@code window} up to, or
+         * {@code null} if the bookings before it weren't all fetched.
+         */
+        @Nullable
+        LocalDate narrowedFrom(Window window) {
+            this.lock.lock();
+            try {
+                if (this.bookingDate == null
+                        || !window.from().isBefore(this.bookingDate)
+                        || window.from().isBefore(this.fetchedFrom)
+                        || window.to() != null && window.to().isBefore(this.bookingDate)) {
+                    return null;
+                }
+                return this.bookingDate;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        List<Transaction> filter(List<Transaction> transactions, Window window) {
+            var fresh = new ArrayList<Transaction>(transactions.size());
+            this.lock.lock();
+            try {
+                // Filtered against the state before this result, as banks
+                // may list bookings in any order
+                for (var transaction : transactions) {
+                    if (isBooking(transaction) && isKnown(transaction)) {
+                        continue;
+                    }
+                    fresh.add(transaction);
+                }
+                // A range that starts after the latest booking date leaves a
+                // gap, one that reaches back to the fetched dates extends them
+                boolean gap = this.bookingDate == null || window.from().isAfter(this.bookingDate);
+                if (!gap && window.from().isBefore(this.fetchedFrom)
+                        && (window.to() == null || !window.to().isBefore(this.fetchedFrom.minusDays(1)))) {
+                    this.fetchedFrom = window.from();
+                }
+                for (var transaction : fresh) {
+                    if (!isBooking(transaction)) {
+                        continue;
+                    }
+                    var date = transaction.bookingDate().get();
+                    if (this.bookingDate == null || date.isAfter(this.bookingDate)) {
+                        if (gap) {
+                            this.fetchedFrom = window.from();
+                        }
+                        this.bookingDate = date;
+                        this.entryReference = null;
+                        this.boundary.clear();
+                    } else if (date.isBefore(this.bookingDate)) {
+                        continue;
+                    }
+                    bookingKey(transaction).ifPresent(this.boundary::add);
+                    transaction.entryReference().ifPresent(reference -> this.entryReference = reference);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+            return fresh;
+        }
+
+        private boolean isKnown(Transaction transaction) {
+            if (this.bookingDate == null) {
+                return false;
+            }
+            var date = transaction.bookingDate().get();
+            int order = date.compareTo(this.bookingDate);
+            if (order != 0) {
+                return order < 0 && !date.isBefore(this.fetchedFrom);
+            }
+            var key = bookingKey(transaction);
+            return key.isPresent() && this.boundary.contains(key.get());
+        }
+
+        @Nullable
+        State state() {
+            this.lock.lock();
+            try {
+                return this.bookingDate == null
+                        ? null
+                        : new State(this.bookingDate, this.entryReference, this.boundary.size());
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+}
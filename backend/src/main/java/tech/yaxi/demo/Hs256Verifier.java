@@ -0,0 +1,105 @@
+package tech.yaxi.demo;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import tech.yaxi.demo.InvalidResultException.Reason;
+
+/**
+ * Verifies HS256 signatures of compact JWS serializations in place.
+ *
+ * Initialized {@link Mac} instances are pooled, and the signature is decoded
+ * into and compared (in constant time) against pooled buffers. Apart from
+ * the digest the JCA returns internally, a successful verification doesn't
+ * allocate. Header checks are left to {@link KeySet}, which picks the
+ * verifier by key ID.
+ */
+final class Hs256Verifier {
+
+    static final int SIGNATURE_LENGTH = 32;
+    static final int ENCODED_SIGNATURE_LENGTH = 43;
+    private static final byte[] BASE64URL_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL_VALUES, (byte) -1);
+        var alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); ++i) {
+            BASE64URL_VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final ObjectPool<Scratch> scratchPool;
+
+    Hs256Verifier(byte[] key) {
+        var keySpec = new SecretKeySpec(key, "HmacSHA256");
+        this.scratchPool = new ObjectPool<>(() -> new Scratch(keySpec));
+    }
+
+    /**
+     * Checks the signature {@code data[payloadEnd + 1, end)} over the signing
+     * input {@code data[0, payloadEnd)}.
+     */
+    void verify(byte[] data, int payloadEnd, int end) {
+        var scratch = this.scratchPool.acquire();
+        try {
+            if (!decodeSignature(data, payloadEnd + 1, end, scratch.actual)) {
+                throw new InvalidResultException(Reason.SIGNATURE, "Signed JWT rejected: Invalid signature");
+            }
+            scratch.mac.update(data, 0, payloadEnd);
+            scratch.mac.doFinal(scratch.expected, 0);
+            if (!MessageDigest.isEqual(scratch.expected, scratch.actual)) {
+                throw new InvalidResultException(Reason.SIGNATURE, "Signed JWT rejected: Invalid signature");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            this.scratchPool.release(scratch);
+        }
+    }
+
+    /**
+     * Decodes the base64url signature {@code data[start, end)} into
+     * {@code out}, or returns {@code false} if it isn't a valid HS256 signature.
+     */
+    static boolean decodeSignature(byte[] data, int start, int end, byte[] out) {
+        if (end - start != ENCODED_SIGNATURE_LENGTH) {
+            return false;
+        }
+        int bits = 0;
+        int bitCount = 0;
+        int written = 0;
+        for (int i = start; i < end; ++i) {
+            int c = data[i];
+            int value = c >= 0 ? BASE64URL_VALUES[c] : -1;
+            if (value < 0) {
+                return false;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[written++] = (byte) (bits >> bitCount);
+            }
+        }
+        return written == SIGNATURE_LENGTH;
+    }
+
+    private static final class Scratch {
+        final byte[] expected = new byte[SIGNATURE_LENGTH];
+        final byte[] actual = new byte[SIGNATURE_LENGTH];
+        final Mac mac;
+
+        Scratch(SecretKeySpec key) {
+            try {
+                this.mac = Mac.getInstance(key.getAlgorithm());
+                this.mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
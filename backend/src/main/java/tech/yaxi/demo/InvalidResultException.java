@@ -2,11 +2,39 @@ package tech.yaxi.demo;
 
 public class InvalidResultException extends RuntimeException {
 
-    public InvalidResultException(Throwable throwable) {
+    /**
+     * Why a result was rejected, coarse enough to be used as a metric tag.
+     */
+    public enum Reason {
+        /** Not a compact JWS, or a payload that isn't valid base64 or JSON. */
+        MALFORMED,
+        /** A header we don't accept, e.g. another algorithm. */
+        HEADER,
+        SIGNATURE,
+        EXPIRED,
+        NOT_YET_VALID,
+        /** A claim of the wrong type or structure. */
+        CLAIMS,
+        TICKET_MISSING,
+        UNKNOWN_TICKET,
+        TICKET_ALREADY_USED,
+        /** Result data that couldn't be converted. */
+        DATA,
+    }
+
+    private final Reason reason;
+
+    public InvalidResultException(Reason reason, Throwable throwable) {
         super(throwable);
+        this.reason = reason;
     }
 
-    public InvalidResultException(String message) {
+    public InvalidResultException(Reason reason, String message) {
         super(message);
+        this.reason = reason;
+    }
+
+    public Reason reason() {
+        return this.reason;
     }
 }
@@ -0,0 +1,133 @@
+package tech.yaxi.demo;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.util.Base64URL;
+import tech.yaxi.demo.InvalidResultException.Reason;
+
+/**
+ * Immutable snapshot of the keys used for tickets: one active key that signs
+ * new tickets and any number of keys that are still accepted for results.
+ *
+ * Verifiers are indexed by key ID, so picking the key for a result is a
+ * single map lookup on the header's {@code kid}. Results with an unknown or
+ * missing {@code kid} are checked against the active key.
+ */
+final class KeySet {
+
+    private static final int ACCEPTED_HEADER_CACHE_SIZE = 8;
+
+    private final String activeKeyId;
+    private final JWSHeader header;
+    private final JWSSigner signer;
+    private final TicketIssuer issuer;
+    private final Hs256Verifier activeVerifier;
+    private final Map<String, Hs256Verifier> verifiers;
+    private final AtomicReferenceArray<AcceptedHeader> acceptedHeaders =
+            new AtomicReferenceArray<>(ACCEPTED_HEADER_CACHE_SIZE);
+    private final AtomicInteger nextAcceptedHeader = new AtomicInteger();
+
+    /**
+     * @param keys all keys by ID, including the active key
+     */
+    KeySet(String activeKeyId, Map<String, byte[]> keys) {
+        var activeKey = keys.get(activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalArgumentException("Active key '" + activeKeyId + "' is missing");
+        }
+        this.activeKeyId = activeKeyId;
+        this.header = new JWSHeader.Builder(JWSAlgorithm.HS256)
+                .keyID(activeKeyId)
+                .type(JOSEObjectType.JWT)
+                .build();
+        try {
+            this.signer = new MACSigner(activeKey);
+        } catch (JOSEException e) {
+            throw new IllegalArgumentException(e);
+        }
+        this.issuer = new TicketIssuer(this.header, activeKey);
+
+        var verifiers = new HashMap<String, Hs256Verifier>();
+        keys.forEach((keyId, key) -> verifiers.put(keyId, new Hs256Verifier(key)));
+        this.verifiers = Map.copyOf(verifiers);
+        this.activeVerifier = this.verifiers.get(activeKeyId);
+    }
+
+    String activeKeyId() {
+        return this.activeKeyId;
+    }
+
+    JWSHeader header() {
+        return this.header;
+    }
+
+    JWSSigner signer() {
+        return this.signer;
+    }
+
+    TicketIssuer issuer() {
+        return this.issuer;
+    }
+
+    int size() {
+        return this.verifiers.size();
+    }
+
+    /**
+     * Checks the header {@code data[0, headerEnd)} and the signature of the
+     * compact JWS in {@code data[0, end)} with the key named by its
+     * {@code kid}.
+     */
+    void verify(byte[] data, int headerEnd, int payloadEnd, int end) {
+        verifier(data, headerEnd).verify(data, payloadEnd, end);
+    }
+
+    private Hs256Verifier verifier(byte[] data, int headerEnd) {
+        // Headers are practically constant per key, so remember the raw bytes
+        // of recently accepted ones instead of parsing them every time
+        for (int i = 0; i < ACCEPTED_HEADER_CACHE_SIZE; ++i) {
+            var accepted = this.acceptedHeaders.get(i);
+            if (accepted != null && Arrays.equals(data, 0, headerEnd, accepted.header, 0, accepted.header.length)) {
+                return accepted.verifier;
+            }
+        }
+
+        JWSHeader header;
+        try {
+            header = JWSHeader.parse(new Base64URL(new String(data, 0, headerEnd, StandardCharsets.US_ASCII)));
+        } catch (ParseException e) {
+            throw new InvalidResultException(Reason.HEADER, e);
+        }
+        if (!JWSAlgorithm.HS256.equals(header.getAlgorithm())) {
+            throw new InvalidResultException(Reason.HEADER, "Signed JWT rejected: Another algorithm expected");
+        }
+        if (header.getType() != null && !JOSEObjectType.JWT.equals(header.getType())) {
+            throw new InvalidResultException(Reason.HEADER, "JOSE header typ (type) " + header.getType() + " not allowed");
+        }
+        if (header.getCriticalParams() != null && !header.getCriticalParams().isEmpty()) {
+            throw new InvalidResultException(Reason.HEADER, "Unsupported critical header parameters");
+        }
+        var verifier = header.getKeyID() == null
+                ? this.activeVerifier
+                : this.verifiers.getOrDefault(header.getKeyID(), this.activeVerifier);
+
+        int slot = Math.floorMod(this.nextAcceptedHeader.getAndIncrement(), ACCEPTED_HEADER_CACHE_SIZE);
+        this.acceptedHeaders.set(slot, new AcceptedHeader(Arrays.copyOf(data, headerEnd), verifier));
+        return verifier;
+    }
+
+    private record AcceptedHeader(byte[] header, Hs256Verifier verifier) {
+    }
+}
@@ -0,0 +1,42 @@
+package tech.yaxi.demo;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Small lock-free pool for expensive, non thread-safe helpers such as
+ * {@link javax.crypto.Mac} instances and scratch buffers.
+ *
+ * Objects are kept in a striped array indexed by the calling thread's id, so
+ * uncontended threads almost always get their "own" instance back. Unlike a
+ * {@link ThreadLocal} this also works for short-lived (virtual) threads and
+ * keeps the number of retained instances bounded.
+ */
+final class ObjectPool<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final Supplier<T> factory;
+
+    ObjectPool(Supplier<T> factory) {
+        int size = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.factory = factory;
+    }
+
+    T acquire() {
+        int slot = slot();
+        T object = this.slots.getAndSet(slot, null);
+        return object != null ? object : this.factory.get();
+    }
+
+    void release(T object) {
+        this.slots.compareAndSet(slot(), null, object);
+    }
+
+    private int slot() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & this.mask;
+    }
+}
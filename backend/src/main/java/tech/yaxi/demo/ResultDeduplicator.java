@@ -0,0 +1,202 @@
+package tech.yaxi.demo;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recognizes results that routex delivers more than once, so that retries
+ * are acknowledged without verifying, decoding or publishing them again.
+ *
+ * Accepted results are remembered by their HS256 signature, which is found
+ * and decoded straight from the raw request body; the payload is never
+ * touched on a hit. As the signature is a MAC over the whole JWT, equal
+ * signatures mean equal results. The ticket ID serves as a secondary key,
+ * which catches results that were signed again for the same ticket.
+ *
+ * The cache is a segmented LRU bounded by
+ * {@code yaxi.webhook.dedup.capacity} entries: new results go to a probation
+ * segment and are promoted to the protected segment when seen again, so a
+ * burst of one-off results doesn't evict the ones that routex keeps retrying.
+ * A capacity of 0 disables deduplication.
+ */
+@Component
+public class ResultDeduplicator {
+
+    /** Share of the capacity reserved for results that were seen again. */
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final int capacity;
+    private final int protectedCapacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Signature, Entry> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<Signature, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<UUID, Signature> tickets = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResultDeduplicator(@Value("${yaxi.webhook.dedup.capacity:10000}") int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        this.capacity = capacity;
+        this.protectedCapacity = (int) ((long) capacity * PROTECTED_PERCENT / 100);
+    }
+
+    public record Stats(int size, int capacity, long hits, long misses, long evictions) {
+    }
+
+    /**
+     * Checks whether the serialized result {@code data} was already accepted.
+     */
+    public boolean isDuplicate(byte[] data) {
+        if (this.capacity == 0) {
+            return false;
+        }
+        var signature = Signature.of(data);
+        if (signature == null || !contains(signature)) {
+            this.misses.increment();
+            return false;
+        }
+        this.hits.increment();
+        return true;
+    }
+
+    /**
+     * Checks whether a result for {@code ticketId} was already accepted under
+     * a signature other than the one of {@code result}.
+     */
+    public boolean isDuplicate(SignedResult result, UUID ticketId) {
+        if (this.capacity == 0) {
+            return false;
+        }
+        var signature = Signature.of(result.data());
+        this.lock.lock();
+        try {
+            var known = this.tickets.get(ticketId);
+            if (known == null || known.equals(signature)) {
+                return false;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        this.hits.increment();
+        return true;
+    }
+
+    /**
+     * Remembers an accepted result, optionally along with its ticket ID once
+     * that is known.
+     */
+    public void remember(SignedResult result, @Nullable UUID ticketId) {
+        if (this.capacity == 0) {
+            return;
+        }
+        var signature = Signature.of(result.data());
+        if (signature == null) {
+            return;
+        }
+        this.lock.lock();
+        try {
+            var entry = this.protectedSegment.get(signature);
+            if (entry == null) {
+                entry = this.probation.get(signature);
+            }
+            if (entry == null) {
+                entry = new Entry();
+                this.probation.put(signature, entry);
+                if (this.probation.size() + this.protectedSegment.size() > this.capacity) {
+                    evictEldest();
+                }
+            }
+            if (ticketId != null && entry.ticketId == null) {
+                entry.ticketId = ticketId;
+                this.tickets.put(ticketId, signature);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        this.lock.lock();
+        try {
+            size = this.probation.size() + this.protectedSegment.size();
+        } finally {
+            this.lock.unlock();
+        }
+        return new Stats(size, this.capacity, this.hits.sum(), this.misses.sum(), this.evictions.sum());
+    }
+
+    private boolean contains(Signature signature) {
+        this.lock.lock();
+        try {
+            if (this.protectedSegment.get(signature) != null) {
+                return true;
+            }
+            var entry = this.probation.remove(signature);
+            if (entry == null) {
+                return false;
+            }
+            this.protectedSegment.put(signature, entry);
+            if (this.protectedSegment.size() > this.protectedCapacity) {
+                var eldest = this.protectedSegment.entrySet().iterator().next();
+                this.protectedSegment.remove(eldest.getKey());
+                this.probation.put(eldest.getKey(), eldest.getValue());
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void evictEldest() {
+        var segment = this.probation.isEmpty() ? this.protectedSegment : this.probation;
+        var eldest = segment.entrySet().iterator().next();
+        segment.remove(eldest.getKey());
+        var ticketId = eldest.getValue().ticketId;
+        if (ticketId != null) {
+            this.tickets.remove(ticketId, eldest.getKey());
+        }
+        this.evictions.increment();
+    }
+
+    private static final class Entry {
+        @Nullable
+        UUID ticketId;
+    }
+
+    /**
+     * The decoded 256 bit signature of a result.
+     */
+    private record Signature(long w0, long w1, long w2, long w3) {
+
+        @Nullable
+        static Signature of(byte[] data) {
+            int end = data.length;
+            while (end > 0 && Character.isWhitespace(data[end - 1])) {
+                --end;
+            }
+            int start = end;
+            while (start > 0 && data[start - 1] != '.' && end - start <= Hs256Verifier.ENCODED_SIGNATURE_LENGTH) {
+                --start;
+            }
+            var decoded = new byte[Hs256Verifier.SIGNATURE_LENGTH];
+            if (start == 0 || !Hs256Verifier.decodeSignature(data, start, end, decoded)) {
+                return null;
+            }
+            var buffer = ByteBuffer.wrap(decoded);
+            return new Signature(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package tech.yaxi.demo;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.sink.ResultDispatcher;
+
+/**
+ * Meters for the state of the result pipeline: the depth of and wait times
+ * in the {@link ResultQueue}, the {@link ResultDeduplicator}'s counters and
+ * the counters of every sink, tagged with its name.
+ *
+ * Unlike {@link RoutexMetrics}, these are read from the components' own
+ * counters when the registry is scraped, so they're available on the
+ * actuator's metrics endpoints rather than next to the public webhook.
+ */
+@Component
+public class ResultPipelineMetrics implements MeterBinder {
+
+    private final ResultDispatcher resultDispatcher;
+    private final ResultDeduplicator resultDeduplicator;
+    @Nullable
+    private final ResultQueue resultQueue;
+
+    @Autowired
+    public ResultPipelineMetrics(
+            ResultDispatcher resultDispatcher,
+            ResultDeduplicator resultDeduplicator,
+            Optional<ResultQueue> resultQueue) {
+        this.resultDispatcher = resultDispatcher;
+        this.resultDeduplicator = resultDeduplicator;
+        this.resultQueue = resultQueue.orElse(null);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindDeduplicator(registry, this.resultDeduplicator);
+        for (var sink : this.resultDispatcher.stats().keySet()) {
+            bindSink(registry, this.resultDispatcher, sink);
+        }
+        if (this.resultQueue != null) {
+            bindQueue(registry, this.resultQueue);
+        }
+    }
+
+    private static void bindDeduplicator(MeterRegistry registry, ResultDeduplicator deduplicator) {
+        Gauge.builder("yaxi.results.dedup.size", deduplicator, d -> d.stats().size())
+                .description("Results remembered as accepted")
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.dedup.lookups", deduplicator, d -> d.stats().hits())
+                .description("Lookups of incoming results among the accepted ones")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.dedup.lookups", deduplicator, d -> d.stats().misses())
+                .description("Lookups of incoming results among the accepted ones")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.dedup.evictions", deduplicator, d -> d.stats().evictions())
+                .description("Accepted results forgotten to make room")
+                .register(registry);
+    }
+
+    private static void bindSink(MeterRegistry registry, ResultDispatcher dispatcher, String sink) {
+        Gauge.builder("yaxi.results.sink.pending", dispatcher, d -> d.stats().get(sink).pending())
+                .description("Results waiting to be written to a sink")
+                .tag("sink", sink)
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.sink.written", dispatcher, d -> d.stats().get(sink).written())
+                .description("Results written to a sink")
+                .tag("sink", sink)
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.sink.batches", dispatcher, d -> d.stats().get(sink).batches())
+                .description("Batches written to a sink")
+                .tag("sink", sink)
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.sink.dropped", dispatcher, d -> d.stats().get(sink).dropped())
+                .description("Results dropped as the sink's queue was full")
+                .tag("sink", sink)
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.sink.failed", dispatcher, d -> d.stats().get(sink).failed())
+                .description("Results a sink failed to write")
+                .tag("sink", sink)
+                .register(registry);
+    }
+
+    private static void bindQueue(MeterRegistry registry, ResultQueue queue) {
+        Gauge.builder("yaxi.results.queue.depth", queue, q -> q.stats().depth())
+                .description("Results waiting in the queue")
+                .register(registry);
+        Gauge.builder("yaxi.results.queue.capacity", queue, q -> q.stats().capacity())
+                .description("Results the queue holds at most")
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.queue.offered", queue, q -> q.stats().accepted())
+                .description("Results offered to the queue")
+                .tag("outcome", "accepted")
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.queue.offered", queue, q -> q.stats().rejected())
+                .description("Results offered to the queue")
+                .tag("outcome", "rejected")
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.queue.processed", queue, q -> q.stats().processed())
+                .description("Queued results processed by the workers")
+                .tag("outcome", "success")
+                .register(registry);
+        FunctionCounter.builder("yaxi.results.queue.processed", queue, q -> q.stats().failed())
+                .description("Queued results processed by the workers")
+                .tag("outcome", "failure")
+                .register(registry);
+        FunctionTimer.builder("yaxi.results.queue.wait", queue,
+                        q -> q.stats().processed() + q.stats().failed(),
+                        ResultQueue::totalWaitNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Time results waited in the queue")
+                .register(registry);
+        TimeGauge.builder("yaxi.results.queue.wait.max", queue, TimeUnit.MILLISECONDS, q -> q.stats().maxWaitMillis())
+                .description("Longest time a result waited in the queue")
+                .register(registry);
+    }
+}
@@ -0,0 +1,125 @@
+package tech.yaxi.demo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import com.fasterxml.jackson.core.JsonParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.RoutexMetrics.Stage;
+import tech.yaxi.demo.jfr.ResultStageEvent;
+import tech.yaxi.demo.model.Transaction;
+import tech.yaxi.demo.sink.ResultDispatcher;
+
+/**
+ * Verifies and decodes the transaction results that routex sends to the
+ * webhook and publishes them to the configured {@link ResultDispatcher sinks}.
+ * The time spent in each stage and rejected results are recorded in
+ * {@link RoutexMetrics}. With {@link AccountSync}, bookings that were
+ * already seen for the account are dropped before publishing.
+ */
+@Component
+public class ResultProcessor {
+
+    private final TicketService ticketService;
+    private final TransactionsReader transactionsReader;
+    private final ResultDispatcher resultDispatcher;
+    private final ResultDeduplicator resultDeduplicator;
+    private final RoutexMetrics metrics;
+    @Nullable
+    private final AccountSync accountSync;
+
+    public ResultProcessor(
+            TicketService ticketService,
+            TransactionsReader transactionsReader,
+            ResultDispatcher resultDispatcher,
+            ResultDeduplicator resultDeduplicator,
+            RoutexMetrics metrics) {
+        this(ticketService, transactionsReader, resultDispatcher, resultDeduplicator, metrics, Optional.empty());
+    }
+
+    @Autowired
+    public ResultProcessor(
+            TicketService ticketService,
+            TransactionsReader transactionsReader,
+            ResultDispatcher resultDispatcher,
+            ResultDeduplicator resultDeduplicator,
+            RoutexMetrics metrics,
+            Optional<AccountSync> accountSync) {
+        this.ticketService = ticketService;
+        this.transactionsReader = transactionsReader;
+        this.resultDispatcher = resultDispatcher;
+        this.resultDeduplicator = resultDeduplicator;
+        this.metrics = metrics;
+        this.accountSync = accountSync.orElse(null);
+    }
+
+    /**
+     * Checks the signature of a serialized result without decoding it.
+     */
+    public SignedResult checkSignature(byte[] data) {
+        long start = System.nanoTime();
+        try {
+            return this.ticketService.checkSignature(data);
+        } catch (InvalidResultException e) {
+            this.metrics.recordRejection(e);
+            throw e;
+        } finally {
+            this.metrics.recordStage(Stage.SIGNATURE, System.nanoTime() - start);
+        }
+    }
+
+    public TicketResult<List<Transaction>> process(byte[] data) {
+        return process(checkSignature(data));
+    }
+
+    public TicketResult<List<Transaction>> process(SignedResult signedResult) {
+        long start = System.nanoTime();
+        var conversion = new ResultStageEvent();
+        TicketResult<List<Transaction>> result;
+        // A result signed again for a ticket whose result was accepted; checked
+        // before the ticket is consumed, which would reject it as used
+        boolean[] duplicate = new boolean[1];
+        try {
+            result = this.ticketService.readResults(signedResult, parser -> readTransactions(parser, conversion),
+                    id -> duplicate[0] = this.resultDeduplicator.isDuplicate(signedResult, id));
+        } catch (InvalidResultException e) {
+            this.metrics.recordRejection(e);
+            throw e;
+        } finally {
+            this.metrics.recordStage(Stage.PAYLOAD, System.nanoTime() - start);
+        }
+        int transactions = result.data() == null ? 0 : result.data().size();
+        this.metrics.recordResult(signedResult.size(), transactions);
+        // Committed only now that the ticket ID is known
+        if (result.data() != null && conversion.shouldCommit()) {
+            conversion.stage = ResultStageEvent.CONVERSION;
+            conversion.ticketId = result.id().toString();
+            conversion.payloadSize = signedResult.size();
+            conversion.transactions = transactions;
+            conversion.commit();
+        }
+        if (duplicate[0]) {
+            return result;
+        }
+        if (this.accountSync != null) {
+            result = this.accountSync.filter(result);
+        }
+        this.resultDispatcher.publish(result);
+        this.resultDeduplicator.remember(signedResult, result.id());
+        return result;
+    }
+
+    private List<Transaction> readTransactions(JsonParser parser, ResultStageEvent event) throws IOException {
+        long start = System.nanoTime();
+        event.begin();
+        try {
+            return this.transactionsReader.read(parser);
+        } finally {
+            event.end();
+            this.metrics.recordStage(Stage.CONVERSION, System.nanoTime() - start);
+        }
+    }
+}
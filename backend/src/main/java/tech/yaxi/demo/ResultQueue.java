@@ -0,0 +1,155 @@
+package tech.yaxi.demo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded queue between the webhook and result processing.
+ *
+ * The webhook only checks a result's signature and enqueues it; a fixed
+ * number of virtual-thread workers decode and handle the queued results.
+ * When the queue is full, results are rejected so that the caller can ask
+ * routex to retry later instead of piling up work.
+ */
+@Component
+@ConditionalOnProperty(name = "yaxi.webhook.async", havingValue = "true")
+public class ResultQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultQueue.class);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ResultProcessor resultProcessor;
+    private final BlockingQueue<Entry> queue;
+    private final int workerCount;
+    private final List<Thread> workers = new ArrayList<>();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private volatile boolean closed;
+
+    @Autowired
+    public ResultQueue(
+            ResultProcessor resultProcessor,
+            @Value("${yaxi.webhook.queueCapacity:1000}") int capacity,
+            @Value("${yaxi.webhook.workers:0}") int workers) {
+        this.resultProcessor = resultProcessor;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    }
+
+    @PostConstruct
+    void start() {
+        for (int i = 0; i < this.workerCount; ++i) {
+            this.workers.add(Thread.ofVirtual().name("result-worker-" + i).start(this::work));
+        }
+    }
+
+    /**
+     * Stops accepting results and waits for the queued ones to be processed.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        this.closed = true;
+        var deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+        for (var worker : this.workers) {
+            var remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !worker.join(Duration.ofNanos(remaining))) {
+                worker.interrupt();
+            }
+        }
+        if (!this.queue.isEmpty()) {
+            LOGGER.warn("Dropping {} queued results on shutdown", this.queue.size());
+        }
+    }
+
+    /**
+     * Enqueues a result whose signature has been checked. Returns
+     * {@code false} if the queue is full.
+     */
+    public boolean offer(SignedResult result) {
+        if (!this.closed && this.queue.offer(new Entry(result, System.nanoTime()))) {
+            this.accepted.increment();
+            return true;
+        }
+        this.rejected.increment();
+        return false;
+    }
+
+    public Stats stats() {
+        long processed = this.processed.sum() + this.failed.sum();
+        return new Stats(
+                this.queue.size(),
+                this.queue.size() + this.queue.remainingCapacity(),
+                this.accepted.sum(),
+                this.rejected.sum(),
+                this.processed.sum(),
+                this.failed.sum(),
+                processed == 0 ? 0 : this.totalWaitNanos.sum() / processed / 1_000_000.0,
+                this.maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    /** Time the processed and failed results waited in the queue in total. */
+    long totalWaitNanos() {
+        return this.totalWaitNanos.sum();
+    }
+
+    private void work() {
+        while (!this.closed || !this.queue.isEmpty()) {
+            Entry entry;
+            try {
+                entry = this.queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (entry == null) {
+                continue;
+            }
+            long wait = System.nanoTime() - entry.enqueuedNanos();
+            this.totalWaitNanos.add(wait);
+            this.maxWaitNanos.accumulateAndGet(wait, Math::max);
+            try {
+                this.resultProcessor.process(entry.result());
+                this.processed.increment();
+            } catch (RuntimeException e) {
+                this.failed.increment();
+                LOGGER.warn("Failed to process queued result", e);
+            }
+        }
+    }
+
+    private record Entry(SignedResult result, long enqueuedNanos) {
+    }
+
+    /**
+     * Snapshot of the queue's state. Wait times are measured from enqueueing
+     * until a worker picks the result up.
+     */
+    public record Stats(
+            int depth,
+            int capacity,
+            long accepted,
+            long rejected,
+            long processed,
+            long failed,
+            double averageWaitMillis,
+            double maxWaitMillis) {
+    }
+}
@@ -0,0 +1,18 @@
+package tech.yaxi.demo;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Reads the result data of a verified ticket result directly from the
+ * payload's JSON stream.
+ *
+ * The parser is positioned on the first token of the result data value (e.g.
+ * {@code START_ARRAY}) and must be left on its last token.
+ */
+@FunctionalInterface
+public interface ResultReader<R> {
+
+    R read(JsonParser parser) throws IOException;
+}
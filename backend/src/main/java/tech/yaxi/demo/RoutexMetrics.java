@@ -0,0 +1,104 @@
+package tech.yaxi.demo;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.InvalidResultException.Reason;
+
+/**
+ * Meters for ticket issuance and the stages of processing a result.
+ *
+ * All meters are registered up front, so recording is a plain update of an
+ * existing meter without any registry lookups. Timers publish percentile
+ * histograms, which Prometheus aggregates across instances. The ticket
+ * {@code service} tag is limited to the routex services, as it comes from a
+ * request parameter.
+ */
+@Component
+public class RoutexMetrics {
+
+    public enum Stage {
+        /** Locating the JWT parts and checking header and signature. */
+        SIGNATURE,
+        /** Decoding and parsing the payload and checking its claims, including conversion. */
+        PAYLOAD,
+        /** Converting the result data into transactions. */
+        CONVERSION,
+    }
+
+    private static final Set<String> SERVICES =
+            Set.of("Accounts", "Balances", "Transactions", "CollectPayment", "Transfer");
+    private static final String OTHER_SERVICE = "other";
+
+    private final Map<String, Timer> ticketTimers;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<Reason, Counter> rejections = new EnumMap<>(Reason.class);
+    private final DistributionSummary resultSize;
+    private final DistributionSummary resultTransactions;
+
+    @Autowired
+    public RoutexMetrics(MeterRegistry registry) {
+        this.ticketTimers = Stream.concat(SERVICES.stream(), Stream.of(OTHER_SERVICE))
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), service -> ticketTimer(registry, service)));
+        for (var stage : Stage.values()) {
+            this.stageTimers.put(stage, Timer.builder("yaxi.results.stage")
+                    .description("Time spent in a stage of processing a result")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (var reason : Reason.values()) {
+            this.rejections.put(reason, Counter.builder("yaxi.results.rejected")
+                    .description("Results rejected as invalid")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        this.resultSize = DistributionSummary.builder("yaxi.results.size")
+                .description("Size of serialized results")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.resultTransactions = DistributionSummary.builder("yaxi.results.transactions")
+                .description("Transactions per result")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void recordTicket(String service, long nanos) {
+        var timer = this.ticketTimers.getOrDefault(service, this.ticketTimers.get(OTHER_SERVICE));
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordStage(Stage stage, long nanos) {
+        this.stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRejection(InvalidResultException e) {
+        this.rejections.get(e.reason()).increment();
+    }
+
+    public void recordResult(int bytes, int transactions) {
+        this.resultSize.record(bytes);
+        this.resultTransactions.record(transactions);
+    }
+
+    private static Timer ticketTimer(MeterRegistry registry, String service) {
+        return Timer.builder("yaxi.tickets.issue")
+                .description("Time spent issuing a ticket")
+                .tag("service", service)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
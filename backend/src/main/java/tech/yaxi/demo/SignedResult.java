@@ -0,0 +1,46 @@
+package tech.yaxi.demo;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Base64;
+
+/**
+ * A result JWT whose signature has been verified, but whose payload hasn't
+ * been decoded yet.
+ */
+public final class SignedResult {
+
+    private final byte[] data;
+    private final int headerEnd;
+    private final int payloadEnd;
+
+    SignedResult(byte[] data, int headerEnd, int payloadEnd) {
+        this.data = data;
+        this.headerEnd = headerEnd;
+        this.payloadEnd = payloadEnd;
+    }
+
+    /**
+     * Size of the serialized JWT in bytes.
+     */
+    public int size() {
+        return this.data.length;
+    }
+
+    byte[] data() {
+        return this.data;
+    }
+
+    int headerEnd() {
+        return this.headerEnd;
+    }
+
+    int payloadEnd() {
+        return this.payloadEnd;
+    }
+
+    InputStream payload() {
+        var encoded = new ByteArrayInputStream(this.data, this.headerEnd + 1, this.payloadEnd - this.headerEnd - 1);
+        return Base64.getUrlDecoder().wrap(encoded);
+    }
+}
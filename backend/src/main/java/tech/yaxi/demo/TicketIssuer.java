@@ -0,0 +1,429 @@
+package tech.yaxi.demo;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.springframework.lang.Nullable;
+
+/**
+ * Allocation-light issuer for ticket JWTs.
+ *
+ * The base64url encoded header is computed once, and for every service a
+ * claims template with the constant parts of the payload is precompiled. A
+ * ticket is then written as JSON, base64url encoded and signed inside reused
+ * buffers; the only allocation per ticket is the resulting string.
+ *
+ * The output is byte-for-byte identical to what nimbus produces for
+ * {@link TicketService}'s claims. Ticket data that contains values for which
+ * this can't be guaranteed (e.g. floating point numbers, whose formatting
+ * differs between serializers) is rejected by {@link #issue} returning
+ * {@code null}, and the caller falls back to nimbus.
+ */
+final class TicketIssuer {
+
+    private static final int MAX_CACHED_TEMPLATES = 32;
+    /** Buffers that grew beyond this size are dropped instead of being pooled. */
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final List<String> CLAIMS_ORDER = claimsOrder();
+    private static final List<String> CLAIMS_DATA_ORDER = claimsDataOrder();
+
+    private final byte[] headerSegment;
+    private final SecretKeySpec key;
+    private final Map<String, ClaimsTemplate> templates = new ConcurrentHashMap<>();
+    private final ObjectPool<Scratch> scratchPool;
+
+    TicketIssuer(JWSHeader header, byte[] key) {
+        this.headerSegment = (header.toBase64URL().toString() + ".").getBytes(StandardCharsets.US_ASCII);
+        this.key = new SecretKeySpec(key, "HmacSHA256");
+        this.scratchPool = new ObjectPool<>(() -> new Scratch(this.key));
+    }
+
+    /**
+     * Issues the serialized ticket, or returns {@code null} if {@code data}
+     * can't be serialized exactly like nimbus would.
+     */
+    @Nullable
+    String issue(String service, UUID id, long expSeconds, @Nullable Object data) {
+        var template = template(service);
+        var scratch = this.scratchPool.acquire();
+        try {
+            var json = scratch.json;
+            json.reset();
+            for (int i = 0; i < template.slots.length; ++i) {
+                json.write(template.literals[i]);
+                switch (template.slots[i]) {
+                    case EXP -> json.writeLong(expSeconds);
+                    case ID -> json.writeUuid(id);
+                    case DATA -> {
+                        if (!json.writeValue(data)) {
+                            return null;
+                        }
+                    }
+                }
+            }
+            json.write(template.literals[template.slots.length]);
+
+            var out = scratch.out;
+            out.reset();
+            out.write(this.headerSegment);
+            out.writeBase64Url(json.bytes, json.length);
+            scratch.mac.update(out.bytes, 0, out.length);
+            scratch.mac.doFinal(scratch.signature, 0);
+            out.write((byte) '.');
+            out.writeBase64Url(scratch.signature, scratch.signature.length);
+            return new String(out.bytes, 0, out.length, StandardCharsets.ISO_8859_1);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (scratch.json.bytes.length <= MAX_POOLED_BUFFER_SIZE
+                    && scratch.out.bytes.length <= MAX_POOLED_BUFFER_SIZE) {
+                this.scratchPool.release(scratch);
+            }
+        }
+    }
+
+    private ClaimsTemplate template(String service) {
+        var template = this.templates.get(service);
+        if (template != null) {
+            return template;
+        }
+        template = compile(service);
+        if (this.templates.size() < MAX_CACHED_TEMPLATES) {
+            this.templates.putIfAbsent(service, template);
+        }
+        return template;
+    }
+
+    /**
+     * Compiles the payload {@code {"exp":…,"data":{…}}} for a service into
+     * literal byte runs with slots for the per-ticket values. Member order
+     * follows the maps that nimbus serializes for {@link TicketService}'s
+     * claims.
+     */
+    private ClaimsTemplate compile(String service) {
+        var literals = new ArrayList<byte[]>();
+        var slots = new ArrayList<Slot>();
+        var literal = new JsonBuffer(64);
+
+        literal.write((byte) '{');
+        var firstClaim = true;
+        for (var claim : CLAIMS_ORDER) {
+            if (!firstClaim) {
+                literal.write((byte) ',');
+            }
+            firstClaim = false;
+            literal.writeString(claim);
+            literal.write((byte) ':');
+            if (claim.equals("exp")) {
+                literals.add(literal.toByteArray());
+                slots.add(Slot.EXP);
+                literal.reset();
+                continue;
+            }
+            literal.write((byte) '{');
+            var first = true;
+            for (var name : CLAIMS_DATA_ORDER) {
+                if (!first) {
+                    literal.write((byte) ',');
+                }
+                first = false;
+                literal.writeString(name);
+                literal.write((byte) ':');
+                switch (name) {
+                    case "service" -> literal.writeString(service);
+                    case "id" -> {
+                        literal.write((byte) '"');
+                        literals.add(literal.toByteArray());
+                        slots.add(Slot.ID);
+                        literal.reset();
+                        literal.write((byte) '"');
+                    }
+                    default -> {
+                        literals.add(literal.toByteArray());
+                        slots.add(Slot.DATA);
+                        literal.reset();
+                    }
+                }
+            }
+            literal.write((byte) '}');
+        }
+        literal.write((byte) '}');
+        literals.add(literal.toByteArray());
+        return new ClaimsTemplate(literals.toArray(byte[][]::new), slots.toArray(Slot[]::new));
+    }
+
+    private static List<String> claimsOrder() {
+        var claims = new JWTClaimsSet.Builder()
+                .expirationTime(new Date(0))
+                .claim("data", Map.of())
+                .build();
+        return List.copyOf(claims.toJSONObject().keySet());
+    }
+
+    private static List<String> claimsDataOrder() {
+        var claimsData = new HashMap<String, Object>();
+        claimsData.put("service", null);
+        claimsData.put("id", null);
+        claimsData.put("data", null);
+        return List.copyOf(claimsData.keySet());
+    }
+
+    private enum Slot {
+        EXP,
+        ID,
+        DATA,
+    }
+
+    private record ClaimsTemplate(byte[][] literals, Slot[] slots) {
+    }
+
+    private static final class Scratch {
+        final JsonBuffer json = new JsonBuffer(512);
+        final JsonBuffer out = new JsonBuffer(1024);
+        final byte[] signature = new byte[32];
+        final Mac mac;
+
+        Scratch(SecretKeySpec key) {
+            try {
+                this.mac = Mac.getInstance(key.getAlgorithm());
+                this.mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Growable byte buffer with just enough of a JSON writer to reproduce the
+     * output of nimbus' Gson configuration (nulls serialized, no HTML
+     * escaping) for JSON-like ticket data.
+     */
+    static final class JsonBuffer {
+        byte[] bytes;
+        int length;
+
+        JsonBuffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void reset() {
+            this.length = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(this.bytes, this.length);
+        }
+
+        void write(byte b) {
+            ensureCapacity(1);
+            this.bytes[this.length++] = b;
+        }
+
+        void write(byte[] b) {
+            ensureCapacity(b.length);
+            System.arraycopy(b, 0, this.bytes, this.length, b.length);
+            this.length += b.length;
+        }
+
+        void writeAscii(String s) {
+            ensureCapacity(s.length());
+            for (int i = 0; i < s.length(); ++i) {
+                this.bytes[this.length++] = (byte) s.charAt(i);
+            }
+        }
+
+        void writeLong(long value) {
+            if (value == Long.MIN_VALUE) {
+                writeAscii(Long.toString(value));
+                return;
+            }
+            ensureCapacity(20);
+            if (value < 0) {
+                this.bytes[this.length++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (long v = value / 10; v != 0; v /= 10) {
+                ++digits;
+            }
+            for (int i = this.length + digits - 1; i >= this.length; --i) {
+                this.bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            this.length += digits;
+        }
+
+        void writeUuid(UUID id) {
+            ensureCapacity(36);
+            writeHex(id.getMostSignificantBits() >>> 32, 8);
+            this.bytes[this.length++] = '-';
+            writeHex(id.getMostSignificantBits() >>> 16, 4);
+            this.bytes[this.length++] = '-';
+            writeHex(id.getMostSignificantBits(), 4);
+            this.bytes[this.length++] = '-';
+            writeHex(id.getLeastSignificantBits() >>> 48, 4);
+            this.bytes[this.length++] = '-';
+            writeHex(id.getLeastSignificantBits(), 12);
+        }
+
+        private void writeHex(long value, int digits) {
+            for (int i = digits - 1; i >= 0; --i) {
+                this.bytes[this.length + i] = HEX[(int) (value & 0xf)];
+                value >>>= 4;
+            }
+            this.length += digits;
+        }
+
+        /**
+         * Writes a JSON value; returns {@code false} if the value (or one of
+         * its elements) is of a type we don't serialize ourselves.
+         */
+        boolean writeValue(@Nullable Object value) {
+            if (value == null) {
+                writeAscii("null");
+            } else if (value instanceof String s) {
+                writeString(s);
+            } else if (value instanceof Boolean b) {
+                writeAscii(b ? "true" : "false");
+            } else if (value instanceof Integer || value instanceof Long) {
+                writeLong(((Number) value).longValue());
+            } else if (value instanceof Map<?, ?> map) {
+                write((byte) '{');
+                var first = true;
+                for (var entry : map.entrySet()) {
+                    if (!first) {
+                        write((byte) ',');
+                    }
+                    first = false;
+                    writeString(String.valueOf(entry.getKey()));
+                    write((byte) ':');
+                    if (!writeValue(entry.getValue())) {
+                        return false;
+                    }
+                }
+                write((byte) '}');
+            } else if (value instanceof Collection<?> collection) {
+                write((byte) '[');
+                var first = true;
+                for (var element : collection) {
+                    if (!first) {
+                        write((byte) ',');
+                    }
+                    first = false;
+                    if (!writeValue(element)) {
+                        return false;
+                    }
+                }
+                write((byte) ']');
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        void writeString(String s) {
+            ensureCapacity(s.length() + 2);
+            this.bytes[this.length++] = '"';
+            for (int i = 0; i < s.length(); ++i) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    writeAsciiChar(c);
+                } else if (c < 0x800) {
+                    ensureCapacity(2);
+                    this.bytes[this.length++] = (byte) (0xc0 | (c >> 6));
+                    this.bytes[this.length++] = (byte) (0x80 | (c & 0x3f));
+                } else if (c == '\u2028' || c == '\u2029') {
+                    writeAscii(c == '\u2028' ? "\\u2028" : "\\u2029");
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                        ensureCapacity(4);
+                        this.bytes[this.length++] = (byte) (0xf0 | (codePoint >> 18));
+                        this.bytes[this.length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                        this.bytes[this.length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                        this.bytes[this.length++] = (byte) (0x80 | (codePoint & 0x3f));
+                    } else {
+                        // Unpaired surrogates are replaced like String.getBytes(UTF_8) does
+                        write((byte) '?');
+                    }
+                } else {
+                    ensureCapacity(3);
+                    this.bytes[this.length++] = (byte) (0xe0 | (c >> 12));
+                    this.bytes[this.length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    this.bytes[this.length++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            write((byte) '"');
+        }
+
+        private void writeAsciiChar(char c) {
+            switch (c) {
+                case '"' -> writeAscii("\\\"");
+                case '\\' -> writeAscii("\\\\");
+                case '\t' -> writeAscii("\\t");
+                case '\b' -> writeAscii("\\b");
+                case '\n' -> writeAscii("\\n");
+                case '\r' -> writeAscii("\\r");
+                case '\f' -> writeAscii("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        ensureCapacity(6);
+                        writeAscii("\\u00");
+                        this.bytes[this.length++] = HEX[c >> 4];
+                        this.bytes[this.length++] = HEX[c & 0xf];
+                    } else {
+                        write((byte) c);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Appends {@code src[0, len)} base64url encoded without padding.
+         */
+        void writeBase64Url(byte[] src, int len) {
+            ensureCapacity((len + 2) / 3 * 4);
+            int i = 0;
+            for (; i + 3 <= len; i += 3) {
+                int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+                this.bytes[this.length++] = BASE64URL[bits >>> 18];
+                this.bytes[this.length++] = BASE64URL[(bits >>> 12) & 0x3f];
+                this.bytes[this.length++] = BASE64URL[(bits >>> 6) & 0x3f];
+                this.bytes[this.length++] = BASE64URL[bits & 0x3f];
+            }
+            if (len - i == 1) {
+                int bits = (src[i] & 0xff) << 16;
+                this.bytes[this.length++] = BASE64URL[bits >>> 18];
+                this.bytes[this.length++] = BASE64URL[(bits >>> 12) & 0x3f];
+            } else if (len - i == 2) {
+                int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+                this.bytes[this.length++] = BASE64URL[bits >>> 18];
+                this.bytes[this.length++] = BASE64URL[(bits >>> 12) & 0x3f];
+                this.bytes[this.length++] = BASE64URL[(bits >>> 6) & 0x3f];
+            }
+        }
+
+        private void ensureCapacity(int additional) {
+            if (this.length + additional > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + additional));
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package tech.yaxi.demo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the ticket keys into {@link TicketService} and keeps them up to date.
+ *
+ * Keys are read from {@code yaxi.keyId}/{@code yaxi.key} plus the optional
+ * {@code yaxi.verificationKeys} list. If {@code yaxi.keysFile} is set, that
+ * file (same {@code yaxi.*} structure, e.g. an external
+ * {@code application.yaml}) takes precedence and is reloaded whenever it
+ * changes, so keys can be rotated without a restart.
+ */
+@Component
+public class TicketKeysLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TicketKeysLoader.class);
+
+    private final TicketService ticketService;
+    private final Environment environment;
+    @Nullable
+    private final Path keysFile;
+    /** Not synchronized, so that virtual threads waiting for it don't pin their carrier. */
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    @Nullable
+    private FileTime keysFileModified;
+
+    @Autowired
+    public TicketKeysLoader(
+            TicketService ticketService,
+            Environment environment,
+            @Value("${yaxi.keysFile:}") String keysFile) {
+        this.ticketService = ticketService;
+        this.environment = environment;
+        this.keysFile = keysFile.isBlank() ? null : Path.of(keysFile);
+    }
+
+    @PostConstruct
+    void load() {
+        if (this.keysFile == null || !reloadIfChanged()) {
+            apply(Binder.get(this.environment));
+        }
+    }
+
+    /**
+     * Reloads the keys file if it was modified since it was last read.
+     * Returns whether keys were loaded from it.
+     */
+    @Scheduled(fixedDelayString = "${yaxi.keysReloadInterval:PT10S}")
+    boolean reloadIfChanged() {
+        this.reloadLock.lock();
+        try {
+            if (this.keysFile == null) {
+                return false;
+            }
+            try {
+                var modified = Files.getLastModifiedTime(this.keysFile);
+                if (modified.equals(this.keysFileModified)) {
+                    return false;
+                }
+                var yaml = new YamlPropertiesFactoryBean();
+                yaml.setResources(new FileSystemResource(this.keysFile));
+                apply(new Binder(new MapConfigurationPropertySource(yaml.getObject())));
+                this.keysFileModified = modified;
+                LOGGER.info("Loaded keys from {}", this.keysFile);
+                return true;
+            } catch (NoSuchFileException e) {
+                LOGGER.warn("Keys file {} does not exist", this.keysFile);
+            } catch (IOException | RuntimeException e) {
+                // Keep using the current keys; the file may be in the middle of being written
+                LOGGER.error("Failed to load keys from {}", this.keysFile, e);
+            }
+            return false;
+        } finally {
+            this.reloadLock.unlock();
+        }
+    }
+
+    private void apply(Binder binder) {
+        var keyId = binder.bind("yaxi.key-id", String.class).get();
+        var keys = new LinkedHashMap<String, byte[]>();
+        keys.put(keyId, Base64.getDecoder().decode(binder.bind("yaxi.key", String.class).get()));
+        binder.bind("yaxi.verification-keys", Bindable.listOf(VerificationKey.class))
+                .orElse(List.of())
+                .forEach(key -> keys.putIfAbsent(key.keyId(), Base64.getDecoder().decode(key.key())));
+        this.ticketService.updateKeys(keyId, keys);
+    }
+
+    public record VerificationKey(String keyId, String key) {
+    }
+}
@@ -0,0 +1,440 @@
+package tech.yaxi.demo;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers issued tickets until they expire, so that results can be
+ * matched to a ticket we actually issued and accepted only once.
+ *
+ * Tickets are kept in an open-addressing table of primitive arrays: the two
+ * halves of the UUID and a state word holding status, expiry and a version
+ * stamp. Writers (issuing, expiry) are serialized by a lock, while lookups
+ * and consuming a ticket on the webhook path are lock-free: a slot's key is
+ * read between two reads of its state word, which writers bump before and
+ * after changing the key, and consuming is a CAS on the state word.
+ *
+ * Expiry runs on a hashed timing wheel driven by the {@link Clock}: every
+ * ticket sits in the bucket of the tick it expires in, and each tick only
+ * looks at its own bucket. Capacity is fixed, so memory stays bounded; once
+ * {@code yaxi.tickets.registry.maxTickets} tickets are outstanding, no new
+ * ones are issued until some expire (see {@link FullException}).
+ *
+ * The registry lives in memory only: after a restart, results for tickets
+ * issued before are rejected as unknown.
+ */
+@Component
+@ConditionalOnProperty(name = "yaxi.tickets.registry.enabled", havingValue = "true", matchIfMissing = true)
+public class TicketRegistry {
+
+    public enum Consumption {
+        /** The ticket was outstanding and is now consumed. */
+        ACCEPTED,
+        /** The ticket was never issued (or has expired). */
+        UNKNOWN,
+        /** A result for the ticket was already accepted. */
+        ALREADY_CONSUMED,
+    }
+
+    private static final VarHandle STATES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // State word: version (21 bits, odd while a writer changes the key),
+    // status (3 bits) and expiry in epoch seconds (40 bits)
+    private static final int STATUS_SHIFT = 40;
+    private static final int VERSION_SHIFT = 43;
+    private static final long EXPIRY_MASK = (1L << STATUS_SHIFT) - 1;
+    private static final long STATUS_MASK = 7;
+    private static final long VERSION_ONE = 1L << VERSION_SHIFT;
+
+    private static final int FREE = 0;
+    private static final int ISSUED = 1;
+    private static final int CONSUMED = 2;
+    private static final int DELETED = 3;
+    /** The table was replaced by a rehashed copy; look again in the new one. */
+    private static final int MOVED = 4;
+
+    private static final long NOT_FOUND = -1;
+    private static final long RETRY = -2;
+
+    private static final int WHEEL_SIZE = 1024;
+
+    private final Clock clock;
+    private final int maxTickets;
+    private final long tickSeconds;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    private volatile Table table;
+    /** Last tick whose bucket has been processed. Guarded by {@link #lock}. */
+    private long currentTick;
+
+    @Autowired
+    public TicketRegistry(
+            @Value("${yaxi.tickets.registry.maxTickets:100000}") int maxTickets,
+            @Value("${yaxi.tickets.registry.tick:PT1S}") Duration tick) {
+        this(maxTickets, tick, Clock.systemUTC());
+    }
+
+    TicketRegistry(int maxTickets, Duration tick, Clock clock) {
+        if (maxTickets <= 0 || maxTickets > 1 << 29) {
+            throw new IllegalArgumentException("maxTickets must be between 1 and 2^29");
+        }
+        this.clock = clock;
+        this.maxTickets = maxTickets;
+        this.tickSeconds = Math.max(1, tick.toSeconds());
+        // At most half full, so probe sequences stay short
+        this.table = new Table(Integer.highestOneBit(maxTickets * 2 - 1) << 1);
+        for (int i = 0; i < WHEEL_SIZE; ++i) {
+            this.wheel[i] = new Bucket();
+        }
+        this.currentTick = Math.floorDiv(clock.instant().getEpochSecond(), this.tickSeconds) - 1;
+    }
+
+    /**
+     * Registers a newly issued ticket that is accepted until
+     * {@code expiresAt} (epoch seconds).
+     *
+     * @throws FullException if {@code maxTickets} tickets are outstanding
+     * @throws IllegalStateException if the ticket is already registered
+     */
+    public void register(UUID id, long expiresAt) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        this.lock.lock();
+        try {
+            expire();
+            var table = this.table;
+            if (table.live >= this.maxTickets) {
+                throw new FullException(retryAfterSeconds());
+            }
+            if (table.used >= table.states.length / 4 * 3) {
+                table = rehash(table);
+            }
+            int slot = -1;
+            for (int i = table.indexOf(msb, lsb); ; i = (i + 1) & table.mask) {
+                int status = status(table.states[i]);
+                if (status == FREE) {
+                    if (slot == -1) {
+                        slot = i;
+                        ++table.used;
+                    }
+                    break;
+                }
+                if (status == DELETED) {
+                    if (slot == -1) {
+                        slot = i;
+                    }
+                } else if (table.msb[i] == msb && table.lsb[i] == lsb) {
+                    throw new IllegalStateException("Ticket " + id + " is already registered");
+                }
+            }
+            long state = table.states[slot];
+            long version = (state >>> VERSION_SHIFT) << VERSION_SHIFT;
+            // Odd version: readers racing with the key update retry
+            STATES.setOpaque(table.states, slot, version + VERSION_ONE | (long) DELETED << STATUS_SHIFT);
+            VarHandle.storeStoreFence();
+            table.msb[slot] = msb;
+            table.lsb[slot] = lsb;
+            STATES.setRelease(
+                    table.states,
+                    slot,
+                    version + 2 * VERSION_ONE | (long) ISSUED << STATUS_SHIFT | (expiresAt & EXPIRY_MASK));
+            ++table.live;
+            bucketOf(expiresAt).add(slot);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a ticket as consumed by a result. Lock-free.
+     */
+    public Consumption consume(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        while (true) {
+            var table = this.table;
+            long found = find(table, msb, lsb);
+            if (found == NOT_FOUND) {
+                return Consumption.UNKNOWN;
+            }
+            if (found == RETRY) {
+                awaitRehash(table);
+                continue;
+            }
+            int slot = (int) found;
+            long state = (long) STATES.getAcquire(table.states, slot);
+            if (state >>> VERSION_SHIFT != found >>> 32) {
+                // The slot was reused for another ticket since find() saw the key
+                continue;
+            }
+            switch (status(state)) {
+                case ISSUED -> {
+                    long consumed = state & ~(STATUS_MASK << STATUS_SHIFT) | (long) CONSUMED << STATUS_SHIFT;
+                    if (STATES.compareAndSet(table.states, slot, state, consumed)) {
+                        return Consumption.ACCEPTED;
+                    }
+                }
+                case CONSUMED -> {
+                    return Consumption.ALREADY_CONSUMED;
+                }
+                case MOVED -> awaitRehash(table);
+                default -> {
+                    // Expired and possibly reused in the meantime, look again
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a ticket is outstanding (issued and not consumed). Lock-free.
+     */
+    public boolean isOutstanding(UUID id) {
+        while (true) {
+            var table = this.table;
+            long found = find(table, id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (found == RETRY) {
+                awaitRehash(table);
+                continue;
+            }
+            if (found == NOT_FOUND) {
+                return false;
+            }
+            long state = (long) STATES.getAcquire(table.states, (int) found);
+            if (state >>> VERSION_SHIFT != found >>> 32) {
+                continue;
+            }
+            return status(state) == ISSUED;
+        }
+    }
+
+    /**
+     * Number of registered tickets, consumed or not, that haven't expired
+     * yet.
+     */
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.table.live;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Advances the timing wheel to the current time and forgets tickets that
+     * expired in the meantime.
+     */
+    @Scheduled(fixedDelayString = "${yaxi.tickets.registry.tick:PT1S}")
+    public void expire() {
+        this.lock.lock();
+        try {
+            long now = this.clock.instant().getEpochSecond();
+            // Tickets sit in the bucket of the first tick at or after their expiry
+            long nowTick = Math.floorDiv(now, this.tickSeconds);
+            // Past one revolution, every bucket has been visited
+            long from = Math.max(this.currentTick + 1, nowTick - WHEEL_SIZE + 1);
+            var table = this.table;
+            for (long tick = from; tick <= nowTick; ++tick) {
+                var bucket = this.wheel[(int) (tick & (WHEEL_SIZE - 1))];
+                int kept = 0;
+                for (int i = 0; i < bucket.size; ++i) {
+                    int slot = bucket.slots[i];
+                    if (!expireSlot(table, slot, now)) {
+                        bucket.slots[kept++] = slot;
+                    }
+                }
+                bucket.size = kept;
+            }
+            this.currentTick = Math.max(this.currentTick, nowTick);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private boolean expireSlot(Table table, int slot, long now) {
+        while (true) {
+            long state = (long) STATES.getAcquire(table.states, slot);
+            if ((state & EXPIRY_MASK) > now) {
+                // Due in a later revolution of the wheel
+                return false;
+            }
+            long deleted = state & ~(STATUS_MASK << STATUS_SHIFT) | (long) DELETED << STATUS_SHIFT;
+            if (STATES.compareAndSet(table.states, slot, state, deleted)) {
+                --table.live;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Copies the live tickets into a fresh table without tombstones and
+     * rebuilds the wheel for their new slots. Lock-free readers that run
+     * into a moved slot wait for the new table to be published.
+     */
+    private Table rehash(Table table) {
+        var rehashed = new Table(table.states.length);
+        for (var bucket : this.wheel) {
+            bucket.size = 0;
+        }
+        for (int i = 0; i < table.states.length; ++i) {
+            long state;
+            do {
+                state = (long) STATES.getAcquire(table.states, i);
+            } while (!STATES.compareAndSet(
+                    table.states, i, state, state & ~(STATUS_MASK << STATUS_SHIFT) | (long) MOVED << STATUS_SHIFT));
+            int status = status(state);
+            if (status != ISSUED && status != CONSUMED) {
+                continue;
+            }
+            int slot = rehashed.indexOf(table.msb[i], table.lsb[i]);
+            while (rehashed.states[slot] != 0) {
+                slot = (slot + 1) & rehashed.mask;
+            }
+            rehashed.msb[slot] = table.msb[i];
+            rehashed.lsb[slot] = table.lsb[i];
+            rehashed.states[slot] = state & ((STATUS_MASK << STATUS_SHIFT) | EXPIRY_MASK);
+            ++rehashed.live;
+            ++rehashed.used;
+            bucketOf(state & EXPIRY_MASK).add(slot);
+        }
+        this.table = rehashed;
+        return rehashed;
+    }
+
+    private void awaitRehash(Table table) {
+        while (this.table == table) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Returns the slot holding the key in the low and the version of its
+     * state word when the key was checked in the high 32 bits,
+     * {@link #NOT_FOUND} or {@link #RETRY} if the table is being rehashed.
+     * Callers compare the version with the state they act on, as the slot
+     * may have been reused for another ticket in between.
+     */
+    private static long find(Table table, long msb, long lsb) {
+        int i = table.indexOf(msb, lsb);
+        for (int probes = 0; probes <= table.mask; ) {
+            long state = (long) STATES.getAcquire(table.states, i);
+            int status = status(state);
+            if (status == FREE) {
+                return NOT_FOUND;
+            }
+            if (status == MOVED) {
+                return RETRY;
+            }
+            if ((state & VERSION_ONE) != 0) {
+                // A writer is changing this slot's key
+                Thread.onSpinWait();
+                continue;
+            }
+            if (status != DELETED) {
+                long slotMsb = table.msb[i];
+                long slotLsb = table.lsb[i];
+                VarHandle.loadLoadFence();
+                long recheck = (long) STATES.getAcquire(table.states, i);
+                if (recheck >>> VERSION_SHIFT != state >>> VERSION_SHIFT) {
+                    continue;
+                }
+                if (slotMsb == msb && slotLsb == lsb) {
+                    return (state >>> VERSION_SHIFT) << 32 | i;
+                }
+            }
+            i = (i + 1) & table.mask;
+            ++probes;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Seconds until the next tick with tickets to expire, at least one.
+     */
+    private long retryAfterSeconds() {
+        long now = this.clock.instant().getEpochSecond();
+        for (long tick = this.currentTick + 1; tick <= this.currentTick + WHEEL_SIZE; ++tick) {
+            if (this.wheel[(int) (tick & (WHEEL_SIZE - 1))].size > 0) {
+                return Math.max(1, tick * this.tickSeconds - now);
+            }
+        }
+        return this.tickSeconds;
+    }
+
+    private static int status(long state) {
+        return (int) ((state >>> STATUS_SHIFT) & STATUS_MASK);
+    }
+
+    private Bucket bucketOf(long expiresAt) {
+        return this.wheel[(int) (Math.ceilDiv(expiresAt, this.tickSeconds) & (WHEEL_SIZE - 1))];
+    }
+
+    /**
+     * Thrown when {@code maxTickets} tickets are outstanding. Issuing may
+     * succeed again after {@link #retryAfterSeconds()}, when the next
+     * tickets expire.
+     */
+    public static final class FullException extends IllegalStateException {
+
+        private final long retryAfterSeconds;
+
+        FullException(long retryAfterSeconds) {
+            super("Too many outstanding tickets");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long retryAfterSeconds() {
+            return this.retryAfterSeconds;
+        }
+    }
+
+    private static final class Table {
+        final long[] msb;
+        final long[] lsb;
+        final long[] states;
+        final int mask;
+        /** Issued or consumed tickets. Guarded by the registry's lock. */
+        int live;
+        /** Live tickets and tombstones. Guarded by the registry's lock. */
+        int used;
+
+        Table(int capacity) {
+            this.msb = new long[capacity];
+            this.lsb = new long[capacity];
+            this.states = new long[capacity];
+            this.mask = capacity - 1;
+        }
+
+        int indexOf(long msb, long lsb) {
+            long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & this.mask;
+        }
+    }
+
+    /**
+     * Slots of the tickets expiring in one tick of the wheel (or a multiple
+     * of {@link #WHEEL_SIZE} ticks later).
+     */
+    private static final class Bucket {
+        int[] slots = new int[8];
+        int size;
+
+        void add(int slot) {
+            if (this.size == this.slots.length) {
+                this.slots = Arrays.copyOf(this.slots, this.size * 2);
+            }
+            this.slots[this.size++] = slot;
+        }
+    }
+}
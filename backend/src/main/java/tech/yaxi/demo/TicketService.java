@@ -1,31 +1,29 @@
 package tech.yaxi.demo;
 
-import javax.crypto.spec.SecretKeySpec;
-
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.JOSEObjectType;
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.crypto.MACSigner;
-import com.nimbusds.jose.proc.BadJOSEException;
-import com.nimbusds.jose.proc.SecurityContext;
-import com.nimbusds.jose.proc.SingleKeyJWSKeySelector;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
-import com.nimbusds.jwt.proc.DefaultJWTProcessor;
-import com.nimbusds.jwt.proc.JWTProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,44 +31,119 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
+import tech.yaxi.demo.InvalidResultException.Reason;
+import tech.yaxi.demo.jfr.ResultStageEvent;
+import tech.yaxi.demo.jfr.TicketIssueEvent;
 
 @Component
 public class TicketService {
 
     private static final long DEFAULT_VALIDITY_MINS = 10;
+    private static final long MAX_CLOCK_SKEW_SECS = 60;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
     private static final Logger LOGGER = LoggerFactory.getLogger(TicketService.class);
 
-    private final JWSHeader header;
-    private final JWSSigner signer;
-    private final JWTProcessor<SecurityContext> jwtProcessor;
     private final Clock clock;
     private final Supplier<UUID> idSupplier;
+    @Nullable
+    private final TicketRegistry registry;
+    /**
+     * Replaced as a whole when keys are rotated. Every operation reads it
+     * once, so in-flight calls keep working with the keys they started with.
+     */
+    private volatile KeySet keys;
+
+    /**
+     * Creates a service that accepts results for any ticket ID.
+     */
+    public TicketService(String keyId, String key) {
+        this(keyId, key, "random", Optional.empty());
+    }
 
+    /**
+     * With a {@link TicketRegistry}, only one result is accepted per issued
+     * ticket.
+     *
+     * @param ids {@code random} for random (version 4) ticket IDs, or
+     *            {@code time-ordered} for {@link TimeOrderedIds version 7}
+     *            ones
+     */
     @Autowired
-    public TicketService(@Value("${yaxi.keyId}") String keyId, @Value("${yaxi.key}") String key) {
-        this(keyId, Base64.getDecoder().decode(key), Clock.systemUTC(), UUID::randomUUID);
+    public TicketService(
+            @Value("${yaxi.keyId}") String keyId,
+            @Value("${yaxi.key}") String key,
+            @Value("${yaxi.tickets.ids:random}") String ids,
+            Optional<TicketRegistry> registry) {
+        this(keyId, Base64.getDecoder().decode(key), Clock.systemUTC(), ids, registry.orElse(null));
+    }
+
+    private TicketService(String keyId, byte[] key, Clock clock, String ids, @Nullable TicketRegistry registry) {
+        this(keyId, key, clock, idSupplier(ids, clock), registry);
     }
 
     TicketService(String keyId, byte[] key, Clock clock, Supplier<UUID> idSupplier) {
-        this.header = new JWSHeader.Builder(JWSAlgorithm.HS256)
-                .keyID(keyId)
-                .type(JOSEObjectType.JWT)
-                .build();
-        try {
-            this.signer = new MACSigner(key);
-        } catch (JOSEException e) {
-            throw new IllegalArgumentException(e);
-        }
-        this.jwtProcessor = createJwtProcessor(key);
+        this(keyId, key, clock, idSupplier, null);
+    }
+
+    TicketService(
+            String keyId, byte[] key, Clock clock, Supplier<UUID> idSupplier, @Nullable TicketRegistry registry) {
         this.clock = clock;
         this.idSupplier = idSupplier;
-        LOGGER.info("Using key '{}' for issuing tickets", keyId);
+        this.registry = registry;
+        updateKeys(keyId, Map.of(keyId, key));
+    }
+
+    static Supplier<UUID> idSupplier(String ids, Clock clock) {
+        return switch (ids) {
+            case "random" -> UUID::randomUUID;
+            case "time-ordered" -> new TimeOrderedIds(clock);
+            default -> throw new IllegalArgumentException("Unknown ticket ID type '" + ids + "'");
+        };
+    }
+
+    /**
+     * Atomically replaces the keys: {@code activeKeyId} signs new tickets,
+     * and results signed with any of {@code keys} (which must include the
+     * active key) are accepted.
+     */
+    public void updateKeys(String activeKeyId, Map<String, byte[]> keys) {
+        this.keys = new KeySet(activeKeyId, keys);
+        LOGGER.info("Using key '{}' for issuing tickets, accepting results for {} key(s)", activeKeyId, keys.size());
     }
 
     public Ticket issueTicket(String service, @Nullable Object data) {
+        var event = new TicketIssueEvent();
+        event.begin();
         var exp = ChronoUnit.MINUTES.addTo(Instant.now(this.clock), DEFAULT_VALIDITY_MINS);
         var id = idSupplier.get();
+        if (this.registry != null) {
+            // Results are accepted as long as the clock skew allows
+            this.registry.register(id, exp.getEpochSecond() + MAX_CLOCK_SKEW_SECS);
+        }
 
+        var keys = this.keys;
+        var serialized = keys.issuer().issue(service, id, exp.toEpochMilli() / 1000, data);
+        if (serialized == null) {
+            serialized = signTicket(keys, service, id, exp, data);
+        }
+        if (event.shouldCommit()) {
+            event.service = service;
+            event.ticketId = id.toString();
+            event.commit();
+        }
+        return new Ticket(id, serialized);
+    }
+
+    /**
+     * Builds and signs the ticket through nimbus. This is the reference that
+     * {@link TicketIssuer} reproduces, and the fallback for ticket data it
+     * can't serialize.
+     */
+    String signTicket(String service, UUID id, Instant exp, @Nullable Object data) {
+        return signTicket(this.keys, service, id, exp, data);
+    }
+
+    private static String signTicket(KeySet keys, String service, UUID id, Instant exp, @Nullable Object data) {
         var claimsData = new HashMap<String, Object>();
         claimsData.put("service", service);
         claimsData.put("id", id.toString());
@@ -80,60 +153,214 @@ public class TicketService {
                 .expirationTime(Date.from(exp))
                 .claim("data", claimsData)
                 .build();
-        var jwt = new SignedJWT(this.header, claims);
+        var jwt = new SignedJWT(keys.header(), claims);
         try {
-            jwt.sign(this.signer);
+            jwt.sign(keys.signer());
         } catch (JOSEException e) {
             throw new RuntimeException(e);
         }
-
-        return new Ticket(id, jwt.serialize());
+        return jwt.serialize();
     }
 
     public <I, R> TicketResult<R> verifyResults(String data, Converter<I, R> dataConverter) {
-        var claims = parseJwtAndCheckSignature(data);
+        var claims = parseJwtAndCheckSignature(data.getBytes(StandardCharsets.UTF_8));
         Map<String, Object> dataClaim;
         try {
             dataClaim = claims.getJSONObjectClaim("data");
         } catch (ParseException e) {
-            throw new InvalidResultException(e);
+            throw new InvalidResultException(Reason.CLAIMS, e);
+        }
+        if (dataClaim == null) {
+            throw new InvalidResultException(Reason.TICKET_MISSING, "Ticket ID missing");
         }
         Object ticketId = dataClaim.get("ticketId");
         if (!(ticketId instanceof String)) {
-            throw new InvalidResultException("Ticket ID missing");
+            throw new InvalidResultException(Reason.TICKET_MISSING, "Ticket ID missing");
         }
         @SuppressWarnings("unchecked")
         var resultData = (I) dataClaim.get("data");
-        return new TicketResult<>(
-                UUID.fromString((String) ticketId),
-                dataConverter.convert(resultData));
+        var id = UUID.fromString((String) ticketId);
+        var convertedData = dataConverter.convert(resultData);
+        consumeTicket(id);
+        return new TicketResult<>(id, convertedData);
     }
 
-    private JWTClaimsSet parseJwtAndCheckSignature(final String data) {
-        SignedJWT jwt;
-        try {
-            jwt = SignedJWT.parse(data);
-        } catch (ParseException e) {
-            throw new InvalidResultException(e);
+    /**
+     * Verifies a result JWT given as its raw compact serialization and
+     * streams the result data into {@code resultReader}.
+     *
+     * Unlike {@link #verifyResults(String, Converter)} this never holds the
+     * payload as a string or a map: the signature is checked over the raw
+     * bytes, and the payload is base64-decoded while it is being parsed.
+     */
+    public <R> TicketResult<R> verifyResults(byte[] data, ResultReader<R> resultReader) {
+        return readResults(checkSignature(data), resultReader);
+    }
+
+    /**
+     * Decodes the payload of a result whose signature was already checked
+     * with {@link #checkSignature(byte[])} and streams the result data into
+     * {@code resultReader}. Claims like {@code exp} are checked here.
+     */
+    public <R> TicketResult<R> readResults(SignedResult result, ResultReader<R> resultReader) {
+        return readResults(result, resultReader, id -> false);
+    }
+
+    /**
+     * Like {@link #readResults(SignedResult, ResultReader)}, but a result
+     * whose ticket ID is {@code alreadyAccepted}, e.g. one that was signed
+     * again for a ticket whose result was processed, is returned without
+     * consuming the ticket, so that the caller can acknowledge it as a
+     * duplicate.
+     */
+    public <R> TicketResult<R> readResults(
+            SignedResult result, ResultReader<R> resultReader, Predicate<UUID> alreadyAccepted) {
+        var event = new ResultStageEvent();
+        event.begin();
+        try (var parser = JSON_FACTORY.createParser(result.payload())) {
+            var ticketResult = readClaims(parser, resultReader, alreadyAccepted);
+            if (event.shouldCommit()) {
+                event.stage = ResultStageEvent.PAYLOAD;
+                event.ticketId = ticketResult.id().toString();
+                event.payloadSize = result.size();
+                event.transactions = ticketResult.data() instanceof Collection<?> c ? c.size() : 0;
+                event.commit();
+            }
+            return ticketResult;
+        } catch (IOException | IllegalArgumentException e) {
+            // Mapping errors come from the result data, the rest from its encoding
+            throw new InvalidResultException(e instanceof JsonMappingException ? Reason.DATA : Reason.MALFORMED, e);
         }
-        try {
-            // The processor is configured to verify the JWT's signature
-            this.jwtProcessor.process(jwt, null);
-        } catch (BadJOSEException | JOSEException e) {
-            throw new InvalidResultException(e);
+    }
+
+    private <R> TicketResult<R> readClaims(
+            JsonParser parser, ResultReader<R> resultReader, Predicate<UUID> alreadyAccepted) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new InvalidResultException(Reason.MALFORMED, "Payload of JWS object is not a valid JSON object");
+        }
+        String ticketId = null;
+        R resultData = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            var token = parser.nextToken();
+            switch (name) {
+                case "exp" -> checkExpiration(readNumericDate(parser, name));
+                case "nbf" -> checkNotBefore(readNumericDate(parser, name));
+                case "data" -> {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new InvalidResultException(Reason.CLAIMS, "The data claim is not a JSON object");
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        var dataName = parser.currentName();
+                        var dataToken = parser.nextToken();
+                        if (dataName.equals("ticketId") && dataToken == JsonToken.VALUE_STRING) {
+                            ticketId = parser.getText();
+                        } else if (dataName.equals("data")) {
+                            resultData = resultReader.read(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (ticketId == null) {
+            throw new InvalidResultException(Reason.TICKET_MISSING, "Ticket ID missing");
         }
+        var id = UUID.fromString(ticketId);
+        if (!alreadyAccepted.test(id)) {
+            consumeTicket(id);
+        }
+        return new TicketResult<>(id, resultData);
+    }
 
-        try {
-            return jwt.getJWTClaimsSet();
-        } catch (ParseException e) {
-            throw new InvalidResultException(e);
+    /**
+     * Accepts the result of a ticket only once, and only if we issued it.
+     * Called once the whole result has been read successfully.
+     */
+    private void consumeTicket(UUID id) {
+        if (this.registry == null) {
+            return;
+        }
+        switch (this.registry.consume(id)) {
+            case ACCEPTED -> {
+            }
+            case UNKNOWN -> throw new InvalidResultException(Reason.UNKNOWN_TICKET, "Unknown ticket ID");
+            case ALREADY_CONSUMED -> throw new InvalidResultException(Reason.TICKET_ALREADY_USED, "Ticket already used");
+        }
+    }
+
+    private static long readNumericDate(JsonParser parser, String claim) throws IOException {
+        if (!parser.currentToken().isNumeric()) {
+            throw new InvalidResultException(Reason.CLAIMS, "Invalid JWT claim " + claim);
+        }
+        return parser.getLongValue();
+    }
+
+    private void checkExpiration(long exp) {
+        if (Instant.now(this.clock).getEpochSecond() > exp + MAX_CLOCK_SKEW_SECS) {
+            throw new InvalidResultException(Reason.EXPIRED, "Expired JWT");
         }
     }
 
-    private JWTProcessor<SecurityContext> createJwtProcessor(byte[] key) {
-        var processor = new DefaultJWTProcessor<>();
-        var expectedKey = new SecretKeySpec(key, "MAC");
-        processor.setJWSKeySelector(new SingleKeyJWSKeySelector<>(JWSAlgorithm.HS256, expectedKey));
-        return processor;
+    private void checkNotBefore(long nbf) {
+        if (Instant.now(this.clock).getEpochSecond() + MAX_CLOCK_SKEW_SECS < nbf) {
+            throw new InvalidResultException(Reason.NOT_YET_VALID, "JWT before use time");
+        }
+    }
+
+    private static int indexOf(byte[] data, byte value, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Locates the parts of a result JWT's compact serialization and verifies
+     * its header and signature. This is cheap compared to decoding: the
+     * payload is neither decoded nor parsed.
+     */
+    public SignedResult checkSignature(byte[] data) {
+        var event = new ResultStageEvent();
+        event.begin();
+        int end = data.length;
+        while (end > 0 && Character.isWhitespace(data[end - 1])) {
+            --end;
+        }
+        int headerEnd = indexOf(data, (byte) '.', 0, end);
+        int payloadEnd = headerEnd < 0 ? -1 : indexOf(data, (byte) '.', headerEnd + 1, end);
+        if (payloadEnd < 0) {
+            throw new InvalidResultException(Reason.MALFORMED, "Invalid serialized JWS object: Missing part delimiters");
+        }
+        this.keys.verify(data, headerEnd, payloadEnd, end);
+        if (event.shouldCommit()) {
+            event.stage = ResultStageEvent.SIGNATURE;
+            event.payloadSize = data.length;
+            event.commit();
+        }
+        return new SignedResult(data, headerEnd, payloadEnd);
+    }
+
+    private JWTClaimsSet parseJwtAndCheckSignature(byte[] data) {
+        var jws = checkSignature(data);
+        JWTClaimsSet claims;
+        try {
+            var payload = Base64.getUrlDecoder().decode(ByteBuffer.wrap(
+                    jws.data(), jws.headerEnd() + 1, jws.payloadEnd() - jws.headerEnd() - 1));
+            claims = JWTClaimsSet.parse(new String(payload.array(), 0, payload.limit(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException | ParseException e) {
+            throw new InvalidResultException(Reason.MALFORMED, e);
+        }
+        if (claims.getExpirationTime() != null) {
+            checkExpiration(claims.getExpirationTime().getTime() / 1000);
+        }
+        if (claims.getNotBeforeTime() != null) {
+            checkNotBefore(claims.getNotBeforeTime().getTime() / 1000);
+        }
+        return claims;
     }
 }
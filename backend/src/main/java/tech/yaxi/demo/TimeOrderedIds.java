@@ -0,0 +1,51 @@
+package tech.yaxi.demo;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Supplies time-ordered UUIDs (version 7, RFC 9562) for ticket IDs.
+ *
+ * The first 48 bits are the Unix time in milliseconds, followed by a 12 bit
+ * counter (method 1 of RFC 9562, section 6.2) that orders IDs created within
+ * the same millisecond. Timestamp and counter are advanced together with a
+ * single CAS, so IDs are strictly increasing even across threads; if the
+ * counter overflows, or the clock goes backwards, the timestamp runs ahead
+ * of the clock until it catches up. The remaining 62 bits come from
+ * {@link ThreadLocalRandom}, which unlike {@link UUID#randomUUID()} doesn't
+ * share a {@link java.security.SecureRandom} between threads.
+ */
+final class TimeOrderedIds implements Supplier<UUID> {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION = 7L << COUNTER_BITS;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private final Clock clock;
+    /** Timestamp and counter of the latest ID: {@code millis << 12 | counter}. */
+    private final AtomicLong latest = new AtomicLong();
+
+    TimeOrderedIds(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID get() {
+        long next;
+        long previous;
+        do {
+            previous = this.latest.get();
+            next = Math.max(this.clock.millis() << COUNTER_BITS, previous + 1);
+        } while (!this.latest.compareAndSet(previous, next));
+
+        long millis = next >>> COUNTER_BITS;
+        long counter = next & ((1L << COUNTER_BITS) - 1);
+        long msb = (millis << 16) | VERSION | counter;
+        long lsb = VARIANT | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,133 @@
+package tech.yaxi.demo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.InvalidResultException.Reason;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Reads the list of transactions of a result.
+ *
+ * Small lists are read one element at a time on the calling thread. Once a
+ * list turns out to have more than {@code yaxi.results.parallelThreshold}
+ * elements, the remaining elements are only tokenized on the calling thread
+ * and bound to {@link Transaction}s in chunks on a fork-join pool of
+ * {@code yaxi.results.parallelism} threads. The order of the elements is
+ * preserved.
+ */
+@Component
+public class TransactionsReader implements ResultReader<List<Transaction>> {
+
+    private final ObjectReader transactionReader;
+    private final int threshold;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public TransactionsReader(
+            ObjectMapper objectMapper,
+            @Value("${yaxi.results.parallelThreshold:2000}") int threshold,
+            @Value("${yaxi.results.parallelism:0}") int parallelism,
+            @Value("${yaxi.results.parallelChunkSize:256}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.transactionReader = objectMapper.readerFor(Transaction.class);
+        this.chunkSize = chunkSize;
+        parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        if (parallelism > 1) {
+            this.threshold = threshold;
+            this.pool = new ForkJoinPool(parallelism);
+        } else {
+            this.threshold = Integer.MAX_VALUE;
+            this.pool = null;
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    @Override
+    public List<Transaction> read(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new InvalidResultException(Reason.DATA, "Result data is not a list of transactions");
+        }
+        var transactions = new ArrayList<Transaction>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (transactions.size() >= this.threshold) {
+                readParallel(parser, transactions);
+                break;
+            }
+            transactions.add(this.transactionReader.readValue(parser));
+        }
+        return transactions;
+    }
+
+    /**
+     * Reads the rest of the list, starting with the element {@code parser}
+     * is positioned on, and appends it to {@code transactions}.
+     */
+    private void readParallel(JsonParser parser, List<Transaction> transactions) throws IOException {
+        var chunks = new ArrayList<ForkJoinTask<List<Transaction>>>();
+        try {
+            var chunk = new ArrayList<TokenBuffer>(this.chunkSize);
+            do {
+                var element = new TokenBuffer(parser);
+                element.copyCurrentStructure(parser);
+                chunk.add(element);
+                if (chunk.size() == this.chunkSize) {
+                    chunks.add(this.pool.submit(convert(chunk)));
+                    chunk = new ArrayList<>(this.chunkSize);
+                }
+            } while (parser.nextToken() != JsonToken.END_ARRAY);
+            if (!chunk.isEmpty()) {
+                chunks.add(this.pool.submit(convert(chunk)));
+            }
+            for (var task : chunks) {
+                transactions.addAll(task.join());
+            }
+        } catch (RuntimeException e) {
+            // Failed chunks surface as (possibly re-wrapped) unchecked exceptions
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException ioException) {
+                    throw ioException;
+                }
+            }
+            throw e;
+        } finally {
+            chunks.forEach(task -> task.cancel(false));
+        }
+    }
+
+    private ForkJoinTask<List<Transaction>> convert(List<TokenBuffer> chunk) {
+        return ForkJoinTask.adapt(() -> {
+            var transactions = new ArrayList<Transaction>(chunk.size());
+            for (var element : chunk) {
+                try (var elementParser = element.asParserOnFirstToken()) {
+                    transactions.add(this.transactionReader.readValue(elementParser));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return transactions;
+        });
+    }
+}
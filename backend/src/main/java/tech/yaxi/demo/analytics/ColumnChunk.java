@@ -0,0 +1,71 @@
+package tech.yaxi.demo.analytics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import tech.yaxi.demo.model.Money;
+
+/**
+ * A fixed number of rows of {@link TransactionColumns}, one primitive array
+ * per column.
+ *
+ * Dates are epoch days and amounts are the {@link Money#units() units} of
+ * compact {@link Money}; amounts that aren't compact are kept in
+ * {@link #largeAmounts}. Currency and status are
+ * dictionary codes, or -1 when missing. For the optional columns, a bitmap
+ * tells whether a row has a value.
+ *
+ * Rows are written by one thread at a time and published by raising
+ * {@link #size}; readers only look at rows below the size they read.
+ */
+final class ColumnChunk {
+
+    final int[] bookingDates;
+    final int[] valueDates;
+    final long[] amounts;
+    final int[] currencies;
+    final int[] statuses;
+    final int[] purposeCodes;
+    final int[] creditors;
+    final int[] bankTransactionCodes;
+
+    final long[] hasBookingDate;
+    final long[] hasValueDate;
+    final long[] hasPurposeCode;
+    final long[] hasCreditor;
+    final long[] hasBankTransactionCode;
+    final long[] hasLargeAmount;
+    final Map<Integer, Money> largeAmounts = new ConcurrentHashMap<>();
+
+    volatile int size;
+
+    ColumnChunk(int capacity) {
+        this.bookingDates = new int[capacity];
+        this.valueDates = new int[capacity];
+        this.amounts = new long[capacity];
+        this.currencies = new int[capacity];
+        this.statuses = new int[capacity];
+        this.purposeCodes = new int[capacity];
+        this.creditors = new int[capacity];
+        this.bankTransactionCodes = new int[capacity];
+        int words = (capacity + 63) >>> 6;
+        this.hasBookingDate = new long[words];
+        this.hasValueDate = new long[words];
+        this.hasPurposeCode = new long[words];
+        this.hasCreditor = new long[words];
+        this.hasBankTransactionCode = new long[words];
+        this.hasLargeAmount = new long[words];
+    }
+
+    int capacity() {
+        return this.amounts.length;
+    }
+
+    static void set(long[] bitmap, int row) {
+        bitmap[row >>> 6] |= 1L << row;
+    }
+
+    static boolean get(long[] bitmap, int row) {
+        return (bitmap[row >>> 6] & 1L << row) != 0;
+    }
+}
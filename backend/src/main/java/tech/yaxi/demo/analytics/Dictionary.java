@@ -0,0 +1,46 @@
+package tech.yaxi.demo.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns dense int codes to the distinct values of a column.
+ *
+ * Only one thread encodes at a time (the {@link TransactionColumns} append
+ * lock guards it), while any thread may decode: a new value is stored
+ * before the size is raised, so every code below {@link #size()} can be
+ * decoded.
+ */
+final class Dictionary {
+
+    // Only used by the encoding thread
+    private final Map<String, Integer> codes = new HashMap<>();
+    private volatile String[] values = new String[16];
+    private volatile int size;
+
+    int encode(String value) {
+        var code = this.codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int size = this.size;
+        var values = this.values;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        this.values = values;
+        this.codes.put(value, size);
+        this.size = size + 1;
+        return size;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    String value(int code) {
+        return this.values[code];
+    }
+}
@@ -0,0 +1,38 @@
+package tech.yaxi.demo.analytics;
+
+/**
+ * What {@link TransactionColumns#aggregate} groups transactions by.
+ */
+public enum Dimension {
+    CURRENCY("currency"),
+    /** Month of the booking date. */
+    MONTH("month"),
+    /** Creditor name, or IBAN for creditors without one. */
+    CREDITOR("creditor"),
+    STATUS("status"),
+    PURPOSE_CODE("purposeCode"),
+    /** The first ISO 20022 bank transaction code, as domain-family-subfamily. */
+    BANK_TRANSACTION_CODE("bankTransactionCode");
+
+    private final String key;
+
+    Dimension(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Name of the dimension in requests and results.
+     */
+    public String key() {
+        return this.key;
+    }
+
+    public static Dimension of(String key) {
+        for (var dimension : values()) {
+            if (dimension.key.equals(key)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dimension '" + key + "'");
+    }
+}
@@ -0,0 +1,118 @@
+package tech.yaxi.demo.analytics;
+
+import tech.yaxi.demo.model.Money;
+
+/**
+ * Count and amount sum per packed group key, in an open-addressing table of
+ * primitive arrays with linear probing.
+ *
+ * Sums are {@link Money.Sum}s, which add the compact amounts of the
+ * {@link ColumnChunk columns} as plain longs and only fall back to a
+ * {@code BigDecimal} for large amounts or on overflow. Not thread-safe; every
+ * scan task fills its own table and the tables are merged afterwards.
+ */
+final class GroupTable {
+
+    /**
+     * Receives the groups of a table.
+     */
+    interface GroupConsumer {
+        void accept(long key, long count, Money sum);
+    }
+
+    private long[] keys;
+    private long[] counts;
+    private Money.Sum[] sums;
+    private int size;
+
+    GroupTable() {
+        this.keys = new long[64];
+        this.counts = new long[64];
+        this.sums = new Money.Sum[64];
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the slot of the group with {@code key}, adding it if needed.
+     */
+    int slot(long key) {
+        // Keys are stored plus one, so that 0 marks a free slot
+        long stored = key + 1;
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.keys[slot] != 0) {
+            if (this.keys[slot] == stored) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if ((this.size + 1) * 3L > this.keys.length * 2L) {
+            resize();
+            return slot(key);
+        }
+        this.keys[slot] = stored;
+        this.sums[slot] = new Money.Sum();
+        ++this.size;
+        return slot;
+    }
+
+    /**
+     * Adds {@code count} transactions with a total of {@code units}, see
+     * {@link Money#units()}.
+     */
+    void add(int slot, long count, long units) {
+        this.counts[slot] += count;
+        this.sums[slot].addUnits(units);
+    }
+
+    void add(int slot, long count, Money amount) {
+        this.counts[slot] += count;
+        this.sums[slot].add(amount);
+    }
+
+    void merge(GroupTable other) {
+        other.forEach((key, count, sum) -> add(slot(key), count, sum));
+    }
+
+    void forEach(GroupConsumer consumer) {
+        for (int slot = 0; slot < this.keys.length; ++slot) {
+            if (this.keys[slot] != 0) {
+                consumer.accept(this.keys[slot] - 1, this.counts[slot], this.sums[slot].result());
+            }
+        }
+    }
+
+    private void resize() {
+        var keys = this.keys;
+        var counts = this.counts;
+        var sums = this.sums;
+        this.keys = new long[keys.length * 2];
+        this.counts = new long[keys.length * 2];
+        this.sums = new Money.Sum[keys.length * 2];
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != 0) {
+                int slot = hash(keys[i] - 1) & mask;
+                while (this.keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = keys[i];
+                this.counts[slot] = counts[i];
+                this.sums[slot] = sums[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        // Finalizer of MurmurHash3
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,496 @@
+package tech.yaxi.demo.analytics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Money;
+import tech.yaxi.demo.model.Transaction;
+import tech.yaxi.demo.store.TransactionStore;
+
+/**
+ * Keeps the fields of transactions that are aggregated over in columns, so
+ * that totals over millions of them are a scan over primitive arrays rather
+ * than a walk over records.
+ *
+ * Rows are appended in {@link ColumnChunk chunks} of a fixed size: booking
+ * and value date as epoch days, the amount as a scaled long, currency,
+ * status, purpose code, creditor and ISO bank transaction code as
+ * {@link Dictionary dictionary} codes, and bitmaps for the optional ones.
+ * Fed by the {@code analytics} result sink; with the
+ * {@link TransactionStore}, the stored transactions are loaded on startup.
+ *
+ * {@link #aggregate} counts and sums the rows by any combination of
+ * {@link Dimension dimensions}. The codes of a row's dimensions are packed
+ * into a long key, the chunks are scanned in parallel on
+ * {@code yaxi.analytics.parallelism} threads into one {@link GroupTable}
+ * each, and the tables are merged. Amounts are always summed per currency.
+ * Appends don't block scans; a scan sees the rows that were there when it
+ * started.
+ */
+@Component
+@ConditionalOnProperty(name = "yaxi.analytics.enabled", havingValue = "true")
+public class TransactionColumns {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionColumns.class);
+    private static final Transaction.Status[] STATUSES = Transaction.Status.values();
+    private static final int LOAD_BATCH_SIZE = 1024;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final int chunkSize;
+    @Nullable
+    private final ForkJoinPool pool;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final List<ColumnChunk> chunks = new CopyOnWriteArrayList<>();
+    private final Dictionary currencies = new Dictionary();
+    private final Dictionary purposeCodes = new Dictionary();
+    private final Dictionary creditors = new Dictionary();
+    private final Dictionary bankTransactionCodes = new Dictionary();
+    // Range of the booking months, in months since year 0
+    private volatile int minMonth = Integer.MAX_VALUE;
+    private volatile int maxMonth = Integer.MIN_VALUE;
+
+    @Autowired
+    public TransactionColumns(
+            @Value("${yaxi.analytics.chunkSize:65536}") int chunkSize,
+            @Value("${yaxi.analytics.parallelism:0}") int parallelism,
+            Optional<TransactionStore> store) {
+        this(chunkSize, parallelism);
+        store.ifPresent(this::load);
+    }
+
+    TransactionColumns(int chunkSize, int parallelism) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    @PreDestroy
+    void stop() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    /**
+     * Counted transactions and amount totals per currency of a group.
+     * {@code key} maps the grouped by dimensions to their values, which are
+     * {@code null} for transactions without one.
+     */
+    public record Group(Map<String, Object> key, long count, Map<String, BigDecimal> totals) {
+    }
+
+    /**
+     * The largest groups of an aggregation, along with the number of
+     * transactions that were aggregated and of groups found.
+     */
+    public record Aggregation(long transactions, int groupCount, List<Group> groups) {
+    }
+
+    public void append(List<TicketResult<List<Transaction>>> results) {
+        this.appendLock.lock();
+        try {
+            for (var result : results) {
+                if (result.data() != null) {
+                    result.data().forEach(this::add);
+                }
+            }
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    private void appendAll(List<Transaction> transactions) {
+        this.appendLock.lock();
+        try {
+            transactions.forEach(this::add);
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (var chunk : this.chunks) {
+            size += chunk.size;
+        }
+        return size;
+    }
+
+    /**
+     * Counts and sums the transactions booked between {@code from} and
+     * {@code to} (both inclusive, either optional) by {@code groupBy}, and
+     * returns the {@code limit} largest groups.
+     *
+     * @throws IllegalArgumentException if the dimensions have too many
+     *                                  distinct values between them
+     */
+    public Aggregation aggregate(
+            List<Dimension> groupBy, @Nullable LocalDate from, @Nullable LocalDate to, int limit) {
+        // Sizes first: the dictionaries and months read afterwards cover
+        // every row below them
+        var chunks = this.chunks.toArray(ColumnChunk[]::new);
+        var sizes = new int[chunks.length];
+        for (int i = 0; i < chunks.length; ++i) {
+            sizes[i] = chunks[i].size;
+        }
+        var layout = new KeyLayout(groupBy);
+        var filter = new DateFilter(from, to);
+
+        var table = new GroupTable();
+        if (this.pool != null && chunks.length > 1) {
+            var tasks = new ArrayList<ForkJoinTask<GroupTable>>(chunks.length);
+            for (int i = 0; i < chunks.length; ++i) {
+                var chunk = chunks[i];
+                int size = sizes[i];
+                tasks.add(this.pool.submit(() -> scan(chunk, size, layout, filter)));
+            }
+            for (var task : tasks) {
+                table.merge(task.join());
+            }
+        } else {
+            for (int i = 0; i < chunks.length; ++i) {
+                table.merge(scan(chunks[i], sizes[i], layout, filter));
+            }
+        }
+        return layout.toAggregation(table, limit);
+    }
+
+    private void load(TransactionStore store) {
+        long start = System.nanoTime();
+        var batch = new ArrayList<Transaction>(LOAD_BATCH_SIZE);
+        store.forEach(transaction -> {
+            batch.add(transaction.toTransaction());
+            if (batch.size() == LOAD_BATCH_SIZE) {
+                appendAll(batch);
+                batch.clear();
+            }
+        });
+        appendAll(batch);
+        LOGGER.info("Loaded {} stored transactions in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void add(Transaction transaction) {
+        var chunk = this.chunks.isEmpty() ? null : this.chunks.getLast();
+        if (chunk == null || chunk.size == chunk.capacity()) {
+            chunk = new ColumnChunk(this.chunkSize);
+            this.chunks.add(chunk);
+        }
+        int row = chunk.size;
+
+        long bookingDate = epochDay(transaction.bookingDate());
+        if (bookingDate != NO_DATE) {
+            int day = (int) bookingDate;
+            chunk.bookingDates[row] = day;
+            ColumnChunk.set(chunk.hasBookingDate, row);
+            int month = month(day);
+            if (month < this.minMonth) {
+                this.minMonth = month;
+            }
+            if (month > this.maxMonth) {
+                this.maxMonth = month;
+            }
+        }
+        long valueDate = epochDay(transaction.valueDate());
+        if (valueDate != NO_DATE) {
+            chunk.valueDates[row] = (int) valueDate;
+            ColumnChunk.set(chunk.hasValueDate, row);
+        }
+
+        var amount = transaction.amount();
+        chunk.currencies[row] = amount == null ? -1 : this.currencies.encode(amount.currency());
+        var money = amount == null ? Money.ZERO : Money.of(amount.amount());
+        if (money.isCompact()) {
+            chunk.amounts[row] = money.units();
+        } else {
+            chunk.largeAmounts.put(row, money);
+            ColumnChunk.set(chunk.hasLargeAmount, row);
+        }
+        chunk.statuses[row] = transaction.status() == null ? -1 : transaction.status().ordinal();
+
+        encode(transaction.purposeCode(), this.purposeCodes, chunk.purposeCodes, chunk.hasPurposeCode, row);
+        encode(creditor(transaction), this.creditors, chunk.creditors, chunk.hasCreditor, row);
+        encode(bankTransactionCode(transaction), this.bankTransactionCodes,
+                chunk.bankTransactionCodes, chunk.hasBankTransactionCode, row);
+
+        chunk.size = row + 1;
+    }
+
+    private static void encode(Optional<String> value, Dictionary dictionary, int[] column, long[] bitmap, int row) {
+        if (value.isPresent()) {
+            column[row] = dictionary.encode(value.get());
+            ColumnChunk.set(bitmap, row);
+        }
+    }
+
+    private static GroupTable scan(ColumnChunk chunk, int size, KeyLayout layout, DateFilter filter) {
+        var table = new GroupTable();
+        var keys = layout.keys(chunk, size);
+        for (int row = 0; row < size; ++row) {
+            if (filter.active && (!ColumnChunk.get(chunk.hasBookingDate, row)
+                    || chunk.bookingDates[row] < filter.from || chunk.bookingDates[row] > filter.to)) {
+                continue;
+            }
+            int slot = table.slot(keys[row]);
+            if (ColumnChunk.get(chunk.hasLargeAmount, row)) {
+                table.add(slot, 1, chunk.largeAmounts.get(row));
+            } else {
+                table.add(slot, 1, chunk.amounts[row]);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the epoch day of {@code date}, or {@link #NO_DATE} without one
+     * or if it's out of the range of an int.
+     */
+    private static long epochDay(Optional<LocalDate> date) {
+        if (date.isEmpty()) {
+            return NO_DATE;
+        }
+        long day = date.get().toEpochDay();
+        return day == (int) day ? day : NO_DATE;
+    }
+
+    /**
+     * Returns the month of an epoch day, in months since year 0, without
+     * going through {@link LocalDate} (days_from_civil by Howard Hinnant,
+     * reversed).
+     */
+    static int month(int epochDay) {
+        long days = epochDay + 719_468L;
+        long era = Math.floorDiv(days, 146_097);
+        long dayOfEra = days - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        // Months counted from March
+        long month = (5 * dayOfYear + 2) / 153;
+        long year = yearOfEra + era * 400 + (month >= 10 ? 1 : 0);
+        return (int) (year * 12 + (month < 10 ? month + 2 : month - 10));
+    }
+
+    private static Optional<String> creditor(Transaction transaction) {
+        return transaction.creditor().flatMap(party -> party.name().or(party::iban));
+    }
+
+    private static Optional<String> bankTransactionCode(Transaction transaction) {
+        for (var code : transaction.bankTransactionCodes()) {
+            if (code instanceof Transaction.IsoBankTransactionCode iso) {
+                return Optional.of(iso.domain() + "-" + iso.family() + "-" + iso.subFamily());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static int bits(long values) {
+        return 64 - Long.numberOfLeadingZeros(values - 1);
+    }
+
+    /**
+     * Booking date range of an aggregation, in epoch days.
+     */
+    private static final class DateFilter {
+
+        final boolean active;
+        final long from;
+        final long to;
+
+        DateFilter(@Nullable LocalDate from, @Nullable LocalDate to) {
+            this.active = from != null || to != null;
+            this.from = from == null ? Long.MIN_VALUE : from.toEpochDay();
+            this.to = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        }
+    }
+
+    /**
+     * Packs the dimension values of a row into a long key, each as its code
+     * plus one (0 for none) in as many bits as its codes need, and unpacks
+     * them again.
+     */
+    private final class KeyLayout {
+
+        private final Dimension[] dimensions;
+        private final int requested;
+        private final int[] shifts;
+        private final long[] masks;
+        private final int minMonth;
+
+        KeyLayout(List<Dimension> groupBy) {
+            var dimensions = new ArrayList<Dimension>();
+            groupBy.stream().distinct().forEach(dimensions::add);
+            this.requested = dimensions.size();
+            if (!dimensions.contains(Dimension.CURRENCY)) {
+                dimensions.add(Dimension.CURRENCY);
+            }
+            this.dimensions = dimensions.toArray(Dimension[]::new);
+            this.shifts = new int[this.dimensions.length];
+            this.masks = new long[this.dimensions.length];
+            this.minMonth = TransactionColumns.this.minMonth;
+            int shift = 0;
+            for (int i = 0; i < this.dimensions.length; ++i) {
+                int bits = bits(values(this.dimensions[i]));
+                this.shifts[i] = shift;
+                this.masks[i] = (1L << bits) - 1;
+                shift += bits;
+            }
+            if (shift > 63) {
+                throw new IllegalArgumentException(
+                        "Too many distinct values to group by " + groupBy.stream().map(Dimension::key).toList());
+            }
+        }
+
+        /** Number of codes of a dimension, including 0 for none. */
+        private long values(Dimension dimension) {
+            var columns = TransactionColumns.this;
+            return switch (dimension) {
+                case CURRENCY -> columns.currencies.size() + 1L;
+                case MONTH -> this.minMonth > columns.maxMonth ? 1 : (long) columns.maxMonth - this.minMonth + 2;
+                case CREDITOR -> columns.creditors.size() + 1L;
+                case STATUS -> STATUSES.length + 1L;
+                case PURPOSE_CODE -> columns.purposeCodes.size() + 1L;
+                case BANK_TRANSACTION_CODE -> columns.bankTransactionCodes.size() + 1L;
+            };
+        }
+
+        /**
+         * Returns the keys of the first {@code size} rows of {@code chunk},
+         * built one column at a time.
+         */
+        long[] keys(ColumnChunk chunk, int size) {
+            var keys = new long[size];
+            for (int i = 0; i < this.dimensions.length; ++i) {
+                int shift = this.shifts[i];
+                switch (this.dimensions[i]) {
+                    case CURRENCY -> addCodes(keys, chunk.currencies, null, shift);
+                    case MONTH -> {
+                        for (int row = 0; row < size; ++row) {
+                            if (ColumnChunk.get(chunk.hasBookingDate, row)) {
+                                keys[row] |= (long) (month(chunk.bookingDates[row]) - this.minMonth + 1) << shift;
+                            }
+                        }
+                    }
+                    case CREDITOR -> addCodes(keys, chunk.creditors, chunk.hasCreditor, shift);
+                    case STATUS -> addCodes(keys, chunk.statuses, null, shift);
+                    case PURPOSE_CODE -> addCodes(keys, chunk.purposeCodes, chunk.hasPurposeCode, shift);
+                    case BANK_TRANSACTION_CODE ->
+                            addCodes(keys, chunk.bankTransactionCodes, chunk.hasBankTransactionCode, shift);
+                }
+            }
+            return keys;
+        }
+
+        private static void addCodes(long[] keys, int[] codes, @Nullable long[] present, int shift) {
+            for (int row = 0; row < keys.length; ++row) {
+                if (present == null || ColumnChunk.get(present, row)) {
+                    keys[row] |= (long) (codes[row] + 1) << shift;
+                }
+            }
+        }
+
+        @Nullable
+        private Object value(int dimension, long key) {
+            int code = (int) (key >>> this.shifts[dimension] & this.masks[dimension]) - 1;
+            if (code < 0) {
+                return null;
+            }
+            var columns = TransactionColumns.this;
+            return switch (this.dimensions[dimension]) {
+                case CURRENCY -> columns.currencies.value(code);
+                case MONTH -> YearMonth.of(0, 1).plusMonths(this.minMonth + code).toString();
+                case CREDITOR -> columns.creditors.value(code);
+                case STATUS -> STATUSES[code];
+                case PURPOSE_CODE -> columns.purposeCodes.value(code);
+                case BANK_TRANSACTION_CODE -> columns.bankTransactionCodes.value(code);
+            };
+        }
+
+        Aggregation toAggregation(GroupTable table, int limit) {
+            int currency = Arrays.asList(this.dimensions).indexOf(Dimension.CURRENCY);
+            var groups = new HashMap<List<Object>, GroupBuilder>();
+            var transactions = new long[1];
+            table.forEach((key, count, sum) -> {
+                // Arrays.asList, as the values may be null
+                var values = new Object[this.requested];
+                for (int i = 0; i < this.requested; ++i) {
+                    values[i] = value(i, key);
+                }
+                var group = groups.computeIfAbsent(Arrays.asList(values), v -> new GroupBuilder(key));
+                group.count += count;
+                group.order = Math.min(group.order, key);
+                var currencyCode = (String) value(currency, key);
+                if (currencyCode != null) {
+                    group.totals.merge(currencyCode, sum, Money::add);
+                }
+                transactions[0] += count;
+            });
+            var top = groups.entrySet().stream()
+                    .sorted(Comparator.comparing(Map.Entry::getValue))
+                    .limit(limit)
+                    .map(entry -> entry.getValue().build(this.dimensions, entry.getKey()))
+                    .toList();
+            return new Aggregation(transactions[0], groups.size(), top);
+        }
+    }
+
+    /**
+     * Ordered by count, largest first, and then by packed key, so that the
+     * order is stable.
+     */
+    private static final class GroupBuilder implements Comparable<GroupBuilder> {
+
+        long count;
+        long order;
+        final Map<String, Money> totals = new TreeMap<>();
+
+        GroupBuilder(long key) {
+            this.order = key;
+        }
+
+        @Override
+        public int compareTo(GroupBuilder other) {
+            int byCount = Long.compare(other.count, this.count);
+            return byCount != 0 ? byCount : Long.compare(this.order, other.order);
+        }
+
+        Group build(Dimension[] dimensions, List<Object> values) {
+            var key = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < values.size(); ++i) {
+                key.put(dimensions[i].key(), values.get(i));
+            }
+            var totals = new LinkedHashMap<String, BigDecimal>();
+            this.totals.forEach((currency, total) -> totals.put(currency, plain(total.toBigDecimal())));
+            return new Group(key, this.count, totals);
+        }
+
+        private static BigDecimal plain(BigDecimal amount) {
+            var stripped = amount.stripTrailingZeros();
+            return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package tech.yaxi.demo.jfr;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes the events of this package in a JFR recording into latency
+ * percentiles per stage.
+ *
+ * The events are cheap enough to leave compiled in: unless a recording
+ * enables them, creating and committing one does nothing. Record with
+ * {@code -XX:StartFlightRecording} (or {@code jcmd <pid> JFR.start}), then
+ * run this class with the recording as its argument. Stalls found here can
+ * be lined up with GC and safepoint events in the same recording, e.g. in
+ * JDK Mission Control.
+ */
+public final class RecordingSummary {
+
+    private RecordingSummary() {
+    }
+
+    public record Stage(int count, Duration p50, Duration p90, Duration p99, Duration max) {
+
+        static Stage of(long[] nanos) {
+            Arrays.sort(nanos);
+            return new Stage(nanos.length,
+                    percentile(nanos, 50), percentile(nanos, 90), percentile(nanos, 99),
+                    Duration.ofNanos(nanos[nanos.length - 1]));
+        }
+
+        private static Duration percentile(long[] sorted, int percent) {
+            int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+            return Duration.ofNanos(sorted[Math.max(0, rank - 1)]);
+        }
+    }
+
+    /**
+     * Reads the recording at {@code path} and returns the latency of each
+     * stage, e.g. {@code result/signature}, {@code webhook/processed} or
+     * {@code sink/console}, in name order.
+     */
+    public static Map<String, Stage> summarize(Path path) throws IOException {
+        var durations = new TreeMap<String, LongList>();
+        try (var recording = new RecordingFile(path)) {
+            while (recording.hasMoreEvents()) {
+                var event = recording.readEvent();
+                var stage = stageOf(event);
+                if (stage != null) {
+                    durations.computeIfAbsent(stage, k -> new LongList()).add(event.getDuration().toNanos());
+                }
+            }
+        }
+        var stages = new TreeMap<String, Stage>();
+        durations.forEach((stage, nanos) -> stages.put(stage, Stage.of(nanos.toArray())));
+        return stages;
+    }
+
+    private static String stageOf(RecordedEvent event) {
+        return switch (event.getEventType().getName()) {
+            case "tech.yaxi.demo.ResultStage" -> "result/" + event.getString("stage");
+            case "tech.yaxi.demo.Webhook" -> "webhook/" + event.getString("outcome");
+            case "tech.yaxi.demo.SinkWrite" -> "sink/" + event.getString("sink");
+            case "tech.yaxi.demo.TicketIssue" -> "ticket/" + event.getString("service");
+            default -> null;
+        };
+    }
+
+    static void print(Map<String, Stage> stages, PrintStream out) {
+        out.printf("%-32s %8s %12s %12s %12s %12s%n", "Stage", "Count", "p50 (us)", "p90 (us)", "p99 (us)", "max (us)");
+        stages.forEach((name, stage) -> out.printf("%-32s %8d %12.1f %12.1f %12.1f %12.1f%n",
+                name, stage.count(), micros(stage.p50()), micros(stage.p90()), micros(stage.p99()), micros(stage.max())));
+    }
+
+    private static double micros(Duration duration) {
+        return duration.toNanos() / 1000.0;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: RecordingSummary <recording.jfr>");
+            System.exit(2);
+        }
+        print(summarize(Path.of(args[0])), System.out);
+    }
+
+    private static final class LongList {
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+}
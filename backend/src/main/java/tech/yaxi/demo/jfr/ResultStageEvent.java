@@ -0,0 +1,39 @@
+package tech.yaxi.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One stage of processing a result: {@code signature}, {@code payload}
+ * (decoding the payload and checking its claims, including conversion) or
+ * {@code conversion} (reading the transactions).
+ */
+@Name("tech.yaxi.demo.ResultStage")
+@Label("Result Stage")
+@Description("A stage of processing a result delivered to the webhook")
+@Category({"Routex Demo", "Results"})
+@StackTrace(false)
+public class ResultStageEvent extends Event {
+
+    public static final String SIGNATURE = "signature";
+    public static final String PAYLOAD = "payload";
+    public static final String CONVERSION = "conversion";
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Ticket ID")
+    public String ticketId;
+
+    @Label("Payload Size")
+    @DataAmount
+    public int payloadSize;
+
+    @Label("Transactions")
+    public int transactions;
+}
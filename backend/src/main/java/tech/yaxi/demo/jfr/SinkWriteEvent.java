@@ -0,0 +1,28 @@
+package tech.yaxi.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A batch of results written to a result sink.
+ */
+@Name("tech.yaxi.demo.SinkWrite")
+@Label("Sink Write")
+@Description("A batch of results written to a result sink")
+@Category({"Routex Demo", "Results"})
+@StackTrace(false)
+public class SinkWriteEvent extends Event {
+
+    @Label("Sink")
+    public String sink;
+
+    @Label("Results")
+    public int results;
+
+    @Label("Transactions")
+    public int transactions;
+}
@@ -0,0 +1,22 @@
+package tech.yaxi.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tech.yaxi.demo.TicketIssue")
+@Label("Ticket Issue")
+@Description("A ticket issued for a routex service")
+@Category({"Routex Demo", "Tickets"})
+@StackTrace(false)
+public class TicketIssueEvent extends Event {
+
+    @Label("Service")
+    public String service;
+
+    @Label("Ticket ID")
+    public String ticketId;
+}
@@ -0,0 +1,36 @@
+package tech.yaxi.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A request to the webhook, from receiving the body to the response. The
+ * ticket ID and transaction count are only known if the result was
+ * processed right away.
+ */
+@Name("tech.yaxi.demo.Webhook")
+@Label("Webhook")
+@Description("A result delivered to the webhook")
+@Category({"Routex Demo", "Results"})
+@StackTrace(false)
+public class WebhookEvent extends Event {
+
+    @Label("Outcome")
+    @Description("processed, queued, duplicate, busy or rejected")
+    public String outcome;
+
+    @Label("Ticket ID")
+    public String ticketId;
+
+    @Label("Payload Size")
+    @DataAmount
+    public int payloadSize;
+
+    @Label("Transactions")
+    public int transactions;
+}
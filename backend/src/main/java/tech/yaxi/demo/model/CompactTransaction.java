@@ -0,0 +1,248 @@
+package tech.yaxi.demo.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+import tech.yaxi.demo.model.Transaction.BankTransactionCode;
+import tech.yaxi.demo.model.Transaction.BatchData;
+import tech.yaxi.demo.model.Transaction.ExchangeRate;
+import tech.yaxi.demo.model.Transaction.Fee;
+import tech.yaxi.demo.model.Transaction.IsoBankTransactionCode;
+import tech.yaxi.demo.model.Transaction.Party;
+
+/**
+ * Memory-efficient form of a {@link Transaction} for keeping many of them
+ * around.
+ *
+ * Instead of one {@link Optional} or list per field, a bitmask records which
+ * fields are present and only their values are stored, packed into a single
+ * array in field order. Low-cardinality values (currencies, BICs, purpose
+ * codes, dates and bank transaction codes) are interned, so bookings share
+ * them, and the status is kept in the bitmask. {@link #toTransaction()}
+ * restores an equal {@link Transaction}.
+ */
+public final class CompactTransaction {
+
+    private static final int ENTRY_REFERENCE = 0;
+    private static final int BATCH = 1;
+    private static final int BOOKING_DATE = 2;
+    private static final int VALUE_DATE = 3;
+    private static final int TRANSACTION_DATE = 4;
+    private static final int ACCOUNT_SERVICER_REFERENCE = 5;
+    private static final int PAYMENT_ID = 6;
+    private static final int TRANSACTION_ID = 7;
+    private static final int END_TO_END_ID = 8;
+    private static final int MANDATE_ID = 9;
+    private static final int CREDITOR_ID = 10;
+    private static final int AMOUNT = 11;
+    private static final int REVERSAL = 12;
+    private static final int ORIGINAL_AMOUNT = 13;
+    private static final int EXCHANGES = 14;
+    private static final int FEES = 15;
+    private static final int CREDITOR = 16;
+    private static final int DEBTOR = 17;
+    private static final int REMITTANCE_INFORMATION = 18;
+    private static final int PURPOSE_CODE = 19;
+    private static final int BANK_TRANSACTION_CODES = 20;
+    private static final int ADDITIONAL_INFORMATION = 21;
+    private static final int STATUS_SHIFT = 24;
+    private static final Transaction.Status[] STATUSES = Transaction.Status.values();
+
+    private static final Interner<String> CURRENCIES = new Interner<>(1024);
+    private static final Interner<String> BICS = new Interner<>(16 * 1024);
+    private static final Interner<String> PURPOSE_CODES = new Interner<>(1024);
+    private static final Interner<LocalDate> DATES = new Interner<>(16 * 1024);
+    private static final Interner<BankTransactionCode> CODES = new Interner<>(4 * 1024);
+
+    static {
+        // The most common SEPA codes are shared even once the dictionary is full
+        for (var code : List.of(
+                new IsoBankTransactionCode("PMNT", "RCDT", "ESCT"),
+                new IsoBankTransactionCode("PMNT", "ICDT", "ESCT"),
+                new IsoBankTransactionCode("PMNT", "RDDT", "ESDD"),
+                new IsoBankTransactionCode("PMNT", "IDDT", "ESDD"),
+                new IsoBankTransactionCode("PMNT", "ICDT", "STDO"),
+                new IsoBankTransactionCode("PMNT", "CCRD", "POSD"),
+                new IsoBankTransactionCode("PMNT", "CCRD", "CWDL"),
+                new IsoBankTransactionCode("PMNT", "MCRD", "POSP"))) {
+            CODES.intern(code);
+        }
+    }
+
+    private final int flags;
+    private final Object[] values;
+
+    private CompactTransaction(int flags, Object[] values) {
+        this.flags = flags;
+        this.values = values;
+    }
+
+    /**
+     * Converts a transaction. Its {@link Optional} components must not be
+     * {@code null}, which holds for all deserialized transactions.
+     */
+    public static CompactTransaction of(Transaction transaction) {
+        var packer = new Packer();
+        packer.add(ENTRY_REFERENCE, transaction.entryReference().orElse(null));
+        packer.add(BATCH, transaction.batch().orElse(null));
+        packer.add(BOOKING_DATE, DATES.intern(transaction.bookingDate().orElse(null)));
+        packer.add(VALUE_DATE, DATES.intern(transaction.valueDate().orElse(null)));
+        packer.add(TRANSACTION_DATE, DATES.intern(transaction.transactionDate().orElse(null)));
+        packer.add(ACCOUNT_SERVICER_REFERENCE, transaction.accountServicerReference().orElse(null));
+        packer.add(PAYMENT_ID, transaction.paymentId().orElse(null));
+        packer.add(TRANSACTION_ID, transaction.transactionId().orElse(null));
+        packer.add(END_TO_END_ID, transaction.endToEndId().orElse(null));
+        packer.add(MANDATE_ID, transaction.mandateId().orElse(null));
+        packer.add(CREDITOR_ID, transaction.creditorId().orElse(null));
+        packer.addAmount(AMOUNT, transaction.amount());
+        packer.add(REVERSAL, transaction.reversal().orElse(null));
+        packer.addAmount(ORIGINAL_AMOUNT, transaction.originalAmount().orElse(null));
+        packer.addList(EXCHANGES, transaction.exchanges(), ExchangeRate[]::new);
+        packer.addList(FEES, transaction.fees(), Fee[]::new);
+        packer.add(CREDITOR, transaction.creditor().map(CompactTransaction::packParty).orElse(null));
+        packer.add(DEBTOR, transaction.debtor().map(CompactTransaction::packParty).orElse(null));
+        packer.addList(REMITTANCE_INFORMATION, transaction.remittanceInformation(), String[]::new);
+        packer.add(PURPOSE_CODE, PURPOSE_CODES.intern(transaction.purposeCode().orElse(null)));
+        var codes = transaction.bankTransactionCodes();
+        if (codes != null && !codes.isEmpty()) {
+            var interned = new BankTransactionCode[codes.size()];
+            for (int i = 0; i < interned.length; ++i) {
+                interned[i] = CODES.intern(codes.get(i));
+            }
+            packer.add(BANK_TRANSACTION_CODES, interned);
+        } else {
+            packer.addList(BANK_TRANSACTION_CODES, codes, BankTransactionCode[]::new);
+        }
+        packer.add(ADDITIONAL_INFORMATION, transaction.additionalInformation().orElse(null));
+
+        var status = transaction.status();
+        int flags = packer.flags | (status == null ? 0 : status.ordinal() + 1) << STATUS_SHIFT;
+        return new CompactTransaction(flags, Arrays.copyOf(packer.values, packer.size));
+    }
+
+    public Transaction toTransaction() {
+        var unpacker = new Unpacker(this.flags, this.values);
+        return new Transaction(
+                Optional.ofNullable(unpacker.<String>get(ENTRY_REFERENCE)),
+                Optional.ofNullable(unpacker.<BatchData>get(BATCH)),
+                Optional.ofNullable(unpacker.<LocalDate>get(BOOKING_DATE)),
+                Optional.ofNullable(unpacker.<LocalDate>get(VALUE_DATE)),
+                Optional.ofNullable(unpacker.<LocalDate>get(TRANSACTION_DATE)),
+                status(),
+                Optional.ofNullable(unpacker.<String>get(ACCOUNT_SERVICER_REFERENCE)),
+                Optional.ofNullable(unpacker.<String>get(PAYMENT_ID)),
+                Optional.ofNullable(unpacker.<String>get(TRANSACTION_ID)),
+                Optional.ofNullable(unpacker.<String>get(END_TO_END_ID)),
+                Optional.ofNullable(unpacker.<String>get(MANDATE_ID)),
+                Optional.ofNullable(unpacker.<String>get(CREDITOR_ID)),
+                unpacker.getAmount(AMOUNT),
+                Optional.ofNullable(unpacker.<Boolean>get(REVERSAL)),
+                Optional.ofNullable(unpacker.getAmount(ORIGINAL_AMOUNT)),
+                unpacker.<ExchangeRate>getList(EXCHANGES),
+                unpacker.<Fee>getList(FEES),
+                Optional.ofNullable(unpackParty(unpacker.get(CREDITOR))),
+                Optional.ofNullable(unpackParty(unpacker.get(DEBTOR))),
+                unpacker.<String>getList(REMITTANCE_INFORMATION),
+                Optional.ofNullable(unpacker.<String>get(PURPOSE_CODE)),
+                unpacker.<BankTransactionCode>getList(BANK_TRANSACTION_CODES),
+                Optional.ofNullable(unpacker.<String>get(ADDITIONAL_INFORMATION)));
+    }
+
+    public Transaction.Status status() {
+        int status = this.flags >>> STATUS_SHIFT;
+        return status == 0 ? null : STATUSES[status - 1];
+    }
+
+    private static String[] packParty(Party party) {
+        return new String[] {
+            party.name().orElse(null),
+            party.iban().orElse(null),
+            BICS.intern(party.bic().orElse(null)),
+            party.ultimate().orElse(null),
+        };
+    }
+
+    private static Party unpackParty(String[] party) {
+        if (party == null) {
+            return null;
+        }
+        return new Party(
+                Optional.ofNullable(party[0]),
+                Optional.ofNullable(party[1]),
+                Optional.ofNullable(party[2]),
+                Optional.ofNullable(party[3]));
+    }
+
+    /**
+     * Collects present values in field order. Amounts take two slots
+     * (currency and value), lists are stored as arrays and only if they are
+     * not empty.
+     */
+    private static final class Packer {
+        final Object[] values = new Object[ADDITIONAL_INFORMATION + 3];
+        int flags;
+        int size;
+
+        void add(int field, Object value) {
+            if (value != null) {
+                this.flags |= 1 << field;
+                this.values[this.size++] = value;
+            }
+        }
+
+        void addAmount(int field, Amount amount) {
+            if (amount != null) {
+                this.flags |= 1 << field;
+                this.values[this.size++] = CURRENCIES.intern(amount.currency());
+                this.values[this.size++] = amount.amount();
+            }
+        }
+
+        <T> void addList(int field, List<T> list, IntFunction<T[]> arrayFactory) {
+            if (list == null) {
+                // Keep null lists distinguishable from empty ones
+                this.flags |= 1 << field;
+                this.values[this.size++] = null;
+            } else if (!list.isEmpty()) {
+                add(field, list.toArray(arrayFactory));
+            }
+        }
+    }
+
+    private static final class Unpacker {
+        final int flags;
+        final Object[] values;
+        int index;
+
+        Unpacker(int flags, Object[] values) {
+            this.flags = flags;
+            this.values = values;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T get(int field) {
+            return (this.flags & (1 << field)) != 0 ? (T) this.values[this.index++] : null;
+        }
+
+        Amount getAmount(int field) {
+            if ((this.flags & (1 << field)) == 0) {
+                return null;
+            }
+            var currency = (String) this.values[this.index++];
+            return new Amount(currency, (BigDecimal) this.values[this.index++]);
+        }
+
+        <T> List<T> getList(int field) {
+            if ((this.flags & (1 << field)) == 0) {
+                return List.of();
+            }
+            T[] array = get(field);
+            return array == null ? null : Collections.unmodifiableList(Arrays.asList(array));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package tech.yaxi.demo.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded dictionary that maps equal immutable values to one shared
+ * instance. Once full, new values are returned as they are instead of being
+ * added, so a stream of unique values can't grow it without limit.
+ */
+final class Interner<T> {
+
+    private final ConcurrentHashMap<T, T> values = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    Interner(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    T intern(T value) {
+        if (value == null) {
+            return null;
+        }
+        var interned = this.values.get(value);
+        if (interned != null) {
+            return interned;
+        }
+        if (this.values.size() >= this.maxSize) {
+            return value;
+        }
+        interned = this.values.putIfAbsent(value, value);
+        return interned != null ? interned : value;
+    }
+
+    int size() {
+        return this.values.size();
+    }
+}
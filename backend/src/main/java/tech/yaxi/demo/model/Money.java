@@ -0,0 +1,233 @@
+package tech.yaxi.demo.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Decimal amount of money that is backed by a {@code long} whenever
+ * possible.
+ *
+ * Values with at most {@value #MAX_SCALE} decimals whose magnitude fits into
+ * a {@code long} of ten-thousandths (about 9.2 * 10^14) are stored as such,
+ * so adding and comparing them is plain {@code long} math. Anything else
+ * falls back to a {@link BigDecimal}. The scale of the parsed value is kept,
+ * so {@link #toBigDecimal()} returns exactly what was parsed from plain
+ * decimal notation. Equality is numeric, i.e. {@code 1.5} equals
+ * {@code 1.50}.
+ *
+ * The analytics columns store transaction amounts as units and add them up
+ * with a {@link Sum}.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int MAX_SCALE = 4;
+    public static final Money ZERO = new Money(0, 0, null);
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+    // Integer and (padded) fraction digits that always fit into a long
+    private static final int MAX_DIGITS = 18;
+
+    /** Value in units of 10^-MAX_SCALE, unless {@link #big} is set. */
+    private final long units;
+    private final int scale;
+    private final BigDecimal big;
+
+    private Money(long units, int scale, BigDecimal big) {
+        this.units = units;
+        this.scale = scale;
+        this.big = big;
+    }
+
+    @JsonCreator
+    public static Money parse(String value) {
+        return parse(value, 0, value.length());
+    }
+
+    /**
+     * Parses a plain decimal number such as {@code -1234.56} from
+     * {@code value[start, end)} without creating a {@link BigDecimal} or
+     * {@code String}, e.g. directly from a JSON parser's text buffer.
+     * Other notations supported by {@link BigDecimal#BigDecimal(String)}
+     * are parsed by it.
+     */
+    public static Money parse(CharSequence value, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            ++i;
+        }
+        long units = 0;
+        int digits = 0;
+        int scale = -1;
+        boolean sawDigit = false;
+        for (; i < end; ++i) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sawDigit = true;
+                if (scale >= 0 && ++scale > MAX_SCALE) {
+                    return parseBig(value, start, end);
+                }
+                if ((units != 0 || c != '0') && ++digits > MAX_DIGITS - MAX_SCALE + Math.max(scale, 0)) {
+                    return parseBig(value, start, end);
+                }
+                units = units * 10 + (c - '0');
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return parseBig(value, start, end);
+            }
+        }
+        if (!sawDigit) {
+            return parseBig(value, start, end);
+        }
+        scale = Math.max(scale, 0);
+        units *= POWERS_OF_TEN[MAX_SCALE - scale];
+        return new Money(negative ? -units : units, scale, null);
+    }
+
+    public static Money of(BigDecimal value) {
+        int scale = Math.max(value.scale(), 0);
+        if (scale <= MAX_SCALE && value.precision() - value.scale() + MAX_SCALE <= MAX_DIGITS) {
+            return new Money(value.movePointRight(MAX_SCALE).longValueExact(), scale, null);
+        }
+        return new Money(0, 0, value);
+    }
+
+    public static Money ofUnits(long units, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE);
+        }
+        return new Money(units, scale, null);
+    }
+
+    private static Money parseBig(CharSequence value, int start, int end) {
+        return of(new BigDecimal(value.subSequence(start, end).toString()));
+    }
+
+    /**
+     * Whether the value is backed by a {@code long}.
+     */
+    public boolean isCompact() {
+        return this.big == null;
+    }
+
+    /**
+     * Value in units of 10^-{@value #MAX_SCALE}. Only valid if
+     * {@link #isCompact()}.
+     */
+    public long units() {
+        if (this.big != null) {
+            throw new ArithmeticException("Value doesn't fit into a long");
+        }
+        return this.units;
+    }
+
+    public Money add(Money other) {
+        if (this.big == null && other.big == null) {
+            long sum = this.units + other.units;
+            // Overflow iff both operands have the same sign and the sum has a different one
+            if (((this.units ^ sum) & (other.units ^ sum)) >= 0) {
+                return new Money(sum, Math.max(this.scale, other.scale), null);
+            }
+        }
+        return new Money(0, 0, toBigDecimal().add(other.toBigDecimal()));
+    }
+
+    public Money negate() {
+        if (this.big == null && this.units != Long.MIN_VALUE) {
+            return new Money(-this.units, this.scale, null);
+        }
+        return new Money(0, 0, toBigDecimal().negate());
+    }
+
+    public int signum() {
+        return this.big == null ? Long.signum(this.units) : this.big.signum();
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        if (this.big == null && other.big == null) {
+            return Long.compare(this.units, other.units);
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    public BigDecimal toBigDecimal() {
+        if (this.big != null) {
+            return this.big;
+        }
+        return BigDecimal.valueOf(this.units, MAX_SCALE).setScale(this.scale, RoundingMode.UNNECESSARY);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof Money other && compareTo(other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        if (this.big == null) {
+            return Long.hashCode(this.units);
+        }
+        // Keep consistent with equals for values that would also fit compactly
+        try {
+            return Long.hashCode(this.big.setScale(MAX_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            return this.big.stripTrailingZeros().hashCode();
+        }
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    /**
+     * Mutable accumulator that adds up amounts without allocating as long as
+     * the running total stays compact.
+     */
+    public static final class Sum {
+        private long units;
+        private int scale;
+        private BigDecimal big;
+
+        public Sum add(Money money) {
+            if (money.big == null) {
+                return add(money.units, money.scale);
+            }
+            this.big = result().toBigDecimal().add(money.big);
+            return this;
+        }
+
+        /**
+         * Adds {@link Money#units() units} of a compact amount without
+         * creating a {@link Money} for it, e.g. straight from a column of
+         * them. The scale of the result is then {@value Money#MAX_SCALE}.
+         */
+        public Sum addUnits(long units) {
+            return add(units, MAX_SCALE);
+        }
+
+        private Sum add(long units, int scale) {
+            if (this.big == null) {
+                long sum = this.units + units;
+                if (((this.units ^ sum) & (units ^ sum)) >= 0) {
+                    this.units = sum;
+                    this.scale = Math.max(this.scale, scale);
+                    return this;
+                }
+            }
+            this.big = result().toBigDecimal().add(BigDecimal.valueOf(units, MAX_SCALE).setScale(scale, RoundingMode.UNNECESSARY));
+            return this;
+        }
+
+        public Money result() {
+            return this.big == null ? new Money(this.units, this.scale, null) : new Money(0, 0, this.big);
+        }
+    }
+}
@@ -310,7 +310,7 @@ public record Transaction(
         @JsonSubTypes.Type(value = NationalBankTransactionCode.class, name = "national"),
         @JsonSubTypes.Type(value = OtherBankTransactionCode.class, name = "other"),
     })
-    interface BankTransactionCode {
+    public interface BankTransactionCode {
     }
 
     /**
@@ -0,0 +1,574 @@
+package tech.yaxi.demo.model;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import tech.yaxi.demo.model.Transaction.BankTransactionCode;
+import tech.yaxi.demo.model.Transaction.BatchData;
+import tech.yaxi.demo.model.Transaction.BatchDetails;
+import tech.yaxi.demo.model.Transaction.ExchangeRate;
+import tech.yaxi.demo.model.Transaction.Fee;
+import tech.yaxi.demo.model.Transaction.Party;
+
+/**
+ * Hand-written deserializers for {@link Transaction} and its nested records.
+ *
+ * They produce the same records as Jackson's reflective record handling, but
+ * dispatch on field names with a plain {@code switch}, create the
+ * {@link Optional}s and lists directly and read the wrapper-object type IDs
+ * of {@link BankTransactionCode}s without buffering tokens. Values that are
+ * not in their usual shape (e.g. a number where a string is expected) are
+ * handed to the default deserializers, so coercion rules and error messages
+ * stay the same.
+ */
+final class TransactionDeserializers {
+
+    private TransactionDeserializers() {
+    }
+
+    static final class TransactionDeserializer extends RecordDeserializer<Transaction> {
+
+        TransactionDeserializer() {
+            super(Transaction.class);
+        }
+
+        @Override
+        Transaction read(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Optional<String> entryReference = Optional.empty();
+            BatchData batch = null;
+            LocalDate bookingDate = null;
+            LocalDate valueDate = null;
+            LocalDate transactionDate = null;
+            Transaction.Status status = null;
+            Fields fields = new Fields();
+            for (var t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                var name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "entryReference" -> entryReference = optionalString(p, ctxt);
+                    case "batch" -> batch = BATCH_DATA.readNullable(p, ctxt);
+                    case "bookingDate" -> bookingDate = date(p, ctxt);
+                    case "valueDate" -> valueDate = date(p, ctxt);
+                    case "transactionDate" -> transactionDate = date(p, ctxt);
+                    case "status" -> status = status(p, ctxt);
+                    default -> {
+                        if (!fields.read(name, p, ctxt)) {
+                            ctxt.handleUnknownProperty(p, this, Transaction.class, name);
+                        }
+                    }
+                }
+            }
+            return new Transaction(
+                    entryReference,
+                    Optional.ofNullable(batch),
+                    Optional.ofNullable(bookingDate),
+                    Optional.ofNullable(valueDate),
+                    Optional.ofNullable(transactionDate),
+                    status,
+                    fields.accountServicerReference,
+                    fields.paymentId,
+                    fields.transactionId,
+                    fields.endToEndId,
+                    fields.mandateId,
+                    fields.creditorId,
+                    fields.amount,
+                    Optional.ofNullable(fields.reversal),
+                    Optional.ofNullable(fields.originalAmount),
+                    fields.exchanges,
+                    fields.fees,
+                    Optional.ofNullable(fields.creditor),
+                    Optional.ofNullable(fields.debtor),
+                    fields.remittanceInformation,
+                    fields.purposeCode,
+                    fields.bankTransactionCodes,
+                    fields.additionalInformation);
+        }
+
+        private static Transaction.Status status(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_STRING) {
+                switch (p.getText()) {
+                    case "Pending":
+                        return Transaction.Status.PENDING;
+                    case "Booked":
+                        return Transaction.Status.BOOKED;
+                    case "Invoiced":
+                        return Transaction.Status.INVOICED;
+                    case "Paid":
+                        return Transaction.Status.PAID;
+                    case "Canceled":
+                        return Transaction.Status.CANCELED;
+                    default:
+                        break;
+                }
+            }
+            return ctxt.readValue(p, Transaction.Status.class);
+        }
+    }
+
+    static final class BatchDataDeserializer extends RecordDeserializer<BatchData> {
+
+        BatchDataDeserializer() {
+            super(BatchData.class);
+        }
+
+        @Override
+        BatchData read(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Number numberOfTransactions = null;
+            List<BatchDetails> transactions = null;
+            for (var t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                var name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "numberOfTransactions" -> numberOfTransactions = number(p, ctxt);
+                    case "transactions" -> transactions = list(p, ctxt, BATCH_DETAILS::readNullable, null);
+                    default -> ctxt.handleUnknownProperty(p, this, BatchData.class, name);
+                }
+            }
+            return new BatchData(Optional.ofNullable(numberOfTransactions), transactions);
+        }
+
+        private Number number(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_NUMBER_INT && !ctxt.hasSomeOfFeatures(F_MASK_INT_COERCIONS)) {
+                return p.getNumberValue();
+            }
+            return p.currentToken() == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, Number.class);
+        }
+    }
+
+    static final class BatchDetailsDeserializer extends RecordDeserializer<BatchDetails> {
+
+        BatchDetailsDeserializer() {
+            super(BatchDetails.class);
+        }
+
+        @Override
+        BatchDetails read(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Fields fields = new Fields();
+            for (var t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                var name = p.currentName();
+                p.nextToken();
+                if (!fields.read(name, p, ctxt)) {
+                    ctxt.handleUnknownProperty(p, this, BatchDetails.class, name);
+                }
+            }
+            return new BatchDetails(
+                    fields.accountServicerReference,
+                    fields.paymentId,
+                    fields.transactionId,
+                    fields.endToEndId,
+                    fields.mandateId,
+                    fields.creditorId,
+                    Optional.ofNullable(fields.amount),
+                    Optional.ofNullable(fields.reversal),
+                    Optional.ofNullable(fields.originalAmount),
+                    fields.exchanges,
+                    fields.fees,
+                    Optional.ofNullable(fields.creditor),
+                    Optional.ofNullable(fields.debtor),
+                    fields.remittanceInformation,
+                    fields.purposeCode,
+                    fields.bankTransactionCodes,
+                    fields.additionalInformation);
+        }
+    }
+
+    static final class AmountDeserializer extends RecordDeserializer<Amount> {
+
+        AmountDeserializer() {
+            super(Amount.class);
+        }
+
+        @Override
+        Amount read(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String currency = null;
+            BigDecimal amount = null;
+            for (var t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                var name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "currency" -> currency = string(p, ctxt);
+                    case "amount" -> amount = decimal(p, ctxt);
+                    default -> ctxt.handleUnknownProperty(p, this, Amount.class, name);
+                }
+            }
+            return new Amount(currency, amount);
+        }
+    }
+
+    static final class PartyDeserializer extends RecordDeserializer<Party> {
+
+        PartyDeserializer() {
+            super(Party.class);
+        }
+
+        @Override
+        Party read(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Optional<String> name = Optional.empty();
+            Optional<String> iban = Optional.empty();
+            Optional<String> bic = Optional.empty();
+            Optional<String> ultimate = Optional.empty();
+            for (var t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                var field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "name" -> name = optionalString(p, ctxt);
+                    case "iban" -> iban = optionalString(p, ctxt);
+                    case "bic" -> bic = optionalString(p, ctxt);
+                    case "ultimate" -> ultimate = optionalString(p, ctxt);
+                    default -> ctxt.handleUnknownProperty(p, this, Party.class, field);
+                }
+            }
+            return new Party(name, iban, bic, ultimate);
+        }
+    }
+
+    static final class ExchangeRateDeserializer extends RecordDeserializer<ExchangeRate> {
+
+        ExchangeRateDeserializer() {
+            super(ExchangeRate.class);
+        }
+
+        @Override
+        ExchangeRate read(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String sourceCurrency = null;
+            Optional<String> targetCurrency = Optional.empty();
+            Optional<String> unitCurrency = Optional.empty();
+            BigDecimal exchangeRate = null;
+            for (var t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                var name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "sourceCurrency" -> sourceCurrency = string(p, ctxt);
+                    case "targetCurrency" -> targetCurrency = optionalString(p, ctxt);
+                    case "unitCurrency" -> unitCurrency = optionalString(p, ctxt);
+                    case "exchangeRate" -> exchangeRate = decimal(p, ctxt);
+                    default -> ctxt.handleUnknownProperty(p, this, ExchangeRate.class, name);
+                }
+            }
+            return new ExchangeRate(sourceCurrency, targetCurrency, unitCurrency, exchangeRate);
+        }
+    }
+
+    static final class FeeDeserializer extends RecordDeserializer<Fee> {
+
+        FeeDeserializer() {
+            super(Fee.class);
+        }
+
+        @Override
+        Fee read(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Amount amount = null;
+            Optional<String> kind = Optional.empty();
+            Optional<String> bic = Optional.empty();
+            for (var t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                var name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "amount" -> amount = AMOUNT.readNullable(p, ctxt);
+                    case "kind" -> kind = optionalString(p, ctxt);
+                    case "bic" -> bic = optionalString(p, ctxt);
+                    default -> ctxt.handleUnknownProperty(p, this, Fee.class, name);
+                }
+            }
+            return new Fee(amount, kind, bic);
+        }
+    }
+
+    /**
+     * Reads the {@code {"<type>": <value>}} wrapper objects of bank
+     * transaction codes by looking at the type ID first, which is what
+     * routex always sends.
+     */
+    static final class BankTransactionCodeDeserializer extends RecordDeserializer<BankTransactionCode> {
+
+        BankTransactionCodeDeserializer() {
+            super(BankTransactionCode.class);
+        }
+
+        @Override
+        public Object deserializeWithType(
+                JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException {
+            // The type ID is handled here, not by Jackson's wrapper-object support
+            return deserialize(p, ctxt);
+        }
+
+        @Override
+        BankTransactionCode read(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() != JsonToken.FIELD_NAME) {
+                return (BankTransactionCode) ctxt.handleUnexpectedToken(BankTransactionCode.class, p);
+            }
+            var type = p.currentName();
+            p.nextToken();
+            BankTransactionCode code = switch (type) {
+                case "iso" -> readIso(p, ctxt);
+                case "swift" -> new Transaction.SwiftTransactionCode(string(p, ctxt));
+                case "bai" -> new Transaction.Bai2TransactionCode(string(p, ctxt));
+                case "national" -> readNational(p, ctxt);
+                case "other" -> readOther(p, ctxt);
+                default -> throw InvalidTypeIdException.from(
+                        p,
+                        "Could not resolve type id '" + type + "' as a subtype of " + BankTransactionCode.class.getName(),
+                        ctxt.constructType(BankTransactionCode.class),
+                        type);
+            };
+            if (p.nextToken() != JsonToken.END_OBJECT) {
+                ctxt.reportWrongTokenException(
+                        BankTransactionCode.class,
+                        JsonToken.END_OBJECT,
+                        "expected closing END_OBJECT after type information and deserialized value");
+            }
+            return code;
+        }
+
+        private Transaction.IsoBankTransactionCode readIso(JsonParser p, DeserializationContext ctxt)
+                throws IOException {
+            if (!startObject(p)) {
+                return nullOrUnexpected(p, ctxt, Transaction.IsoBankTransactionCode.class);
+            }
+            String domain = null;
+            String family = null;
+            String subFamily = null;
+            for (var t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                var name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "domain" -> domain = string(p, ctxt);
+                    case "family" -> family = string(p, ctxt);
+                    case "subFamily" -> subFamily = string(p, ctxt);
+                    default -> ctxt.handleUnknownProperty(p, this, Transaction.IsoBankTransactionCode.class, name);
+                }
+            }
+            return new Transaction.IsoBankTransactionCode(domain, family, subFamily);
+        }
+
+        private Transaction.NationalBankTransactionCode readNational(JsonParser p, DeserializationContext ctxt)
+                throws IOException {
+            if (!startObject(p)) {
+                return nullOrUnexpected(p, ctxt, Transaction.NationalBankTransactionCode.class);
+            }
+            String code = null;
+            String country = null;
+            for (var t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                var name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "code" -> code = string(p, ctxt);
+                    case "country" -> country = string(p, ctxt);
+                    default -> ctxt.handleUnknownProperty(p, this, Transaction.NationalBankTransactionCode.class, name);
+                }
+            }
+            return new Transaction.NationalBankTransactionCode(code, country);
+        }
+
+        private Transaction.OtherBankTransactionCode readOther(JsonParser p, DeserializationContext ctxt)
+                throws IOException {
+            if (!startObject(p)) {
+                return nullOrUnexpected(p, ctxt, Transaction.OtherBankTransactionCode.class);
+            }
+            String code = null;
+            Optional<String> issuer = Optional.empty();
+            for (var t = p.currentToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                var name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "code" -> code = string(p, ctxt);
+                    case "issuer" -> issuer = optionalString(p, ctxt);
+                    default -> ctxt.handleUnknownProperty(p, this, Transaction.OtherBankTransactionCode.class, name);
+                }
+            }
+            return new Transaction.OtherBankTransactionCode(code, issuer);
+        }
+    }
+
+    /**
+     * The fields {@link Transaction} and {@link BatchDetails} have in common.
+     */
+    private static final class Fields {
+        Optional<String> accountServicerReference = Optional.empty();
+        Optional<String> paymentId = Optional.empty();
+        Optional<String> transactionId = Optional.empty();
+        Optional<String> endToEndId = Optional.empty();
+        Optional<String> mandateId = Optional.empty();
+        Optional<String> creditorId = Optional.empty();
+        Amount amount;
+        Boolean reversal;
+        Amount originalAmount;
+        List<ExchangeRate> exchanges = List.of();
+        List<Fee> fees = List.of();
+        Party creditor;
+        Party debtor;
+        List<String> remittanceInformation = List.of();
+        Optional<String> purposeCode = Optional.empty();
+        List<BankTransactionCode> bankTransactionCodes = List.of();
+        Optional<String> additionalInformation = Optional.empty();
+
+        boolean read(String name, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (name) {
+                case "accountServicerReference" -> this.accountServicerReference = optionalString(p, ctxt);
+                case "paymentId" -> this.paymentId = optionalString(p, ctxt);
+                case "transactionId" -> this.transactionId = optionalString(p, ctxt);
+                case "endToEndId" -> this.endToEndId = optionalString(p, ctxt);
+                case "mandateId" -> this.mandateId = optionalString(p, ctxt);
+                case "creditorId" -> this.creditorId = optionalString(p, ctxt);
+                case "amount" -> this.amount = AMOUNT.readNullable(p, ctxt);
+                case "reversal" -> this.reversal = bool(p, ctxt);
+                case "originalAmount" -> this.originalAmount = AMOUNT.readNullable(p, ctxt);
+                case "exchanges" -> this.exchanges = list(p, ctxt, EXCHANGE_RATE::readNullable, List.of());
+                case "fees" -> this.fees = list(p, ctxt, FEE::readNullable, List.of());
+                case "creditor" -> this.creditor = PARTY.readNullable(p, ctxt);
+                case "debtor" -> this.debtor = PARTY.readNullable(p, ctxt);
+                case "remittanceInformation" ->
+                        this.remittanceInformation = list(p, ctxt, TransactionDeserializers::string, List.of());
+                case "purposeCode" -> this.purposeCode = optionalString(p, ctxt);
+                case "bankTransactionCodes" ->
+                        this.bankTransactionCodes = list(p, ctxt, BANK_TRANSACTION_CODE::readNullable, List.of());
+                case "additionalInformation" -> this.additionalInformation = optionalString(p, ctxt);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Base class that positions the parser on the first field name (or the
+     * closing brace) before handing over to {@link #read}, which must leave it
+     * on the closing brace.
+     */
+    abstract static class RecordDeserializer<T> extends StdDeserializer<T> {
+
+        RecordDeserializer(Class<T> type) {
+            super(type);
+        }
+
+        @Override
+        public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            @SuppressWarnings("unchecked")
+            var type = (Class<T>) handledType();
+            if (!startObject(p)) {
+                return nullOrUnexpected(p, ctxt, type);
+            }
+            return read(p, ctxt);
+        }
+
+        T readNullable(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return p.currentToken() == JsonToken.VALUE_NULL ? null : deserialize(p, ctxt);
+        }
+
+        abstract T read(JsonParser p, DeserializationContext ctxt) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ElementReader<T> {
+        T read(JsonParser p, DeserializationContext ctxt) throws IOException;
+    }
+
+    private static final AmountDeserializer AMOUNT = new AmountDeserializer();
+    private static final PartyDeserializer PARTY = new PartyDeserializer();
+    private static final ExchangeRateDeserializer EXCHANGE_RATE = new ExchangeRateDeserializer();
+    private static final FeeDeserializer FEE = new FeeDeserializer();
+    private static final BankTransactionCodeDeserializer BANK_TRANSACTION_CODE = new BankTransactionCodeDeserializer();
+    private static final BatchDetailsDeserializer BATCH_DETAILS = new BatchDetailsDeserializer();
+    private static final BatchDataDeserializer BATCH_DATA = new BatchDataDeserializer();
+
+    /**
+     * Moves from {@code START_OBJECT} to the first field. Returns
+     * {@code false} if the parser isn't on an object.
+     */
+    private static boolean startObject(JsonParser p) throws IOException {
+        var t = p.currentToken();
+        if (t == JsonToken.START_OBJECT) {
+            p.nextToken();
+            return true;
+        }
+        return t == JsonToken.FIELD_NAME || t == JsonToken.END_OBJECT;
+    }
+
+    private static <T> T nullOrUnexpected(JsonParser p, DeserializationContext ctxt, Class<T> type)
+            throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        T value = (T) ctxt.handleUnexpectedToken(type, p);
+        return value;
+    }
+
+    private static <T> List<T> list(
+            JsonParser p, DeserializationContext ctxt, ElementReader<T> elementReader, List<T> nullValue)
+            throws IOException {
+        var t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) {
+            return nullValue;
+        }
+        if (t != JsonToken.START_ARRAY) {
+            @SuppressWarnings("unchecked")
+            List<T> value = (List<T>) ctxt.handleUnexpectedToken(List.class, p);
+            return value;
+        }
+        var list = new ArrayList<T>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            list.add(elementReader.read(p, ctxt));
+        }
+        return list;
+    }
+
+    private static String string(JsonParser p, DeserializationContext ctxt) throws IOException {
+        var t = p.currentToken();
+        if (t == JsonToken.VALUE_STRING) {
+            return p.getText();
+        }
+        return t == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, String.class);
+    }
+
+    private static Optional<String> optionalString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return Optional.ofNullable(string(p, ctxt));
+    }
+
+    private static Boolean bool(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return switch (p.currentToken()) {
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_NULL -> null;
+            default -> ctxt.readValue(p, Boolean.class);
+        };
+    }
+
+    private static BigDecimal decimal(JsonParser p, DeserializationContext ctxt) throws IOException {
+        var t = p.currentToken();
+        if (t == JsonToken.VALUE_STRING) {
+            try {
+                return new BigDecimal(p.getText());
+            } catch (NumberFormatException e) {
+                // Leave blank strings etc. to the coercion rules
+            }
+        } else if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT) {
+            return p.getDecimalValue();
+        }
+        return t == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, BigDecimal.class);
+    }
+
+    private static LocalDate date(JsonParser p, DeserializationContext ctxt) throws IOException {
+        var t = p.currentToken();
+        if (t == JsonToken.VALUE_STRING) {
+            try {
+                return LocalDate.parse(p.getText());
+            } catch (DateTimeParseException e) {
+                // Leave other formats to the JSR-310 module
+            }
+        }
+        return t == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, LocalDate.class);
+    }
+}
@@ -0,0 +1,27 @@
+package tech.yaxi.demo.model;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers the hand-written {@link TransactionDeserializers} in place of
+ * Jackson's reflective record handling. Spring Boot adds all {@code Module}
+ * beans to its {@code ObjectMapper}.
+ */
+@Component
+public class TransactionModule extends SimpleModule {
+
+    public TransactionModule() {
+        super(TransactionModule.class.getSimpleName());
+        addDeserializer(Transaction.class, new TransactionDeserializers.TransactionDeserializer());
+        addDeserializer(Transaction.BatchData.class, new TransactionDeserializers.BatchDataDeserializer());
+        addDeserializer(Transaction.BatchDetails.class, new TransactionDeserializers.BatchDetailsDeserializer());
+        addDeserializer(Amount.class, new TransactionDeserializers.AmountDeserializer());
+        addDeserializer(Transaction.Party.class, new TransactionDeserializers.PartyDeserializer());
+        addDeserializer(Transaction.ExchangeRate.class, new TransactionDeserializers.ExchangeRateDeserializer());
+        addDeserializer(Transaction.Fee.class, new TransactionDeserializers.FeeDeserializer());
+        addDeserializer(
+                Transaction.BankTransactionCode.class,
+                new TransactionDeserializers.BankTransactionCodeDeserializer());
+    }
+}
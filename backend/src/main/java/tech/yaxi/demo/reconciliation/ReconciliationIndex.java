@@ -0,0 +1,361 @@
+package tech.yaxi.demo.reconciliation;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Links the versions of a transaction across results, e.g. a pending entry
+ * and its later booking, and reversals to the transactions they reverse.
+ *
+ * Every transaction is indexed by its transaction ID, its end-to-end ID
+ * and a fingerprint of amount, creditor IBAN and value date, in one hash map
+ * each. An incoming transaction is looked up by these keys in that order and
+ * matched to the first indexed transaction that is still open (pending or
+ * invoiced) or has the same status. As distinct transactions may share a
+ * fingerprint, it only matches open transactions from earlier results, so
+ * that e.g. two equal bookings without IDs are kept apart. The match is
+ * updated in place and the change of status is recorded as a
+ * {@link Transition}. A reversal is matched to another reversal the same
+ * way; if there is none, it is linked to the transaction it reverses,
+ * which is found by its IDs or by the fingerprint with the amount negated.
+ *
+ * At most {@code yaxi.reconciliation.maxEntries} transactions are kept; the
+ * oldest ones are dropped first.
+ */
+@Component
+@ConditionalOnProperty(name = "yaxi.reconciliation.enabled", havingValue = "true")
+public class ReconciliationIndex {
+
+    /** Placeholder for a missing end-to-end ID in SEPA payments. */
+    private static final String NOT_PROVIDED = "NOTPROVIDED";
+
+    public enum Match {
+        TRANSACTION_ID,
+        END_TO_END_ID,
+        FINGERPRINT,
+    }
+
+    /**
+     * A change of status of a transaction, with the ticket of the result
+     * that brought it and the key the transaction was matched by.
+     */
+    public record Transition(
+            UUID ticketId, @Nullable Transaction.Status from, @Nullable Transaction.Status to, Match match) {
+    }
+
+    /**
+     * The latest version of a transaction, its transitions so far and the
+     * IDs of the entries it reverses or is reversed by.
+     */
+    public record Entry(
+            long id,
+            UUID ticketId,
+            Transaction transaction,
+            List<Transition> transitions,
+            @Nullable Long reverses,
+            @Nullable Long reversedBy) {
+    }
+
+    public record Stats(
+            int entries, int open, long matched, long transitions, long reversals, long evicted) {
+    }
+
+    private final int maxEntries;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private final LinkedHashMap<Long, IndexedTransaction> entries = new LinkedHashMap<>();
+    private final Map<String, List<IndexedTransaction>> byTransactionId = new HashMap<>();
+    private final Map<String, List<IndexedTransaction>> byEndToEndId = new HashMap<>();
+    private final Map<Fingerprint, List<IndexedTransaction>> byFingerprint = new HashMap<>();
+    private long nextId;
+    private int open;
+    private long matched;
+    private long transitions;
+    private long reversals;
+    private long evicted;
+
+    @Autowired
+    public ReconciliationIndex(@Value("${yaxi.reconciliation.maxEntries:100000}") int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    public void append(List<TicketResult<List<Transaction>>> results) {
+        this.lock.lock();
+        try {
+            for (var result : results) {
+                if (result.data() != null) {
+                    for (var transaction : result.data()) {
+                        add(result.id(), transaction);
+                    }
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public List<Entry> findByTransactionId(String transactionId) {
+        return find(this.byTransactionId, transactionId);
+    }
+
+    public List<Entry> findByEndToEndId(String endToEndId) {
+        return find(this.byEndToEndId, endToEndId);
+    }
+
+    public Stats stats() {
+        this.lock.lock();
+        try {
+            return new Stats(
+                    this.entries.size(), this.open, this.matched, this.transitions, this.reversals, this.evicted);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private <K> List<Entry> find(Map<K, List<IndexedTransaction>> index, K key) {
+        this.lock.lock();
+        try {
+            return index.getOrDefault(key, List.of()).stream().map(IndexedTransaction::toEntry).toList();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void add(UUID ticketId, Transaction transaction) {
+        var fingerprint = Fingerprint.of(transaction, false);
+        var transactionId = key(transaction.transactionId().orElse(null));
+        var endToEndId = key(transaction.endToEndId().orElse(null));
+
+        // A later version of a known transaction (or reversal)
+        Match match = Match.TRANSACTION_ID;
+        var known = version(this.byTransactionId.get(transactionId), transaction, transactionId, endToEndId, null);
+        if (known == null) {
+            match = Match.END_TO_END_ID;
+            known = version(this.byEndToEndId.get(endToEndId), transaction, transactionId, endToEndId, null);
+        }
+        if (known == null) {
+            match = Match.FINGERPRINT;
+            known = version(this.byFingerprint.get(fingerprint), transaction, transactionId, endToEndId, ticketId);
+        }
+        if (known != null) {
+            update(known, ticketId, transaction, match);
+            return;
+        }
+
+        var added = new IndexedTransaction(this.nextId++, ticketId, transaction);
+        this.entries.put(added.id, added);
+        index(added);
+        if (isOpen(added)) {
+            ++this.open;
+        }
+        if (isReversal(transaction)) {
+            var reversed = reversed(transactionId, endToEndId, Fingerprint.of(transaction, true));
+            if (reversed != null) {
+                reversed.reversedBy = added.id;
+                added.reverses = reversed.id;
+                ++this.reversals;
+            }
+        }
+        if (this.entries.size() > this.maxEntries) {
+            evict(this.entries.pollFirstEntry().getValue());
+        }
+    }
+
+    /**
+     * Returns the transaction in {@code candidates} that {@code transaction}
+     * is a later version of. Candidates with other IDs than the transaction
+     * are never a match, so a fingerprint only decides for lack of IDs. When
+     * matching by fingerprint, i.e. with the {@code ticketId} of the result
+     * that brought the transaction, only open candidates from other results
+     * match.
+     */
+    @Nullable
+    private static IndexedTransaction version(
+            @Nullable List<IndexedTransaction> candidates,
+            Transaction transaction,
+            @Nullable String transactionId,
+            @Nullable String endToEndId,
+            @Nullable UUID ticketId) {
+        if (candidates == null) {
+            return null;
+        }
+        for (var candidate : candidates) {
+            boolean status = ticketId == null
+                    ? isOpen(candidate) || candidate.transaction.status() == transaction.status()
+                    : isOpen(candidate) && !candidate.ticketId.equals(ticketId);
+            if (isReversal(candidate.transaction) == isReversal(transaction)
+                    && !conflicts(candidate.transactionId, transactionId)
+                    && !conflicts(candidate.endToEndId, endToEndId)
+                    && status) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the transaction that a new reversal reverses, if it's known
+     * and not reversed yet.
+     */
+    @Nullable
+    private IndexedTransaction reversed(
+            @Nullable String transactionId, @Nullable String endToEndId, @Nullable Fingerprint fingerprint) {
+        for (var candidates : List.of(
+                this.byTransactionId.getOrDefault(transactionId, List.of()),
+                this.byEndToEndId.getOrDefault(endToEndId, List.of()),
+                this.byFingerprint.getOrDefault(fingerprint, List.of()))) {
+            for (var candidate : candidates) {
+                if (!isReversal(candidate.transaction) && candidate.reversedBy == null) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void update(IndexedTransaction known, UUID ticketId, Transaction transaction, Match match) {
+        ++this.matched;
+        var from = known.transaction.status();
+        boolean wasOpen = isOpen(known);
+        unindex(known);
+        known.ticketId = ticketId;
+        known.transaction = transaction;
+        index(known);
+        if (from != transaction.status()) {
+            known.transitions.add(new Transition(ticketId, from, transaction.status(), match));
+            ++this.transitions;
+        }
+        if (wasOpen != isOpen(known)) {
+            this.open += wasOpen ? -1 : 1;
+        }
+    }
+
+    private void evict(IndexedTransaction eldest) {
+        unindex(eldest);
+        if (isOpen(eldest)) {
+            --this.open;
+        }
+        ++this.evicted;
+    }
+
+    private void index(IndexedTransaction entry) {
+        var transaction = entry.transaction;
+        entry.transactionId = key(transaction.transactionId().orElse(null));
+        entry.endToEndId = key(transaction.endToEndId().orElse(null));
+        entry.fingerprint = Fingerprint.of(transaction, false);
+        add(this.byTransactionId, entry.transactionId, entry);
+        add(this.byEndToEndId, entry.endToEndId, entry);
+        add(this.byFingerprint, entry.fingerprint, entry);
+    }
+
+    private void unindex(IndexedTransaction entry) {
+        remove(this.byTransactionId, entry.transactionId, entry);
+        remove(this.byEndToEndId, entry.endToEndId, entry);
+        remove(this.byFingerprint, entry.fingerprint, entry);
+    }
+
+    private static <K> void add(Map<K, List<IndexedTransaction>> index, @Nullable K key, IndexedTransaction entry) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entry);
+        }
+    }
+
+    private static <K> void remove(Map<K, List<IndexedTransaction>> index, @Nullable K key, IndexedTransaction entry) {
+        if (key == null) {
+            return;
+        }
+        var entries = index.get(key);
+        if (entries != null && entries.remove(entry) && entries.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static boolean conflicts(@Nullable String id, @Nullable String other) {
+        return id != null && other != null && !id.equals(other);
+    }
+
+    /**
+     * Returns {@code id} if it identifies a transaction, i.e. isn't blank or
+     * a placeholder.
+     */
+    @Nullable
+    private static String key(@Nullable String id) {
+        return id == null || id.isBlank() || id.equals(NOT_PROVIDED) ? null : id;
+    }
+
+    private static boolean isReversal(Transaction transaction) {
+        return transaction.reversal().orElse(false);
+    }
+
+    private static boolean isOpen(IndexedTransaction entry) {
+        var status = entry.transaction.status();
+        return status == Transaction.Status.PENDING || status == Transaction.Status.INVOICED;
+    }
+
+    /**
+     * Identifies a transaction without IDs by what it's about. Amounts are
+     * compared numerically, i.e. regardless of their scale.
+     */
+    private record Fingerprint(String currency, BigDecimal amount, String creditorIban, LocalDate valueDate) {
+
+        @Nullable
+        static Fingerprint of(Transaction transaction, boolean negate) {
+            var amount = transaction.amount();
+            var iban = transaction.creditor().flatMap(Transaction.Party::iban).orElse(null);
+            var valueDate = transaction.valueDate().orElse(null);
+            if (amount == null || iban == null || valueDate == null) {
+                return null;
+            }
+            var value = amount.amount().stripTrailingZeros();
+            return new Fingerprint(amount.currency(), negate ? value.negate() : value, iban, valueDate);
+        }
+    }
+
+    private static final class IndexedTransaction {
+
+        final long id;
+        final List<Transition> transitions = new ArrayList<>(1);
+        UUID ticketId;
+        Transaction transaction;
+        @Nullable
+        Long reverses;
+        @Nullable
+        Long reversedBy;
+        // The keys it's indexed under
+        @Nullable
+        String transactionId;
+        @Nullable
+        String endToEndId;
+        @Nullable
+        Fingerprint fingerprint;
+
+        IndexedTransaction(long id, UUID ticketId, Transaction transaction) {
+            this.id = id;
+            this.ticketId = ticketId;
+            this.transaction = transaction;
+        }
+
+        Entry toEntry() {
+            return new Entry(this.id, this.ticketId, this.transaction, List.copyOf(this.transitions),
+                    this.reverses, this.reversedBy);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package tech.yaxi.demo.sink;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.analytics.TransactionColumns;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Appends results to the {@link TransactionColumns} for aggregation.
+ */
+@Component
+@ConditionalOnProperty(name = "yaxi.analytics.enabled", havingValue = "true")
+public class AnalyticsResultSink implements ResultSink {
+
+    private final TransactionColumns columns;
+
+    @Autowired
+    public AnalyticsResultSink(TransactionColumns columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public String name() {
+        return "analytics";
+    }
+
+    @Override
+    public void write(List<TicketResult<List<Transaction>>> results) {
+        this.columns.append(results);
+    }
+}
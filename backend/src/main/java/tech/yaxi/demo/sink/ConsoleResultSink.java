@@ -0,0 +1,30 @@
+package tech.yaxi.demo.sink;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Prints results to standard output. A whole batch is written at once, so the
+ * console lock is taken once per batch rather than twice per result.
+ */
+@Component
+public class ConsoleResultSink implements ResultSink {
+
+    @Override
+    public String name() {
+        return "console";
+    }
+
+    @Override
+    public void write(List<TicketResult<List<Transaction>>> results) {
+        var out = new StringBuilder();
+        for (var result : results) {
+            out.append(result.id()).append('\n').append(result.data()).append('\n');
+        }
+        System.out.print(out);
+        System.out.flush();
+    }
+}
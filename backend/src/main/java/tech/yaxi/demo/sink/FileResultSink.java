@@ -0,0 +1,69 @@
+package tech.yaxi.demo.sink;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Appends results as JSON lines ({@code {"id":...,"data":[...]}}) to
+ * {@code yaxi.results.file.path}. The file is opened on the first batch and
+ * flushed after every batch.
+ */
+@Component
+public class FileResultSink implements ResultSink {
+
+    private final Path path;
+    private final ObjectWriter writer;
+    private OutputStream out;
+
+    @Autowired
+    public FileResultSink(
+            @Value("${yaxi.results.file.path:results.jsonl}") Path path,
+            ObjectMapper objectMapper) {
+        this.path = path;
+        this.writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void write(List<TicketResult<List<Transaction>>> results) throws IOException {
+        if (this.out == null) {
+            this.out = new BufferedOutputStream(Files.newOutputStream(
+                    this.path, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE),
+                    64 * 1024);
+        }
+        for (var result : results) {
+            this.writer.writeValue(this.out, result);
+            this.out.write('\n');
+        }
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.out != null) {
+            this.out.close();
+            this.out = null;
+        }
+    }
+}
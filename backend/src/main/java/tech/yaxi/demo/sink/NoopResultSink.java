@@ -0,0 +1,23 @@
+package tech.yaxi.demo.sink;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Discards all results, e.g. to measure ingestion without any output.
+ */
+@Component
+public class NoopResultSink implements ResultSink {
+
+    @Override
+    public String name() {
+        return "noop";
+    }
+
+    @Override
+    public void write(List<TicketResult<List<Transaction>>> results) {
+    }
+}
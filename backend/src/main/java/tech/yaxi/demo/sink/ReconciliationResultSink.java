@@ -0,0 +1,36 @@
+package tech.yaxi.demo.sink;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+import tech.yaxi.demo.reconciliation.ReconciliationIndex;
+
+/**
+ * Matches the transactions of results to earlier versions in the
+ * {@link ReconciliationIndex}.
+ */
+@Component
+@ConditionalOnProperty(name = "yaxi.reconciliation.enabled", havingValue = "true")
+public class ReconciliationResultSink implements ResultSink {
+
+    private final ReconciliationIndex index;
+
+    @Autowired
+    public ReconciliationResultSink(ReconciliationIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public String name() {
+        return "reconciliation";
+    }
+
+    @Override
+    public void write(List<TicketResult<List<Transaction>>> results) {
+        this.index.append(results);
+    }
+}
@@ -0,0 +1,180 @@
+package tech.yaxi.demo.sink;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.jfr.SinkWriteEvent;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Hands verified results to the sinks selected in {@code yaxi.results.sinks}.
+ *
+ * Every sink gets its own bounded queue and a virtual thread that drains it
+ * in batches of up to {@code yaxi.results.batchSize} results, so a slow sink
+ * neither blocks the request thread nor the other sinks. Results that don't
+ * fit into a sink's queue are dropped and counted.
+ */
+@Component
+public class ResultDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultDispatcher.class);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final List<Channel> channels = new ArrayList<>();
+    private final int batchSize;
+    private volatile boolean closed;
+
+    @Autowired
+    public ResultDispatcher(
+            List<ResultSink> sinks,
+            @Value("${yaxi.results.sinks:console}") List<String> enabled,
+            @Value("${yaxi.results.queueCapacity:10000}") int queueCapacity,
+            @Value("${yaxi.results.batchSize:256}") int batchSize) {
+        var sinksByName = new LinkedHashMap<String, ResultSink>();
+        sinks.forEach(sink -> sinksByName.put(sink.name(), sink));
+        for (var name : enabled) {
+            if (name.isBlank()) {
+                continue;
+            }
+            var sink = sinksByName.get(name.strip());
+            if (sink == null) {
+                throw new IllegalArgumentException(
+                        "Unknown result sink '" + name + "', expected one of " + sinksByName.keySet());
+            }
+            this.channels.add(new Channel(sink, new ArrayBlockingQueue<>(queueCapacity)));
+        }
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        for (var channel : this.channels) {
+            channel.thread = Thread.ofVirtual().name("result-sink-" + channel.sink.name()).start(() -> drain(channel));
+        }
+    }
+
+    /**
+     * Stops accepting results, writes the queued ones and closes the sinks.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        this.closed = true;
+        var deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+        for (var channel : this.channels) {
+            if (channel.thread == null) {
+                continue;
+            }
+            var remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !channel.thread.join(Duration.ofNanos(remaining))) {
+                channel.thread.interrupt();
+            }
+        }
+    }
+
+    public void publish(TicketResult<List<Transaction>> result) {
+        for (var channel : this.channels) {
+            if (this.closed || !channel.queue.offer(result)) {
+                channel.dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Per-sink counters, keyed by sink name.
+     */
+    public Map<String, Stats> stats() {
+        var stats = new LinkedHashMap<String, Stats>();
+        for (var channel : this.channels) {
+            stats.put(channel.sink.name(), new Stats(
+                    channel.queue.size(),
+                    channel.written.sum(),
+                    channel.batches.sum(),
+                    channel.dropped.sum(),
+                    channel.failed.sum()));
+        }
+        return stats;
+    }
+
+    private void drain(Channel channel) {
+        var batch = new ArrayList<TicketResult<List<Transaction>>>(this.batchSize);
+        try {
+            while (!this.closed || !channel.queue.isEmpty()) {
+                var first = channel.queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                channel.queue.drainTo(batch, this.batchSize - 1);
+                write(channel, batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            channel.dropped.add(channel.queue.size());
+        } finally {
+            try {
+                channel.sink.close();
+            } catch (Exception e) {
+                LOGGER.warn("Failed to close result sink '{}'", channel.sink.name(), e);
+            }
+        }
+    }
+
+    private static void write(Channel channel, List<TicketResult<List<Transaction>>> batch) {
+        var event = new SinkWriteEvent();
+        event.begin();
+        try {
+            channel.sink.write(batch);
+            channel.written.add(batch.size());
+            channel.batches.increment();
+            if (event.shouldCommit()) {
+                event.sink = channel.sink.name();
+                event.results = batch.size();
+                for (var result : batch) {
+                    event.transactions += result.data() == null ? 0 : result.data().size();
+                }
+                event.commit();
+            }
+        } catch (Exception e) {
+            channel.failed.add(batch.size());
+            LOGGER.warn("Result sink '{}' failed to write {} results", channel.sink.name(), batch.size(), e);
+        }
+    }
+
+    private static final class Channel {
+        final ResultSink sink;
+        final BlockingQueue<TicketResult<List<Transaction>>> queue;
+        final LongAdder written = new LongAdder();
+        final LongAdder batches = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        Thread thread;
+
+        Channel(ResultSink sink, BlockingQueue<TicketResult<List<Transaction>>> queue) {
+            this.sink = sink;
+            this.queue = queue;
+        }
+    }
+
+    /**
+     * Snapshot of a sink's counters: results waiting in its queue, results
+     * and batches written, and results dropped because the queue was full or
+     * lost because the sink failed.
+     */
+    public record Stats(int pending, long written, long batches, long dropped, long failed) {
+    }
+}
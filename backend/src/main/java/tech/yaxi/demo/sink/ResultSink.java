@@ -0,0 +1,31 @@
+package tech.yaxi.demo.sink;
+
+import java.io.IOException;
+import java.util.List;
+
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Consumer of verified transaction results.
+ *
+ * Sinks are Spring beans; the ones listed in {@code yaxi.results.sinks} are
+ * fed by {@link ResultDispatcher}, which hands them batches of results on a
+ * dedicated thread per sink. A sink therefore never runs on a request thread
+ * and is never called concurrently with itself.
+ */
+public interface ResultSink {
+
+    /**
+     * Name under which the sink is selected in {@code yaxi.results.sinks}.
+     */
+    String name();
+
+    void write(List<TicketResult<List<Transaction>>> results) throws IOException;
+
+    /**
+     * Called once after the last batch has been written.
+     */
+    default void close() throws IOException {
+    }
+}
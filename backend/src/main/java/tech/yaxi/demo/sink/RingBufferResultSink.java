@@ -0,0 +1,80 @@
+package tech.yaxi.demo.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.CompactTransaction;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Keeps the most recent results in memory, overwriting the oldest ones once
+ * {@code yaxi.results.ringBuffer.capacity} is reached.
+ *
+ * Transactions are kept as {@link CompactTransaction}s and turned back into
+ * {@link Transaction}s by {@link #latest}.
+ */
+@Component
+public class RingBufferResultSink implements ResultSink {
+
+    /** Only ever holds {@code TicketResult<List<CompactTransaction>>}, see {@link #write}. */
+    private final TicketResult<?>[] buffer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long written;
+
+    @Autowired
+    public RingBufferResultSink(@Value("${yaxi.results.ringBuffer.capacity:1024}") int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring buffer capacity must be positive");
+        }
+        this.buffer = new TicketResult<?>[capacity];
+    }
+
+    @Override
+    public String name() {
+        return "ring-buffer";
+    }
+
+    @Override
+    public void write(List<TicketResult<List<Transaction>>> results) {
+        // Compact outside the lock, so that readers don't wait for it
+        var compact = results.stream()
+                .map(result -> new TicketResult<>(result.id(),
+                        result.data().stream().map(CompactTransaction::of).toList()))
+                .toList();
+        this.lock.lock();
+        try {
+            for (var result : compact) {
+                this.buffer[(int) (this.written++ % this.buffer.length)] = result;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} of the most recent results, newest first.
+     */
+    public List<TicketResult<List<Transaction>>> latest(int limit) {
+        var latest = new ArrayList<TicketResult<List<CompactTransaction>>>();
+        this.lock.lock();
+        try {
+            int count = (int) Math.min(Math.min(limit, this.buffer.length), this.written);
+            for (long i = this.written - 1; latest.size() < count; --i) {
+                @SuppressWarnings("unchecked")
+                var result = (TicketResult<List<CompactTransaction>>) this.buffer[(int) (i % this.buffer.length)];
+                latest.add(result);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return latest.stream()
+                .map(result -> new TicketResult<>(result.id(),
+                        result.data().stream().map(CompactTransaction::toTransaction).toList()))
+                .toList();
+    }
+}
@@ -0,0 +1,37 @@
+package tech.yaxi.demo.sink;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+import tech.yaxi.demo.store.TransactionStore;
+
+/**
+ * Appends results to the {@link TransactionStore}, one store batch (and
+ * sync) per batch of results.
+ */
+@Component
+@ConditionalOnProperty(name = "yaxi.store.enabled", havingValue = "true")
+public class StoreResultSink implements ResultSink {
+
+    private final TransactionStore store;
+
+    @Autowired
+    public StoreResultSink(TransactionStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public String name() {
+        return "store";
+    }
+
+    @Override
+    public void write(List<TicketResult<List<Transaction>>> results) throws IOException {
+        this.store.append(results);
+    }
+}
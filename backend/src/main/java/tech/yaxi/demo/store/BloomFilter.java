@@ -0,0 +1,177 @@
+package tech.yaxi.demo.store;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scalable Bloom filter over 64 bit fingerprints (Almeida et al., "Scalable
+ * Bloom Filters").
+ *
+ * The filter is a series of stages. Each one holds twice as many elements
+ * as the one before at half the false positive rate, so the overall rate
+ * stays below the configured one however many elements are added, and
+ * memory grows with the elements rather than being sized up front. An
+ * element is added to the last stage and looked up in all of them. Bit
+ * positions are derived from the fingerprint and a remix of it by double
+ * hashing. Not thread-safe; {@link TransactionStore} guards it.
+ */
+final class BloomFilter {
+
+    /** Factor by which the false positive rate of each stage shrinks. */
+    private static final double TIGHTENING = 0.5;
+
+    private final double falsePositiveRate;
+    private final long initialCapacity;
+    private final List<Stage> stages = new ArrayList<>();
+
+    BloomFilter(double falsePositiveRate, long initialCapacity) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        this.initialCapacity = initialCapacity;
+    }
+
+    double falsePositiveRate() {
+        return this.falsePositiveRate;
+    }
+
+    long initialCapacity() {
+        return this.initialCapacity;
+    }
+
+    int stages() {
+        return this.stages.size();
+    }
+
+    long count() {
+        long count = 0;
+        for (var stage : this.stages) {
+            count += stage.count;
+        }
+        return count;
+    }
+
+    /** Size of the bit arrays in bytes. */
+    long bytes() {
+        long bytes = 0;
+        for (var stage : this.stages) {
+            bytes += stage.words.length * 8L;
+        }
+        return bytes;
+    }
+
+    boolean mightContain(long fingerprint) {
+        long second = TransactionCodec.mix(fingerprint);
+        for (int i = this.stages.size() - 1; i >= 0; --i) {
+            if (this.stages.get(i).mightContain(fingerprint, second)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void add(long fingerprint) {
+        var stage = this.stages.isEmpty() ? null : this.stages.getLast();
+        if (stage == null || stage.count >= stage.capacity) {
+            int index = this.stages.size();
+            stage = new Stage(
+                    this.initialCapacity << Math.min(index, 30),
+                    this.falsePositiveRate * (1 - TIGHTENING) * Math.pow(TIGHTENING, index));
+            this.stages.add(stage);
+        }
+        stage.add(fingerprint, TransactionCodec.mix(fingerprint));
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(this.falsePositiveRate);
+        out.writeLong(this.initialCapacity);
+        out.writeInt(this.stages.size());
+        for (var stage : this.stages) {
+            out.writeLong(stage.capacity);
+            out.writeLong(stage.count);
+            out.writeInt(stage.hashes);
+            out.writeLong(stage.bits);
+            for (long word : stage.words) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * Reads a filter written by {@link #writeTo}, whose bit arrays take at
+     * most {@code maxBytes} bytes.
+     */
+    static BloomFilter readFrom(DataInput in, long maxBytes) throws IOException {
+        var filter = new BloomFilter(in.readDouble(), in.readLong());
+        int stages = in.readInt();
+        for (int i = 0; i < stages; ++i) {
+            long capacity = in.readLong();
+            long count = in.readLong();
+            int hashes = in.readInt();
+            long bits = in.readLong();
+            if (capacity <= 0 || count < 0 || hashes <= 0 || bits <= 0 || bits / 8 > maxBytes) {
+                throw new IOException("Invalid Bloom filter stage");
+            }
+            var stage = new Stage(capacity, count, hashes, bits);
+            for (int j = 0; j < stage.words.length; ++j) {
+                stage.words[j] = in.readLong();
+            }
+            filter.stages.add(stage);
+        }
+        return filter;
+    }
+
+    private static final class Stage {
+
+        final long capacity;
+        final int hashes;
+        final long bits;
+        final long[] words;
+        long count;
+
+        Stage(long capacity, double falsePositiveRate) {
+            // The optimal size and number of hashes for the capacity and rate
+            this(capacity, 0,
+                    (int) Math.max(1, Math.ceil(-Math.log(falsePositiveRate) / Math.log(2))),
+                    Math.min(Integer.MAX_VALUE * 64L, Math.max(64,
+                            (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))))));
+        }
+
+        Stage(long capacity, long count, int hashes, long bits) {
+            this.capacity = capacity;
+            this.count = count;
+            this.hashes = hashes;
+            this.bits = bits;
+            this.words = new long[(int) ((bits + 63) >>> 6)];
+        }
+
+        boolean mightContain(long first, long second) {
+            long combined = first;
+            for (int i = 0; i < this.hashes; ++i) {
+                long bit = (combined & Long.MAX_VALUE) % this.bits;
+                if ((this.words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+                combined += second;
+            }
+            return true;
+        }
+
+        void add(long first, long second) {
+            long combined = first;
+            for (int i = 0; i < this.hashes; ++i) {
+                long bit = (combined & Long.MAX_VALUE) % this.bits;
+                this.words[(int) (bit >>> 6)] |= 1L << bit;
+                combined += second;
+            }
+            ++this.count;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package tech.yaxi.demo.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+/**
+ * Tells transactions that are already in the {@link TransactionStore} by
+ * the {@link TransactionCodec#fingerprint fingerprint} of their records.
+ *
+ * A {@link BloomFilter} on the heap answers most lookups: a transaction it
+ * hasn't seen is new for sure. Only when it says "maybe" does the store
+ * look up the fingerprint in the {@link FingerprintTable} on disk and
+ * compare the records at the locations found.
+ *
+ * Both survive restarts. At every {@link #checkpoint}, the table is forced
+ * to disk and the filter is written to {@code bloom.dat} along with the
+ * last record it covers; on startup, the store only adds the records after
+ * that. A filter that is missing, damaged or was built for another false
+ * positive rate is rebuilt from the table. Not thread-safe;
+ * {@link TransactionStore} guards it, except for {@link #stats}, which
+ * reads the counters and the sizes as of the latest {@link #publish}.
+ */
+final class DuplicateDetector implements Closeable {
+
+    static final String FILTER_FILE = "bloom.dat";
+    static final String TABLE_FILE = "fingerprints.dat";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DuplicateDetector.class);
+    private static final int MAGIC = 0x59584246;
+    private static final int VERSION = 1;
+
+    private final Path filterPath;
+    private final FingerprintTable table;
+    private final BloomFilter filter;
+    private long covered;
+    /** Whether {@code bloom.dat} holds the filter as of {@link #covered}. */
+    private boolean saved;
+    // Written by the appending thread only
+    private volatile long checked;
+    private volatile long maybe;
+    private volatile long dropped;
+    private volatile Sizes sizes;
+
+    private DuplicateDetector(
+            Path filterPath, FingerprintTable table, BloomFilter filter, long covered, boolean saved) {
+        this.filterPath = filterPath;
+        this.table = table;
+        this.filter = filter;
+        this.covered = covered;
+        this.saved = saved;
+        publish();
+    }
+
+    /**
+     * Opens the detector of the store in {@code directory}, whose last
+     * record is at {@code lastLocation} (-1 if it's empty).
+     */
+    static DuplicateDetector open(
+            Path directory, double falsePositiveRate, long initialCapacity, long lastLocation) throws IOException {
+        var tablePath = directory.resolve(TABLE_FILE);
+        var table = FingerprintTable.open(tablePath);
+        try {
+            if (table.covered() > lastLocation) {
+                // The segments it was built from are gone
+                LOGGER.warn("Rebuilding {}, which is ahead of the store", tablePath);
+                table.close();
+                Files.delete(tablePath);
+                table = FingerprintTable.open(tablePath);
+            }
+            var filterPath = directory.resolve(FILTER_FILE);
+            var filter = new BloomFilter(falsePositiveRate, initialCapacity);
+            long covered = table.covered();
+            var saved = load(filterPath);
+            boolean usable = saved != null && saved.covered <= lastLocation
+                    && saved.filter.falsePositiveRate() == falsePositiveRate
+                    && saved.filter.initialCapacity() == initialCapacity;
+            if (usable) {
+                filter = saved.filter;
+                covered = Math.min(covered, saved.covered);
+            } else {
+                table.forEachFingerprint(filter::add);
+            }
+            return new DuplicateDetector(filterPath, table, filter, covered, usable && covered == saved.covered);
+        } catch (IOException | RuntimeException e) {
+            table.close();
+            throw e;
+        }
+    }
+
+    /** Location of the last record known to be in both filter and table, or -1. */
+    long covered() {
+        return this.covered;
+    }
+
+    /**
+     * Whether a record with {@code fingerprint} may be stored already.
+     */
+    boolean mightContain(long fingerprint) {
+        ++this.checked;
+        if (this.filter.mightContain(fingerprint)) {
+            ++this.maybe;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Passes the location of every stored record that may have
+     * {@code fingerprint} to {@code consumer}.
+     */
+    void forEachCandidate(long fingerprint, LongConsumer consumer) {
+        this.table.forEach(fingerprint, consumer);
+    }
+
+    /**
+     * Adds a new record to the filter, before it's stored.
+     */
+    void add(long fingerprint) {
+        this.filter.add(fingerprint);
+    }
+
+    /**
+     * Adds the location of a stored record to the table.
+     */
+    void index(long fingerprint, long location) throws IOException {
+        this.table.add(fingerprint, location);
+    }
+
+    /**
+     * Adds a stored record that may already be known, on startup.
+     */
+    void restore(long fingerprint, long location) throws IOException {
+        if (!this.filter.mightContain(fingerprint)) {
+            this.filter.add(fingerprint);
+        }
+        this.table.add(fingerprint, location);
+    }
+
+    void dropped() {
+        ++this.dropped;
+    }
+
+    /**
+     * Persists filter and table, which now cover the records up to
+     * {@code location}. The caller makes sure that these records are on
+     * disk.
+     */
+    void checkpoint(long location) throws IOException {
+        if (location == this.covered && this.saved) {
+            return;
+        }
+        this.table.checkpoint(location);
+        var tmp = this.filterPath.resolveSibling(FILTER_FILE + ".tmp");
+        try (var channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            var out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            var checked = new CheckedOutputStream(out, new CRC32C());
+            var data = new DataOutputStream(checked);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeLong(location);
+            this.filter.writeTo(data);
+            data.flush();
+            new DataOutputStream(out).writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, this.filterPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.covered = location;
+        this.saved = true;
+    }
+
+    /**
+     * Makes the current sizes of filter and table available to
+     * {@link #stats}.
+     */
+    void publish() {
+        this.sizes = new Sizes(this.filter.stages(), this.filter.bytes(), this.table.size(), this.table.bytes());
+    }
+
+    TransactionStore.Duplicates stats() {
+        var sizes = this.sizes;
+        return new TransactionStore.Duplicates(this.checked, this.maybe, this.dropped,
+                this.filter.falsePositiveRate(), sizes.filterStages(), sizes.filterBytes(),
+                sizes.indexed(), sizes.indexBytes());
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.table.close();
+    }
+
+    /**
+     * Reads a saved filter, or returns {@code null} if there is none or it
+     * is damaged.
+     */
+    @Nullable
+    private static SavedFilter load(Path path) {
+        try (var in = new BufferedInputStream(Files.newInputStream(path), 64 * 1024)) {
+            long size = Files.size(path);
+            var checked = new CheckedInputStream(in, new CRC32C());
+            var data = new DataInputStream(checked);
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                throw new IOException("Not a Bloom filter of version " + VERSION);
+            }
+            long covered = data.readLong();
+            var filter = BloomFilter.readFrom(data, size);
+            int checksum = (int) checked.getChecksum().getValue();
+            if (new DataInputStream(in).readInt() != checksum) {
+                throw new IOException("Checksum mismatch");
+            }
+            return new SavedFilter(filter, covered);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Rebuilding the Bloom filter, as {} can't be read: {}", path, e.toString());
+            return null;
+        }
+    }
+
+    private record SavedFilter(BloomFilter filter, long covered) {
+    }
+
+    private record Sizes(int filterStages, long filterBytes, int indexed, long indexBytes) {
+    }
+}
@@ -0,0 +1,218 @@
+package tech.yaxi.demo.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Multimap from a record fingerprint to record locations in an
+ * open-addressing table with linear probing, kept in a memory-mapped file
+ * rather than on the heap:
+ *
+ * <pre>
+ * magic, version, slot count, entry count   (4 bytes each)
+ * covered location                          (8 bytes)
+ * slots: fingerprint, location              (8 bytes each)
+ * </pre>
+ *
+ * Location 0 marks a free slot, as no record starts there. The covered
+ * location is the last record whose entry was on disk at the latest
+ * {@link #checkpoint}; entries after it may be missing or stale after a
+ * crash, so the store adds them again on startup and compares the records
+ * of every candidate location anyway. When it's two thirds full, the table
+ * is rewritten at twice the size into a new file that replaces the old one.
+ * Not thread-safe; {@link TransactionStore} guards it.
+ */
+final class FingerprintTable implements Closeable {
+
+    private static final int MAGIC = 0x59584650;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int SLOT_SIZE = 16;
+    private static final int MIN_SLOTS = 1024;
+    /** The most slots that fit into a single mapping. */
+    private static final int MAX_SLOTS = 1 << 26;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slots;
+    private int size;
+    private long covered;
+
+    private FingerprintTable(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slots = buffer.getInt(8);
+        this.size = buffer.getInt(12);
+        this.covered = buffer.getLong(16);
+    }
+
+    /**
+     * Opens the table at {@code path}, or creates an empty one if there is
+     * none or it can't be used.
+     *
+     * @return the table, which covers nothing if it was created
+     */
+    static FingerprintTable open(Path path) throws IOException {
+        if (Files.exists(path)) {
+            var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                long size = channel.size();
+                if (size >= HEADER_SIZE && size <= Integer.MAX_VALUE) {
+                    var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                    int slots = buffer.getInt(8);
+                    if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION
+                            && Integer.bitCount(slots) == 1 && size == HEADER_SIZE + (long) slots * SLOT_SIZE) {
+                        return new FingerprintTable(path, channel, buffer);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            channel.close();
+        }
+        var tmp = create(path, MIN_SLOTS);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /** Size of the file in bytes. */
+    long bytes() {
+        return this.buffer.capacity();
+    }
+
+    /** Location of the last record covered by the latest checkpoint, or -1. */
+    long covered() {
+        return this.covered;
+    }
+
+    /**
+     * Adds an entry, unless the table already has it.
+     */
+    void add(long fingerprint, long location) throws IOException {
+        int mask = this.slots - 1;
+        int slot = (int) fingerprint & mask;
+        for (long stored; (stored = location(this.buffer, slot)) != 0; slot = (slot + 1) & mask) {
+            if (stored == location && fingerprint(this.buffer, slot) == fingerprint) {
+                return;
+            }
+        }
+        if ((this.size + 1) * 3L > this.slots * 2L) {
+            grow();
+            add(fingerprint, location);
+            return;
+        }
+        put(this.buffer, slot, fingerprint, location);
+        this.buffer.putInt(12, ++this.size);
+    }
+
+    /**
+     * Passes the location of every entry with {@code fingerprint} to
+     * {@code consumer}.
+     */
+    void forEach(long fingerprint, LongConsumer consumer) {
+        int mask = this.slots - 1;
+        for (int slot = (int) fingerprint & mask; location(this.buffer, slot) != 0; slot = (slot + 1) & mask) {
+            if (fingerprint(this.buffer, slot) == fingerprint) {
+                consumer.accept(location(this.buffer, slot));
+            }
+        }
+    }
+
+    /**
+     * Passes every fingerprint in the table to {@code consumer}.
+     */
+    void forEachFingerprint(LongConsumer consumer) {
+        for (int slot = 0; slot < this.slots; ++slot) {
+            if (location(this.buffer, slot) != 0) {
+                consumer.accept(fingerprint(this.buffer, slot));
+            }
+        }
+    }
+
+    /**
+     * Forces the entries to disk and then records that they cover all
+     * records up to {@code location}.
+     */
+    void checkpoint(long location) {
+        this.buffer.force();
+        this.buffer.putLong(16, location);
+        this.buffer.force(0, HEADER_SIZE);
+        this.covered = location;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.buffer.force();
+        this.channel.close();
+    }
+
+    private void grow() throws IOException {
+        if (this.slots >= MAX_SLOTS) {
+            throw new IOException("Fingerprint table " + this.path + " is full");
+        }
+        var tmp = create(this.path, this.slots * 2);
+        try (var channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int mask = this.slots * 2 - 1;
+            for (int i = 0; i < this.slots; ++i) {
+                long location = location(this.buffer, i);
+                if (location != 0) {
+                    long fingerprint = fingerprint(this.buffer, i);
+                    int slot = (int) fingerprint & mask;
+                    while (location(buffer, slot) != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    put(buffer, slot, fingerprint, location);
+                }
+            }
+            buffer.putInt(12, this.size).putLong(16, this.covered);
+            buffer.force();
+        }
+        this.channel.close();
+        Files.move(tmp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.channel = FileChannel.open(this.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, this.channel.size());
+        this.slots *= 2;
+    }
+
+    /**
+     * Writes an empty table with {@code slots} slots next to {@code path}
+     * and returns its path.
+     */
+    private static Path create(Path path, int slots) throws IOException {
+        var tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * SLOT_SIZE);
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, slots).putInt(12, 0).putLong(16, -1);
+            buffer.force();
+        }
+        return tmp;
+    }
+
+    private static long fingerprint(MappedByteBuffer buffer, int slot) {
+        return buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE);
+    }
+
+    private static long location(MappedByteBuffer buffer, int slot) {
+        return buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE + 8);
+    }
+
+    private static void put(MappedByteBuffer buffer, int slot, long fingerprint, long location) {
+        buffer.putLong(HEADER_SIZE + slot * SLOT_SIZE, fingerprint).putLong(HEADER_SIZE + slot * SLOT_SIZE + 8, location);
+    }
+}
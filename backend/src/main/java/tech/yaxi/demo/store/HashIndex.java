@@ -0,0 +1,83 @@
+package tech.yaxi.demo.store;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Multimap from a 32 bit key hash to record locations, in an open-addressing
+ * table of two primitive arrays with linear probing.
+ *
+ * Several records may share a key (or just its hash), so lookups return all
+ * candidate locations and the caller compares the actual keys. Entries are
+ * never removed. Not thread-safe; {@link TransactionStore} guards it.
+ */
+final class HashIndex {
+
+    private static final long EMPTY = -1;
+
+    private int[] hashes;
+    private long[] locations;
+    private int size;
+
+    HashIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        this.hashes = new int[capacity];
+        this.locations = new long[capacity];
+        Arrays.fill(this.locations, EMPTY);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    void add(int hash, long location) {
+        if ((this.size + 1) * 3L > this.locations.length * 2L) {
+            resize();
+        }
+        insert(this.hashes, this.locations, hash, location);
+        ++this.size;
+    }
+
+    /**
+     * Passes the location of every entry with {@code hash} to
+     * {@code consumer}, in insertion order.
+     */
+    void forEach(int hash, LongConsumer consumer) {
+        int mask = this.locations.length - 1;
+        for (int slot = hash & mask; this.locations[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (this.hashes[slot] == hash) {
+                consumer.accept(this.locations[slot]);
+            }
+        }
+    }
+
+    private void resize() {
+        var hashes = new int[this.hashes.length * 2];
+        var locations = new long[this.locations.length * 2];
+        Arrays.fill(locations, EMPTY);
+        // Reinserting in slot order keeps entries of one hash in insertion order
+        int mask = this.locations.length - 1;
+        int start = 0;
+        while (this.locations[start] != EMPTY) {
+            start = (start + 1) & mask;
+        }
+        for (int i = 1; i <= this.locations.length; ++i) {
+            int slot = (start + i) & mask;
+            if (this.locations[slot] != EMPTY) {
+                insert(hashes, locations, this.hashes[slot], this.locations[slot]);
+            }
+        }
+        this.hashes = hashes;
+        this.locations = locations;
+    }
+
+    private static void insert(int[] hashes, long[] locations, int hash, long location) {
+        int mask = locations.length - 1;
+        int slot = hash & mask;
+        while (locations[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        locations[slot] = location;
+    }
+}
@@ -0,0 +1,233 @@
+package tech.yaxi.demo.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * A segment file of the {@link TransactionStore}, mapped into memory as a
+ * whole.
+ *
+ * After an 8 byte file header, the segment holds batches of records, each
+ * written by one {@link #append} call:
+ *
+ * <pre>
+ * magic, records length, record count, CRC32C   (4 bytes each)
+ * records                                       (see TransactionCodec)
+ * footer: per record its offset within the records, a flags word and the
+ *         hashes of its entry and account servicer reference (4 bytes each)
+ * </pre>
+ *
+ * The batch magic is written last, so the first slot without it ends the
+ * segment. The checksum covers records and footer and tells torn writes
+ * apart after a crash, as the pages of a mapping reach the disk in no
+ * particular order.
+ */
+final class Segment implements Closeable {
+
+    static final int HEADER_SIZE = 8;
+    static final int BATCH_HEADER_SIZE = 16;
+    static final int FOOTER_ENTRY_SIZE = 16;
+    static final int HAS_ENTRY_REFERENCE = 1;
+    static final int HAS_ACCOUNT_SERVICER_REFERENCE = 2;
+
+    private static final int MAGIC = 0x59585453;
+    private static final int VERSION = 1;
+    private static final int BATCH_MAGIC = 0x59584231;
+
+    /**
+     * Receives the footer entries of the batches found by {@link #scan}.
+     */
+    interface FooterConsumer {
+        void accept(int recordOffset, int flags, int entryReferenceHash, int accountServicerReferenceHash);
+    }
+
+    final int index;
+    final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    /** Shared by readers, which only use absolute gets. */
+    final ByteBuffer readBuffer;
+    /** Offset after the last committed batch, read by stats without the append lock. */
+    private volatile int end;
+
+    private Segment(int index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.index = index;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.readBuffer = buffer.asReadOnlyBuffer();
+        this.end = HEADER_SIZE;
+    }
+
+    static Segment create(int index, Path path, int capacity) throws IOException {
+        var channel = FileChannel.open(
+                path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(0, MAGIC).putInt(4, VERSION);
+            buffer.force(0, HEADER_SIZE);
+            return new Segment(index, path, channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static Segment open(int index, Path path) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid segment size " + size + " of " + path);
+            }
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(path + " is not a transaction store segment of version " + VERSION);
+            }
+            return new Segment(index, path, channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether the file at {@code path} is a segment that was created but
+     * never got its header, which is what a crash right after
+     * {@link #create} leaves behind.
+     */
+    static boolean isBlank(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var header = ByteBuffer.allocate(HEADER_SIZE);
+            return channel.read(header, 0) < HEADER_SIZE || header.getLong(0) == 0;
+        }
+    }
+
+    static int batchSize(int recordsLength, int count) {
+        return BATCH_HEADER_SIZE + recordsLength + count * FOOTER_ENTRY_SIZE;
+    }
+
+    int end() {
+        return this.end;
+    }
+
+    int remaining() {
+        return this.buffer.capacity() - this.end;
+    }
+
+    /**
+     * Writes a batch of {@code count} records with their footer after the
+     * last one and returns the offset of its first record. With
+     * {@code sync}, the batch is on disk when this returns. The caller makes
+     * sure that it fits.
+     */
+    int append(ByteBuffer records, ByteBuffer footer, int count, boolean sync) {
+        int position = this.end;
+        int recordsLength = records.remaining();
+        int size = batchSize(recordsLength, count);
+        this.buffer.put(position + BATCH_HEADER_SIZE, records, records.position(), recordsLength);
+        this.buffer.put(position + BATCH_HEADER_SIZE + recordsLength, footer, footer.position(), footer.remaining());
+        this.buffer.putInt(position + 4, recordsLength)
+                .putInt(position + 8, count)
+                .putInt(position + 12, checksum(position, recordsLength, count));
+        this.buffer.putInt(position, BATCH_MAGIC);
+        if (sync) {
+            this.buffer.force(position, size);
+        }
+        this.end = position + size;
+        return position + BATCH_HEADER_SIZE;
+    }
+
+    /**
+     * Passes the footer entries of all committed batches to
+     * {@code consumer}, without looking at the records, and sets the end of
+     * the segment after the last one. With {@code verify}, batches are also
+     * checked against their checksum.
+     *
+     * @return whether the batches end cleanly, i.e. not with a torn batch
+     */
+    boolean scan(boolean verify, FooterConsumer consumer) {
+        int position = HEADER_SIZE;
+        int capacity = this.buffer.capacity();
+        boolean clean = true;
+        while (position + BATCH_HEADER_SIZE <= capacity && this.buffer.getInt(position) == BATCH_MAGIC) {
+            int recordsLength = this.buffer.getInt(position + 4);
+            int count = this.buffer.getInt(position + 8);
+            if (recordsLength < 0 || count < 0
+                    || (long) position + BATCH_HEADER_SIZE + recordsLength + (long) count * FOOTER_ENTRY_SIZE > capacity
+                    || verify && this.buffer.getInt(position + 12) != checksum(position, recordsLength, count)) {
+                clean = false;
+                break;
+            }
+            int records = position + BATCH_HEADER_SIZE;
+            int footer = records + recordsLength;
+            for (int i = 0; i < count; ++i) {
+                int entry = footer + i * FOOTER_ENTRY_SIZE;
+                consumer.accept(
+                        records + this.buffer.getInt(entry),
+                        this.buffer.getInt(entry + 4),
+                        this.buffer.getInt(entry + 8),
+                        this.buffer.getInt(entry + 12));
+            }
+            position = footer + count * FOOTER_ENTRY_SIZE;
+        }
+        this.end = position;
+        return clean;
+    }
+
+    /**
+     * Passes the offset of every record in the committed batches to
+     * {@code consumer}, in the order they were appended.
+     */
+    void forEachRecord(IntConsumer consumer) {
+        int position = HEADER_SIZE;
+        while (position < this.end) {
+            int recordsLength = this.buffer.getInt(position + 4);
+            int count = this.buffer.getInt(position + 8);
+            int records = position + BATCH_HEADER_SIZE;
+            int footer = records + recordsLength;
+            for (int i = 0; i < count; ++i) {
+                consumer.accept(records + this.buffer.getInt(footer + i * FOOTER_ENTRY_SIZE));
+            }
+            position = footer + count * FOOTER_ENTRY_SIZE;
+        }
+    }
+
+    /**
+     * Zeroes everything after the end, e.g. the remains of a torn batch, so
+     * that it isn't mistaken for a batch later on.
+     */
+    void truncate() {
+        var zeros = new byte[64 * 1024];
+        for (int position = this.end; position < this.buffer.capacity(); position += zeros.length) {
+            this.buffer.put(position, zeros, 0, Math.min(zeros.length, this.buffer.capacity() - position));
+        }
+        this.buffer.force();
+    }
+
+    void force() {
+        this.buffer.force();
+    }
+
+    private int checksum(int position, int recordsLength, int count) {
+        var crc = new CRC32C();
+        crc.update(this.buffer.slice(position + BATCH_HEADER_SIZE, recordsLength + count * FOOTER_ENTRY_SIZE));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Closes the file. The mapping stays valid until it is garbage
+     * collected, so readers still holding a view don't crash.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
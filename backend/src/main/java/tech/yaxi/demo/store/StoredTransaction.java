@@ -0,0 +1,110 @@
+package tech.yaxi.demo.store;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.springframework.lang.Nullable;
+import tech.yaxi.demo.model.Transaction;
+
+import static tech.yaxi.demo.store.TransactionCodec.BOOKING_DATE_OFFSET;
+import static tech.yaxi.demo.store.TransactionCodec.LENGTH_OFFSET;
+import static tech.yaxi.demo.store.TransactionCodec.NO_DATE;
+import static tech.yaxi.demo.store.TransactionCodec.REFERENCES_OFFSET;
+import static tech.yaxi.demo.store.TransactionCodec.STATUS_OFFSET;
+import static tech.yaxi.demo.store.TransactionCodec.TICKET_ID_OFFSET;
+import static tech.yaxi.demo.store.TransactionCodec.VALUE_DATE_OFFSET;
+
+/**
+ * A transaction in the {@link TransactionStore}, read in place from its
+ * memory-mapped segment.
+ *
+ * The header fields are read straight from the mapping without copying the
+ * record; only {@link #toTransaction()} decodes all of it.
+ */
+public final class StoredTransaction {
+
+    private static final Transaction.Status[] STATUSES = Transaction.Status.values();
+
+    private final ByteBuffer buffer;
+    private final int offset;
+
+    StoredTransaction(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /** Size of the encoded record in bytes. */
+    public int size() {
+        return this.buffer.getInt(this.offset + LENGTH_OFFSET);
+    }
+
+    /** ID of the ticket whose result contained the transaction. */
+    public UUID ticketId() {
+        return new UUID(
+                this.buffer.getLong(this.offset + TICKET_ID_OFFSET),
+                this.buffer.getLong(this.offset + TICKET_ID_OFFSET + 8));
+    }
+
+    @Nullable
+    public Transaction.Status status() {
+        int status = this.buffer.get(this.offset + STATUS_OFFSET);
+        return status == 0 ? null : STATUSES[status - 1];
+    }
+
+    @Nullable
+    public LocalDate bookingDate() {
+        return date(BOOKING_DATE_OFFSET);
+    }
+
+    @Nullable
+    public LocalDate valueDate() {
+        return date(VALUE_DATE_OFFSET);
+    }
+
+    @Nullable
+    public String entryReference() {
+        return TransactionCodec.getString(new TransactionCodec.Input(this.buffer, this.offset + REFERENCES_OFFSET));
+    }
+
+    @Nullable
+    public String accountServicerReference() {
+        return TransactionCodec.getString(new TransactionCodec.Input(this.buffer, accountServicerReferenceOffset()));
+    }
+
+    public Transaction toTransaction() {
+        return TransactionCodec.decode(this.buffer, this.offset);
+    }
+
+    boolean entryReferenceEquals(byte[] reference) {
+        return bytesEqual(this.offset + REFERENCES_OFFSET, reference);
+    }
+
+    boolean accountServicerReferenceEquals(byte[] reference) {
+        return bytesEqual(accountServicerReferenceOffset(), reference);
+    }
+
+    private int accountServicerReferenceOffset() {
+        int entryReferenceLength = this.buffer.getInt(this.offset + REFERENCES_OFFSET);
+        return this.offset + REFERENCES_OFFSET + 4 + Math.max(0, entryReferenceLength);
+    }
+
+    /** Compares the length-prefixed string at {@code position} with {@code bytes}. */
+    private boolean bytesEqual(int position, byte[] bytes) {
+        if (this.buffer.getInt(position) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; ++i) {
+            if (this.buffer.get(position + 4 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private LocalDate date(int fieldOffset) {
+        long day = this.buffer.getLong(this.offset + fieldOffset);
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+}
@@ -0,0 +1,614 @@
+package tech.yaxi.demo.store;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import tech.yaxi.demo.model.Amount;
+import tech.yaxi.demo.model.Transaction;
+import tech.yaxi.demo.model.Transaction.Bai2TransactionCode;
+import tech.yaxi.demo.model.Transaction.BankTransactionCode;
+import tech.yaxi.demo.model.Transaction.BatchData;
+import tech.yaxi.demo.model.Transaction.BatchDetails;
+import tech.yaxi.demo.model.Transaction.ExchangeRate;
+import tech.yaxi.demo.model.Transaction.Fee;
+import tech.yaxi.demo.model.Transaction.IsoBankTransactionCode;
+import tech.yaxi.demo.model.Transaction.NationalBankTransactionCode;
+import tech.yaxi.demo.model.Transaction.OtherBankTransactionCode;
+import tech.yaxi.demo.model.Transaction.Party;
+import tech.yaxi.demo.model.Transaction.SwiftTransactionCode;
+
+/**
+ * Binary encoding of a {@link Transaction} in the store.
+ *
+ * A record starts with a fixed header that {@link StoredTransaction} reads
+ * in place: its length, the ticket ID, status, booking and value date,
+ * followed by the two indexed references. The remaining fields follow in
+ * declaration order. Strings are UTF-8 with an {@code int} length, dates are
+ * epoch days, decimals their unscaled bytes and scale; {@code -1} lengths,
+ * {@link #NO_DATE} and zero tags mark absent values, so records round-trip
+ * to equal transactions.
+ */
+final class TransactionCodec {
+
+    static final int LENGTH_OFFSET = 0;
+    static final int TICKET_ID_OFFSET = 4;
+    static final int STATUS_OFFSET = 20;
+    static final int BOOKING_DATE_OFFSET = 21;
+    static final int VALUE_DATE_OFFSET = 29;
+    /** Offset of the entry reference, followed by the account servicer reference. */
+    static final int REFERENCES_OFFSET = 37;
+    static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final Transaction.Status[] STATUSES = Transaction.Status.values();
+
+    private static final byte NUMBER_INT = 1;
+    private static final byte NUMBER_LONG = 2;
+    private static final byte NUMBER_DOUBLE = 3;
+    private static final byte NUMBER_FLOAT = 4;
+    private static final byte NUMBER_BIG_INTEGER = 5;
+    private static final byte NUMBER_BIG_DECIMAL = 6;
+
+    private static final byte CODE_ISO = 1;
+    private static final byte CODE_SWIFT = 2;
+    private static final byte CODE_BAI = 3;
+    private static final byte CODE_NATIONAL = 4;
+    private static final byte CODE_OTHER = 5;
+
+    private TransactionCodec() {
+    }
+
+    /**
+     * Appends the record for {@code transaction} of ticket {@code ticketId}
+     * to {@code out}.
+     */
+    static void encode(UUID ticketId, Transaction transaction, Output out) {
+        int start = out.size();
+        out.putInt(0);
+        out.putLong(ticketId.getMostSignificantBits());
+        out.putLong(ticketId.getLeastSignificantBits());
+        out.putByte(transaction.status() == null ? 0 : transaction.status().ordinal() + 1);
+        putDate(out, transaction.bookingDate().orElse(null));
+        putDate(out, transaction.valueDate().orElse(null));
+        putString(out, transaction.entryReference().orElse(null));
+        putString(out, transaction.accountServicerReference().orElse(null));
+
+        putNullable(out, transaction.batch().orElse(null), TransactionCodec::putBatch);
+        putDate(out, transaction.transactionDate().orElse(null));
+        putString(out, transaction.paymentId().orElse(null));
+        putString(out, transaction.transactionId().orElse(null));
+        putString(out, transaction.endToEndId().orElse(null));
+        putString(out, transaction.mandateId().orElse(null));
+        putString(out, transaction.creditorId().orElse(null));
+        putNullable(out, transaction.amount(), TransactionCodec::putAmount);
+        putBoolean(out, transaction.reversal().orElse(null));
+        putNullable(out, transaction.originalAmount().orElse(null), TransactionCodec::putAmount);
+        putList(out, transaction.exchanges(), TransactionCodec::putExchangeRate);
+        putList(out, transaction.fees(), TransactionCodec::putFee);
+        putNullable(out, transaction.creditor().orElse(null), TransactionCodec::putParty);
+        putNullable(out, transaction.debtor().orElse(null), TransactionCodec::putParty);
+        putList(out, transaction.remittanceInformation(), TransactionCodec::putString);
+        putString(out, transaction.purposeCode().orElse(null));
+        putList(out, transaction.bankTransactionCodes(), TransactionCodec::putBankTransactionCode);
+        putString(out, transaction.additionalInformation().orElse(null));
+        out.putInt(start, out.size() - start);
+    }
+
+    /**
+     * Decodes the record at {@code offset} of {@code buffer}.
+     */
+    static Transaction decode(ByteBuffer buffer, int offset) {
+        var in = new Input(buffer, offset + STATUS_OFFSET);
+        int status = in.getByte();
+        var bookingDate = getDate(in);
+        var valueDate = getDate(in);
+        var entryReference = getString(in);
+        var accountServicerReference = getString(in);
+        return new Transaction(
+                Optional.ofNullable(entryReference),
+                Optional.ofNullable(getNullable(in, TransactionCodec::getBatch)),
+                Optional.ofNullable(bookingDate),
+                Optional.ofNullable(valueDate),
+                Optional.ofNullable(getDate(in)),
+                status == 0 ? null : STATUSES[status - 1],
+                Optional.ofNullable(accountServicerReference),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                getNullable(in, TransactionCodec::getAmount),
+                Optional.ofNullable(getBoolean(in)),
+                Optional.ofNullable(getNullable(in, TransactionCodec::getAmount)),
+                getList(in, TransactionCodec::getExchangeRate),
+                getList(in, TransactionCodec::getFee),
+                Optional.ofNullable(getNullable(in, TransactionCodec::getParty)),
+                Optional.ofNullable(getNullable(in, TransactionCodec::getParty)),
+                getList(in, TransactionCodec::getString),
+                Optional.ofNullable(getString(in)),
+                getList(in, TransactionCodec::getBankTransactionCode),
+                Optional.ofNullable(getString(in)));
+    }
+
+    /**
+     * Hash of a reference's UTF-8 bytes, as kept in batch footers and the
+     * index.
+     */
+    static int hash(byte[] bytes) {
+        int h = 0;
+        for (byte b : bytes) {
+            h = 31 * h + b;
+        }
+        return mix(h);
+    }
+
+    static int hash(ByteBuffer buffer, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            h = 31 * h + buffer.get(i);
+        }
+        return mix(h);
+    }
+
+    /**
+     * 64 bit hash of the record at {@code offset}, without its length and
+     * ticket ID. Records of equal transactions have the same fingerprint,
+     * whichever result they came with.
+     */
+    static long fingerprint(ByteBuffer buffer, int offset) {
+        int end = offset + buffer.getInt(offset + LENGTH_OFFSET);
+        int position = offset + STATUS_OFFSET;
+        long h = 0x9E3779B97F4A7C15L * (end - position);
+        for (; position + 8 <= end; position += 8) {
+            h = Long.rotateLeft(h ^ buffer.getLong(position) * 0x87C37B91114253D5L, 31) * 0x4CF5AD432745937FL;
+        }
+        for (; position < end; ++position) {
+            h = (h ^ buffer.get(position)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Whether the records at {@code offset} of {@code buffer} and at
+     * {@code otherOffset} of {@code other} are of equal transactions, i.e.
+     * equal but for the ticket ID.
+     */
+    static boolean sameTransaction(ByteBuffer buffer, int offset, ByteBuffer other, int otherOffset) {
+        int length = buffer.getInt(offset + LENGTH_OFFSET);
+        if (other.getInt(otherOffset + LENGTH_OFFSET) != length) {
+            return false;
+        }
+        return buffer.slice(offset + STATUS_OFFSET, length - STATUS_OFFSET)
+                .mismatch(other.slice(otherOffset + STATUS_OFFSET, length - STATUS_OFFSET)) < 0;
+    }
+
+    /** The murmur3 finalizer, so that similar references spread over the index. */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    /** The 64 bit murmur3 finalizer. */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static void putBatch(Output out, BatchData batch) {
+        putNumber(out, batch.numberOfTransactions().orElse(null));
+        putList(out, batch.transactions(), TransactionCodec::putBatchDetails);
+    }
+
+    private static BatchData getBatch(Input in) {
+        return new BatchData(Optional.ofNullable(getNumber(in)), getList(in, TransactionCodec::getBatchDetails));
+    }
+
+    private static void putBatchDetails(Output out, BatchDetails details) {
+        putString(out, details.accountServicerReference().orElse(null));
+        putString(out, details.paymentId().orElse(null));
+        putString(out, details.transactionId().orElse(null));
+        putString(out, details.endToEndId().orElse(null));
+        putString(out, details.mandateId().orElse(null));
+        putString(out, details.creditorId().orElse(null));
+        putNullable(out, details.amount().orElse(null), TransactionCodec::putAmount);
+        putBoolean(out, details.reversal().orElse(null));
+        putNullable(out, details.originalAmount().orElse(null), TransactionCodec::putAmount);
+        putList(out, details.exchanges(), TransactionCodec::putExchangeRate);
+        putList(out, details.fees(), TransactionCodec::putFee);
+        putNullable(out, details.creditor().orElse(null), TransactionCodec::putParty);
+        putNullable(out, details.debtor().orElse(null), TransactionCodec::putParty);
+        putList(out, details.remittanceInformation(), TransactionCodec::putString);
+        putString(out, details.purposeCode().orElse(null));
+        putList(out, details.bankTransactionCodes(), TransactionCodec::putBankTransactionCode);
+        putString(out, details.additionalInformation().orElse(null));
+    }
+
+    private static BatchDetails getBatchDetails(Input in) {
+        return new BatchDetails(
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getNullable(in, TransactionCodec::getAmount)),
+                Optional.ofNullable(getBoolean(in)),
+                Optional.ofNullable(getNullable(in, TransactionCodec::getAmount)),
+                getList(in, TransactionCodec::getExchangeRate),
+                getList(in, TransactionCodec::getFee),
+                Optional.ofNullable(getNullable(in, TransactionCodec::getParty)),
+                Optional.ofNullable(getNullable(in, TransactionCodec::getParty)),
+                getList(in, TransactionCodec::getString),
+                Optional.ofNullable(getString(in)),
+                getList(in, TransactionCodec::getBankTransactionCode),
+                Optional.ofNullable(getString(in)));
+    }
+
+    private static void putAmount(Output out, Amount amount) {
+        putString(out, amount.currency());
+        putDecimal(out, amount.amount());
+    }
+
+    private static Amount getAmount(Input in) {
+        return new Amount(getString(in), getDecimal(in));
+    }
+
+    private static void putExchangeRate(Output out, ExchangeRate rate) {
+        putString(out, rate.sourceCurrency());
+        putString(out, rate.targetCurrency().orElse(null));
+        putString(out, rate.unitCurrency().orElse(null));
+        putDecimal(out, rate.exchangeRate());
+    }
+
+    private static ExchangeRate getExchangeRate(Input in) {
+        return new ExchangeRate(
+                getString(in),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                getDecimal(in));
+    }
+
+    private static void putFee(Output out, Fee fee) {
+        putNullable(out, fee.amount(), TransactionCodec::putAmount);
+        putString(out, fee.kind().orElse(null));
+        putString(out, fee.bic().orElse(null));
+    }
+
+    private static Fee getFee(Input in) {
+        return new Fee(
+                getNullable(in, TransactionCodec::getAmount),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)));
+    }
+
+    private static void putParty(Output out, Party party) {
+        putString(out, party.name().orElse(null));
+        putString(out, party.iban().orElse(null));
+        putString(out, party.bic().orElse(null));
+        putString(out, party.ultimate().orElse(null));
+    }
+
+    private static Party getParty(Input in) {
+        return new Party(
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)),
+                Optional.ofNullable(getString(in)));
+    }
+
+    private static void putBankTransactionCode(Output out, @Nullable BankTransactionCode code) {
+        switch (code) {
+            case null -> out.putByte(0);
+            case IsoBankTransactionCode iso -> {
+                out.putByte(CODE_ISO);
+                putString(out, iso.domain());
+                putString(out, iso.family());
+                putString(out, iso.subFamily());
+            }
+            case SwiftTransactionCode swift -> {
+                out.putByte(CODE_SWIFT);
+                putString(out, swift.swift());
+            }
+            case Bai2TransactionCode bai -> {
+                out.putByte(CODE_BAI);
+                putString(out, bai.bai());
+            }
+            case NationalBankTransactionCode national -> {
+                out.putByte(CODE_NATIONAL);
+                putString(out, national.code());
+                putString(out, national.country());
+            }
+            case OtherBankTransactionCode other -> {
+                out.putByte(CODE_OTHER);
+                putString(out, other.code());
+                putString(out, other.issuer().orElse(null));
+            }
+            default -> throw new IllegalArgumentException("Unknown bank transaction code " + code.getClass());
+        }
+    }
+
+    @Nullable
+    private static BankTransactionCode getBankTransactionCode(Input in) {
+        return switch (in.getByte()) {
+            case 0 -> null;
+            case CODE_ISO -> new IsoBankTransactionCode(getString(in), getString(in), getString(in));
+            case CODE_SWIFT -> new SwiftTransactionCode(getString(in));
+            case CODE_BAI -> new Bai2TransactionCode(getString(in));
+            case CODE_NATIONAL -> new NationalBankTransactionCode(getString(in), getString(in));
+            case CODE_OTHER -> new OtherBankTransactionCode(getString(in), Optional.ofNullable(getString(in)));
+            default -> throw new IllegalStateException("Corrupt bank transaction code");
+        };
+    }
+
+    /**
+     * Numbers keep their type, so that they compare equal after decoding.
+     */
+    private static void putNumber(Output out, @Nullable Number number) {
+        switch (number) {
+            case null -> out.putByte(0);
+            case Integer i -> {
+                out.putByte(NUMBER_INT);
+                out.putInt(i);
+            }
+            case Long l -> {
+                out.putByte(NUMBER_LONG);
+                out.putLong(l);
+            }
+            case Double d -> {
+                out.putByte(NUMBER_DOUBLE);
+                out.putLong(Double.doubleToRawLongBits(d));
+            }
+            case Float f -> {
+                out.putByte(NUMBER_FLOAT);
+                out.putInt(Float.floatToRawIntBits(f));
+            }
+            case BigInteger i -> {
+                out.putByte(NUMBER_BIG_INTEGER);
+                putBytes(out, i.toByteArray());
+            }
+            case BigDecimal d -> {
+                out.putByte(NUMBER_BIG_DECIMAL);
+                putDecimal(out, d);
+            }
+            default -> throw new IllegalArgumentException("Unsupported number type " + number.getClass());
+        }
+    }
+
+    @Nullable
+    private static Number getNumber(Input in) {
+        return switch (in.getByte()) {
+            case 0 -> null;
+            case NUMBER_INT -> in.getInt();
+            case NUMBER_LONG -> in.getLong();
+            case NUMBER_DOUBLE -> Double.longBitsToDouble(in.getLong());
+            case NUMBER_FLOAT -> Float.intBitsToFloat(in.getInt());
+            case NUMBER_BIG_INTEGER -> new BigInteger(getBytes(in));
+            case NUMBER_BIG_DECIMAL -> getDecimal(in);
+            default -> throw new IllegalStateException("Corrupt number");
+        };
+    }
+
+    private static void putDecimal(Output out, @Nullable BigDecimal value) {
+        if (value == null) {
+            out.putInt(-1);
+        } else {
+            putBytes(out, value.unscaledValue().toByteArray());
+            out.putInt(value.scale());
+        }
+    }
+
+    @Nullable
+    private static BigDecimal getDecimal(Input in) {
+        var unscaled = getBytes(in);
+        return unscaled == null ? null : new BigDecimal(new BigInteger(unscaled), in.getInt());
+    }
+
+    private static void putDate(Output out, @Nullable LocalDate date) {
+        out.putLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    @Nullable
+    private static LocalDate getDate(Input in) {
+        long day = in.getLong();
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    private static void putBoolean(Output out, @Nullable Boolean value) {
+        out.putByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    @Nullable
+    private static Boolean getBoolean(Input in) {
+        int value = in.getByte();
+        return value == 0 ? null : value == 2;
+    }
+
+    private static void putString(Output out, @Nullable String value) {
+        putBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nullable
+    static String getString(Input in) {
+        var bytes = getBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(Output out, @Nullable byte[] bytes) {
+        if (bytes == null) {
+            out.putInt(-1);
+        } else {
+            out.putInt(bytes.length);
+            out.putBytes(bytes);
+        }
+    }
+
+    @Nullable
+    private static byte[] getBytes(Input in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        in.getBytes(bytes);
+        return bytes;
+    }
+
+    private static <T> void putNullable(Output out, @Nullable T value, BiConsumer<Output, T> writer) {
+        if (value == null) {
+            out.putByte(0);
+        } else {
+            out.putByte(1);
+            writer.accept(out, value);
+        }
+    }
+
+    @Nullable
+    private static <T> T getNullable(Input in, Function<Input, T> reader) {
+        return in.getByte() == 0 ? null : reader.apply(in);
+    }
+
+    /**
+     * Writes a list's size ({@code -1} for {@code null}) and its elements,
+     * which may be {@code null} themselves.
+     */
+    private static <T> void putList(Output out, @Nullable List<T> list, BiConsumer<Output, T> writer) {
+        if (list == null) {
+            out.putInt(-1);
+            return;
+        }
+        out.putInt(list.size());
+        for (var element : list) {
+            putNullable(out, element, writer);
+        }
+    }
+
+    @Nullable
+    private static <T> List<T> getList(Input in, Function<Input, T> reader) {
+        int size = in.getInt();
+        if (size < 0) {
+            return null;
+        }
+        if (size == 0) {
+            return List.of();
+        }
+        var list = new ArrayList<T>(size);
+        for (int i = 0; i < size; ++i) {
+            list.add(getNullable(in, reader));
+        }
+        return list;
+    }
+
+    /**
+     * Growable buffer that records are encoded into before they are copied
+     * into a segment.
+     */
+    static final class Output {
+        private ByteBuffer buffer;
+
+        Output(int capacity) {
+            this.buffer = ByteBuffer.allocate(capacity);
+        }
+
+        int size() {
+            return this.buffer.position();
+        }
+
+        void clear() {
+            this.buffer.clear();
+        }
+
+        /** Drops everything after the first {@code size} bytes. */
+        void truncate(int size) {
+            this.buffer.position(size);
+        }
+
+        /** The encoded bytes, as a buffer positioned at 0. */
+        ByteBuffer flip() {
+            return this.buffer.duplicate().flip();
+        }
+
+        void putByte(int value) {
+            ensure(1).put((byte) value);
+        }
+
+        void putInt(int value) {
+            ensure(4).putInt(value);
+        }
+
+        void putInt(int index, int value) {
+            this.buffer.putInt(index, value);
+        }
+
+        void putLong(long value) {
+            ensure(8).putLong(value);
+        }
+
+        void putBytes(byte[] bytes) {
+            ensure(bytes.length).put(bytes);
+        }
+
+        private ByteBuffer ensure(int length) {
+            if (this.buffer.remaining() < length) {
+                int capacity = Math.max(this.buffer.capacity() * 2, this.buffer.position() + length);
+                this.buffer = ByteBuffer.allocate(capacity)
+                        .put(Arrays.copyOf(this.buffer.array(), this.buffer.position()));
+            }
+            return this.buffer;
+        }
+    }
+
+    /**
+     * Reads a record with absolute gets, so that concurrent readers can
+     * share a segment's buffer.
+     */
+    static final class Input {
+        private final ByteBuffer buffer;
+        private int position;
+
+        Input(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        int position() {
+            return this.position;
+        }
+
+        int getByte() {
+            return this.buffer.get(this.position++);
+        }
+
+        int getInt() {
+            int value = this.buffer.getInt(this.position);
+            this.position += 4;
+            return value;
+        }
+
+        long getLong() {
+            long value = this.buffer.getLong(this.position);
+            this.position += 8;
+            return value;
+        }
+
+        void getBytes(byte[] bytes) {
+            this.buffer.get(this.position, bytes);
+            this.position += bytes.length;
+        }
+    }
+}
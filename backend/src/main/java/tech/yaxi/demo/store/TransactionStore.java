@@ -0,0 +1,520 @@
+package tech.yaxi.demo.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+/**
+ * Append-only store of verified transactions in memory-mapped segment files
+ * under {@code yaxi.store.path}, with hash indexes on the entry reference
+ * and the account servicer reference.
+ *
+ * Each {@link #append} writes one batch (see {@link Segment}) and, with
+ * {@code yaxi.store.sync}, forces it to disk once for all of its records.
+ * Fed by the {@code store} result sink, that's one sync per batch of the
+ * {@link tech.yaxi.demo.sink.ResultDispatcher}. A segment holds
+ * {@code yaxi.store.segmentSize} bytes (or a single larger batch); when a
+ * batch doesn't fit, the next segment is started.
+ *
+ * The indexes map a reference's hash to the location (segment and offset)
+ * of each record. On startup they are rebuilt from the batch footers alone,
+ * without decoding any record, and a torn batch at the end of the last
+ * segment is discarded. Lookups return {@link StoredTransaction} views into
+ * the mapped segments. Appends are serialized; lookups only wait for the
+ * short moment in which an append publishes its index entries.
+ *
+ * With {@code yaxi.store.dedup.enabled}, transactions that are stored
+ * already, e.g. bookings in the overlapping windows of several results, are
+ * dropped before they are written. A {@link DuplicateDetector} finds them
+ * with a Bloom filter of {@code yaxi.store.dedup.falsePositiveRate} and
+ * only compares the records on disk when the filter says "maybe".
+ */
+@Component
+@ConditionalOnProperty(name = "yaxi.store.enabled", havingValue = "true")
+public class TransactionStore implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionStore.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{6})\\.dat");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean sync;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    // Guarded by appendLock
+    private final TransactionCodec.Output records = new TransactionCodec.Output(64 * 1024);
+    private final TransactionCodec.Output footer = new TransactionCodec.Output(4 * 1024);
+    // Guarded by indexLock
+    private final List<Segment> segments = new ArrayList<>();
+    private final HashIndex entryReferences = new HashIndex(1024);
+    private final HashIndex accountServicerReferences = new HashIndex(1024);
+    private long transactions;
+    private boolean closed;
+    // Guarded by appendLock
+    @Nullable
+    private DuplicateDetector duplicates;
+    private long[] fingerprints = new long[1024];
+    private long lastLocation = -1;
+
+    public TransactionStore(Path directory, DataSize segmentSize, boolean sync) throws IOException {
+        this(directory, segmentSize, sync, false, 0.01, 1_000_000);
+    }
+
+    @Autowired
+    public TransactionStore(
+            @Value("${yaxi.store.path:store}") Path directory,
+            @Value("${yaxi.store.segmentSize:64MB}") DataSize segmentSize,
+            @Value("${yaxi.store.sync:true}") boolean sync,
+            @Value("${yaxi.store.dedup.enabled:false}") boolean dedup,
+            @Value("${yaxi.store.dedup.falsePositiveRate:0.01}") double falsePositiveRate,
+            @Value("${yaxi.store.dedup.initialCapacity:1000000}") long initialCapacity) throws IOException {
+        this(directory, (int) Math.min(segmentSize.toBytes(), Integer.MAX_VALUE), sync,
+                dedup, falsePositiveRate, initialCapacity);
+    }
+
+    TransactionStore(Path directory, int segmentSize, boolean sync) throws IOException {
+        this(directory, segmentSize, sync, false, 0.01, 1_000_000);
+    }
+
+    TransactionStore(
+            Path directory,
+            int segmentSize,
+            boolean sync,
+            boolean dedup,
+            double falsePositiveRate,
+            long initialCapacity) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+        Files.createDirectories(directory);
+        open();
+        if (dedup) {
+            try {
+                openDuplicateDetector(falsePositiveRate, initialCapacity);
+            } catch (IOException | RuntimeException e) {
+                closeSegments();
+                throw e;
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        var paths = new ArrayList<Path>();
+        try (var files = Files.list(this.directory)) {
+            files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .forEach(paths::add);
+        }
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < paths.size(); ++i) {
+                if (i == paths.size() - 1 && Segment.isBlank(paths.get(i))) {
+                    // Created right before a crash, so nothing was appended to it
+                    LOGGER.warn("Discarding the empty segment {}", paths.get(i));
+                    Files.delete(paths.get(i));
+                    break;
+                }
+                var segment = Segment.open(i, paths.get(i));
+                this.segments.add(segment);
+                // Earlier segments were complete when the next one was started
+                boolean last = i == paths.size() - 1;
+                if (!segment.scan(last, (offset, flags, entryReferenceHash, accountServicerReferenceHash) -> {
+                    index(segment.index, offset, flags, entryReferenceHash, accountServicerReferenceHash);
+                    this.lastLocation = (long) segment.index << 32 | offset;
+                })) {
+                    LOGGER.warn("Discarding a torn batch at offset {} of {}", segment.end(), segment.path);
+                    segment.truncate();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            closeSegments();
+            throw e;
+        }
+        if (!this.segments.isEmpty()) {
+            LOGGER.info("Indexed {} transactions in {} segment(s) of {} in {} ms",
+                    this.transactions, this.segments.size(), this.directory, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Opens the duplicate detector and adds the records it doesn't cover
+     * yet, i.e. those appended after its last checkpoint.
+     */
+    private void openDuplicateDetector(double falsePositiveRate, long initialCapacity) throws IOException {
+        long start = System.nanoTime();
+        var detector = DuplicateDetector.open(this.directory, falsePositiveRate, initialCapacity, this.lastLocation);
+        try {
+            long covered = detector.covered();
+            long[] restored = new long[1];
+            int first = covered < 0 ? 0 : (int) (covered >>> 32);
+            for (var segment : this.segments.subList(first, this.segments.size())) {
+                var records = segment.readBuffer;
+                segment.forEachRecord(offset -> {
+                    long location = (long) segment.index << 32 | offset;
+                    if (location > covered) {
+                        try {
+                            detector.restore(TransactionCodec.fingerprint(records, offset), location);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        ++restored[0];
+                    }
+                });
+            }
+            detector.checkpoint(this.lastLocation);
+            detector.publish();
+            LOGGER.info("Opened the duplicate detector of {} with {} new transaction(s) in {} ms",
+                    this.directory, restored[0], (System.nanoTime() - start) / 1_000_000);
+        } catch (UncheckedIOException e) {
+            detector.close();
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            detector.close();
+            throw e;
+        }
+        this.duplicates = detector;
+    }
+
+    /**
+     * Appends the transactions of {@code results} as one batch. With
+     * duplicate detection, transactions that are stored already, or come
+     * with an earlier result of the batch, are left out. Equal records of
+     * the same result are distinct bookings and are all kept.
+     */
+    public void append(List<TicketResult<List<Transaction>>> results) throws IOException {
+        this.appendLock.lock();
+        try {
+            if (this.closed) {
+                throw new IOException("Transaction store is closed");
+            }
+            this.records.clear();
+            this.footer.clear();
+            int count = 0;
+            for (var result : results) {
+                if (result.data() == null) {
+                    continue;
+                }
+                int resultStart = count;
+                for (var transaction : result.data()) {
+                    int offset = this.records.size();
+                    TransactionCodec.encode(result.id(), transaction, this.records);
+                    if (this.duplicates != null && isDuplicate(offset, count, resultStart)) {
+                        this.records.truncate(offset);
+                        continue;
+                    }
+                    addFooterEntry(offset);
+                    ++count;
+                }
+            }
+            if (count == 0) {
+                return;
+            }
+
+            long size = Segment.batchSize(this.records.size(), count);
+            var segment = activeSegment(size);
+            int recordsStart = segment.append(this.records.flip(), this.footer.flip(), count, this.sync);
+
+            this.indexLock.writeLock().lock();
+            try {
+                var footer = this.footer.flip();
+                for (int i = 0; i < count; ++i) {
+                    int entry = i * Segment.FOOTER_ENTRY_SIZE;
+                    index(segment.index,
+                            recordsStart + footer.getInt(entry),
+                            footer.getInt(entry + 4),
+                            footer.getInt(entry + 8),
+                            footer.getInt(entry + 12));
+                }
+            } finally {
+                this.indexLock.writeLock().unlock();
+            }
+            this.lastLocation = (long) segment.index << 32
+                    | recordsStart + this.footer.flip().getInt((count - 1) * Segment.FOOTER_ENTRY_SIZE);
+            if (this.duplicates != null) {
+                var footer = this.footer.flip();
+                for (int i = 0; i < count; ++i) {
+                    int offset = recordsStart + footer.getInt(i * Segment.FOOTER_ENTRY_SIZE);
+                    this.duplicates.index(this.fingerprints[i], (long) segment.index << 32 | offset);
+                }
+                this.duplicates.publish();
+            }
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    /**
+     * Whether the record just encoded at {@code offset} is of a transaction
+     * that is stored already or among the first {@code earlier} records of
+     * the batch, which came with earlier results. If not, its fingerprint is
+     * kept for indexing as the record at {@code count}.
+     */
+    private boolean isDuplicate(int offset, int count, int earlier) {
+        var records = this.records.flip();
+        long fingerprint = TransactionCodec.fingerprint(records, offset);
+        if (this.duplicates.mightContain(fingerprint)) {
+            boolean[] found = new boolean[1];
+            this.duplicates.forEachCandidate(fingerprint, location ->
+                    found[0] = found[0] || isStored(location, records, offset));
+            var footer = this.footer.flip();
+            for (int i = 0; i < earlier && !found[0]; ++i) {
+                found[0] = this.fingerprints[i] == fingerprint && TransactionCodec.sameTransaction(
+                        records, footer.getInt(i * Segment.FOOTER_ENTRY_SIZE), records, offset);
+            }
+            if (found[0]) {
+                this.duplicates.dropped();
+                return true;
+            }
+        }
+        this.duplicates.add(fingerprint);
+        if (count == this.fingerprints.length) {
+            this.fingerprints = Arrays.copyOf(this.fingerprints, count * 2);
+        }
+        this.fingerprints[count] = fingerprint;
+        return false;
+    }
+
+    /**
+     * Whether a stored record at {@code location} is of the same
+     * transaction as the record at {@code offset} of {@code records}. The
+     * location may be stale, see {@link FingerprintTable}.
+     */
+    private boolean isStored(long location, ByteBuffer records, int offset) {
+        int index = (int) (location >>> 32);
+        int position = (int) location;
+        if (index >= this.segments.size() || position + TransactionCodec.STATUS_OFFSET > this.segments.get(index).end()) {
+            return false;
+        }
+        var segment = this.segments.get(index);
+        int length = segment.readBuffer.getInt(position + TransactionCodec.LENGTH_OFFSET);
+        return length >= TransactionCodec.STATUS_OFFSET && (long) position + length <= segment.end()
+                && TransactionCodec.sameTransaction(segment.readBuffer, position, records, offset);
+    }
+
+    public List<StoredTransaction> findByEntryReference(String entryReference) {
+        var reference = entryReference.getBytes(StandardCharsets.UTF_8);
+        return find(this.entryReferences, reference, transaction -> transaction.entryReferenceEquals(reference));
+    }
+
+    public List<StoredTransaction> findByAccountServicerReference(String accountServicerReference) {
+        var reference = accountServicerReference.getBytes(StandardCharsets.UTF_8);
+        return find(this.accountServicerReferences, reference,
+                transaction -> transaction.accountServicerReferenceEquals(reference));
+    }
+
+    /**
+     * Passes every stored transaction to {@code consumer}, in the order they
+     * were appended. Appends wait until it returns.
+     */
+    public void forEach(Consumer<StoredTransaction> consumer) {
+        this.appendLock.lock();
+        try {
+            if (this.closed) {
+                throw new IllegalStateException("Transaction store is closed");
+            }
+            for (var segment : this.segments) {
+                segment.forEachRecord(offset -> consumer.accept(new StoredTransaction(segment.readBuffer, offset)));
+            }
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        this.indexLock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (var segment : this.segments) {
+                bytes += segment.end();
+            }
+            var duplicates = this.duplicates;
+            return new Stats(this.segments.size(), this.transactions, bytes,
+                    duplicates == null ? null : duplicates.stats());
+        } finally {
+            this.indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces pending writes to disk and closes the segment files. Views
+     * handed out before stay readable.
+     */
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        this.appendLock.lock();
+        this.indexLock.writeLock().lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            if (!this.sync) {
+                this.segments.forEach(Segment::force);
+            }
+            if (this.duplicates != null) {
+                try {
+                    this.duplicates.checkpoint(this.lastLocation);
+                } finally {
+                    this.duplicates.close();
+                }
+            }
+            closeSegments();
+        } finally {
+            this.indexLock.writeLock().unlock();
+            this.appendLock.unlock();
+        }
+    }
+
+    private void closeSegments() throws IOException {
+        IOException failure = null;
+        for (var segment : this.segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private List<StoredTransaction> find(
+            HashIndex index, byte[] reference, Predicate<StoredTransaction> matches) {
+        int hash = TransactionCodec.hash(reference);
+        var found = new ArrayList<StoredTransaction>();
+        this.indexLock.readLock().lock();
+        try {
+            if (this.closed) {
+                throw new IllegalStateException("Transaction store is closed");
+            }
+            index.forEach(hash, location -> {
+                var transaction = new StoredTransaction(
+                        this.segments.get((int) (location >>> 32)).readBuffer, (int) location);
+                if (matches.test(transaction)) {
+                    found.add(transaction);
+                }
+            });
+        } finally {
+            this.indexLock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Returns the segment to write a batch of {@code size} bytes to,
+     * starting a new one if needed.
+     */
+    private Segment activeSegment(long size) throws IOException {
+        var active = this.segments.isEmpty() ? null : this.segments.getLast();
+        if (active != null && active.remaining() >= size) {
+            return active;
+        }
+        long capacity = Math.max(this.segmentSize, Segment.HEADER_SIZE + size);
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Batch of " + size + " bytes exceeds the maximum segment size");
+        }
+        if (active != null && !this.sync) {
+            active.force();
+        }
+        if (active != null && this.duplicates != null) {
+            // The records so far are on disk, so they can be covered
+            this.duplicates.checkpoint(this.lastLocation);
+        }
+        int index = this.segments.size();
+        var path = this.directory.resolve("segment-%06d.dat".formatted(index));
+        var segment = Segment.create(index, path, (int) capacity);
+        this.indexLock.writeLock().lock();
+        try {
+            this.segments.add(segment);
+        } finally {
+            this.indexLock.writeLock().unlock();
+        }
+        return segment;
+    }
+
+    private void addFooterEntry(int offset) {
+        var records = this.records.flip();
+        int entryReference = offset + TransactionCodec.REFERENCES_OFFSET;
+        int entryReferenceLength = records.getInt(entryReference);
+        int accountServicerReference = entryReference + 4 + Math.max(0, entryReferenceLength);
+        int accountServicerReferenceLength = records.getInt(accountServicerReference);
+
+        int flags = 0;
+        int entryReferenceHash = 0;
+        int accountServicerReferenceHash = 0;
+        if (entryReferenceLength >= 0) {
+            flags |= Segment.HAS_ENTRY_REFERENCE;
+            entryReferenceHash = TransactionCodec.hash(records, entryReference + 4, entryReferenceLength);
+        }
+        if (accountServicerReferenceLength >= 0) {
+            flags |= Segment.HAS_ACCOUNT_SERVICER_REFERENCE;
+            accountServicerReferenceHash =
+                    TransactionCodec.hash(records, accountServicerReference + 4, accountServicerReferenceLength);
+        }
+        this.footer.putInt(offset);
+        this.footer.putInt(flags);
+        this.footer.putInt(entryReferenceHash);
+        this.footer.putInt(accountServicerReferenceHash);
+    }
+
+    private void index(int segment, int offset, int flags, int entryReferenceHash, int accountServicerReferenceHash) {
+        long location = (long) segment << 32 | offset;
+        if ((flags & Segment.HAS_ENTRY_REFERENCE) != 0) {
+            this.entryReferences.add(entryReferenceHash, location);
+        }
+        if ((flags & Segment.HAS_ACCOUNT_SERVICER_REFERENCE) != 0) {
+            this.accountServicerReferences.add(accountServicerReferenceHash, location);
+        }
+        ++this.transactions;
+    }
+
+    /**
+     * Number of segments, transactions and bytes used in the segments, and
+     * the counters of duplicate detection if it's enabled.
+     */
+    public record Stats(int segments, long transactions, long bytes, @Nullable Duplicates duplicates) {
+    }
+
+    /**
+     * Transactions checked for duplicates, those the Bloom filter said
+     * "maybe" for, and those dropped as duplicates. The difference of the
+     * latter two are false positives. Also the size of the filter on the
+     * heap and of the fingerprint table on disk.
+     */
+    public record Duplicates(
+            long checked,
+            long maybe,
+            long dropped,
+            double falsePositiveRate,
+            int filterStages,
+            long filterBytes,
+            int indexed,
+            long indexBytes) {
+    }
+}
@@ -0,0 +1,103 @@
+package tech.yaxi.demo.web;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Decodes request bodies with a {@code Content-Encoding} of {@code gzip} or
+ * {@code deflate} while they are read, for {@link DecompressingFilter} and
+ * {@link DecompressingWebFilter}.
+ *
+ * Only the inflater's window and a small buffer are held in memory, the
+ * compressed body is never buffered as a whole. As a few kilobytes of gzip
+ * can expand to gigabytes, the decoded size is limited; reading beyond the
+ * limit fails with 413 Content Too Large.
+ */
+final class ContentDecoding {
+
+    static final String SUPPORTED = "gzip, deflate";
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentDecoding() {
+    }
+
+    /**
+     * Returns whether {@code encoding} needs decoding. A missing encoding and
+     * {@code identity} don't.
+     */
+    static boolean isEncoded(@Nullable String encoding) {
+        return encoding != null && !encoding.isBlank() && !encoding.trim().equalsIgnoreCase("identity");
+    }
+
+    static boolean isSupported(String encoding) {
+        return switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip", "deflate" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Wraps {@code in}, encoded with a {@linkplain #isSupported(String)
+     * supported} {@code encoding}, into a stream of at most {@code maxSize}
+     * decoded bytes. Reads the gzip header right away, so a body that isn't
+     * gzip fails here.
+     */
+    static InputStream decode(String encoding, InputStream in, long maxSize) throws IOException {
+        var decoded = switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(in, BUFFER_SIZE);
+            // HTTP's deflate is the zlib format (RFC 9110, section 8.4.1.2)
+            case "deflate" -> new InflaterInputStream(in);
+            default -> throw new IllegalArgumentException("Unsupported content encoding '" + encoding + "'");
+        };
+        return new LimitedInputStream(decoded, maxSize);
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.remaining = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                consumed(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            consumed(skipped);
+            return skipped;
+        }
+
+        private void consumed(long n) {
+            this.remaining -= n;
+            if (this.remaining < 0) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Decompressed body too large");
+            }
+        }
+    }
+}
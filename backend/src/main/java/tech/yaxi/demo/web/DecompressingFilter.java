@@ -0,0 +1,192 @@
+package tech.yaxi.demo.web;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Objects;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Decompresses gzip and deflate request bodies on the servlet stack while
+ * the controller reads them (see {@link ContentDecoding}). Other encodings
+ * are answered with 415 Unsupported Media Type.
+ *
+ * To the controller, a decompressed request looks like one that was sent
+ * without {@code Content-Encoding} and {@code Content-Length}.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class DecompressingFilter extends OncePerRequestFilter {
+
+    private final long maxSize;
+
+    @Autowired
+    public DecompressingFilter(@Value("${yaxi.webhook.decompression.maxSize:64MB}") DataSize maxSize) {
+        this.maxSize = maxSize.toBytes();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (!ContentDecoding.isEncoded(encoding)) {
+            chain.doFilter(request, response);
+        } else if (!ContentDecoding.isSupported(encoding)) {
+            response.setHeader(HttpHeaders.ACCEPT_ENCODING, ContentDecoding.SUPPORTED);
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+        } else {
+            chain.doFilter(new DecompressedRequest(request, encoding, this.maxSize), response);
+        }
+    }
+
+    private static final class DecompressedRequest extends HttpServletRequestWrapper {
+        private final String encoding;
+        private final long maxSize;
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        DecompressedRequest(HttpServletRequest request, String encoding, long maxSize) {
+            super(request);
+            this.encoding = encoding;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (this.inputStream == null) {
+                this.inputStream = new DecodingInputStream(
+                        this, ContentDecoding.decode(this.encoding, super.getInputStream(), this.maxSize));
+            }
+            return this.inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (this.reader == null) {
+                var encoding = getCharacterEncoding();
+                var charset = encoding == null ? StandardCharsets.ISO_8859_1 : Charset.forName(encoding);
+                this.reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return this.reader;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isHidden(name))
+                    .toList());
+        }
+
+        private static boolean isHidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * A blocking {@link ServletInputStream} over the decoded body. As the
+     * inflater can't tell whether a read would block, a {@link ReadListener}
+     * is told right away that data is available and, once the listener has
+     * read up to the end, that all of it was read.
+     */
+    private static final class DecodingInputStream extends ServletInputStream {
+        private final HttpServletRequest request;
+        private final InputStream in;
+        private boolean finished;
+        private ReadListener readListener;
+
+        DecodingInputStream(HttpServletRequest request, InputStream in) {
+            this.request = request;
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = this.in.read();
+            this.finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = this.in.read(b, off, len);
+            this.finished = n < 0;
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return this.finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            Objects.requireNonNull(readListener, "readListener");
+            if (!this.request.isAsyncStarted()) {
+                throw new IllegalStateException("Non-blocking reads require async processing");
+            }
+            if (this.readListener != null) {
+                throw new IllegalStateException("A ReadListener is set already");
+            }
+            this.readListener = readListener;
+            try {
+                readListener.onDataAvailable();
+                if (this.finished) {
+                    readListener.onAllDataRead();
+                }
+            } catch (IOException | RuntimeException e) {
+                readListener.onError(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package tech.yaxi.demo.web;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The {@link DecompressingFilter} for the reactive stack.
+ *
+ * The compressed data buffers are exposed as an input stream with bounded
+ * demand, inflated on a worker thread and passed on as data buffers again,
+ * so neither the compressed nor the decompressed body is buffered here.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class DecompressingWebFilter implements WebFilter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final long maxSize;
+
+    @Autowired
+    public DecompressingWebFilter(@Value("${yaxi.webhook.decompression.maxSize:64MB}") DataSize maxSize) {
+        this.maxSize = maxSize.toBytes();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var request = exchange.getRequest();
+        var encoding = request.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (!ContentDecoding.isEncoded(encoding)) {
+            return chain.filter(exchange);
+        }
+        if (!ContentDecoding.isSupported(encoding)) {
+            var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+            response.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, ContentDecoding.SUPPORTED);
+            return response.setComplete();
+        }
+        var decompressed = new DecompressedRequest(request, encoding, exchange, this.maxSize);
+        return chain.filter(exchange.mutate().request(decompressed).build());
+    }
+
+    private static final class DecompressedRequest extends ServerHttpRequestDecorator {
+        private final HttpHeaders headers;
+        private final Flux<DataBuffer> body;
+
+        DecompressedRequest(ServerHttpRequest request, String encoding, ServerWebExchange exchange, long maxSize) {
+            super(request);
+            var headers = new HttpHeaders();
+            headers.putAll(request.getHeaders());
+            headers.remove(HttpHeaders.CONTENT_ENCODING);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.body = DataBufferUtils.readInputStream(
+                            () -> ContentDecoding.decode(
+                                    encoding, DataBufferUtils.subscriberInputStream(request.getBody(), 1), maxSize),
+                            exchange.getResponse().bufferFactory(),
+                            BUFFER_SIZE)
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .onErrorMap(IOException.class,
+                            e -> new ServerWebInputException("Invalid " + encoding + " body", null, e));
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return this.headers;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return this.body;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package tech.yaxi.demo.web;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The {@link WebhookController} for the reactive stack (the
+ * {@code reactive} profile).
+ *
+ * The body is collected from its data buffers into a single array without
+ * blocking an event loop thread, and only then verified and decoded, off the
+ * event loop.
+ */
+@RestController
+@RequestMapping("/results")
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveWebhookController {
+
+    private final WebhookHandler webhookHandler;
+
+    @Autowired
+    public ReactiveWebhookController(WebhookHandler webhookHandler) {
+        this.webhookHandler = webhookHandler;
+    }
+
+    @CrossOrigin(origins = "*")
+    @PostMapping
+    Mono<ResponseEntity<Void>> processTransactions(@RequestBody Flux<DataBuffer> transactions) {
+        return DataBufferUtils.join(transactions)
+                .map(ReactiveWebhookController::toBytes)
+                .defaultIfEmpty(new byte[0])
+                .publishOn(Schedulers.boundedElastic())
+                .map(this.webhookHandler::handle);
+    }
+
+    @CrossOrigin(origins = "*")
+    @PostMapping("/batch")
+    Mono<ResponseEntity<List<WebhookHandler.BatchItem>>> processBatch(@RequestBody Flux<DataBuffer> body) {
+        return DataBufferUtils.join(body)
+                .map(ReactiveWebhookController::toBytes)
+                .defaultIfEmpty(new byte[0])
+                .publishOn(Schedulers.boundedElastic())
+                .map(this.webhookHandler::handleBatch);
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        try {
+            var bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
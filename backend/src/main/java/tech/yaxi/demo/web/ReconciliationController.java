@@ -0,0 +1,54 @@
+package tech.yaxi.demo.web;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tech.yaxi.demo.reconciliation.ReconciliationIndex;
+
+/**
+ * Queries the {@link ReconciliationIndex}. Without
+ * {@code yaxi.reconciliation.enabled}, all endpoints answer 404.
+ */
+@RestController
+@RequestMapping("/reconciliation")
+public class ReconciliationController {
+
+    @Nullable
+    private final ReconciliationIndex index;
+
+    @Autowired
+    public ReconciliationController(Optional<ReconciliationIndex> index) {
+        this.index = index.orElse(null);
+    }
+
+    /**
+     * Finds the transactions with the given transaction ID or end-to-end ID,
+     * each in its latest version and with its status transitions.
+     */
+    @GetMapping
+    ResponseEntity<List<ReconciliationIndex.Entry>> find(
+            @RequestParam(required = false) @Nullable String transactionId,
+            @RequestParam(required = false) @Nullable String endToEndId) {
+        if (this.index == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if ((transactionId == null) == (endToEndId == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(transactionId != null
+                ? this.index.findByTransactionId(transactionId)
+                : this.index.findByEndToEndId(endToEndId));
+    }
+
+    @GetMapping("/stats")
+    ResponseEntity<ReconciliationIndex.Stats> stats() {
+        return this.index == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(this.index.stats());
+    }
+}
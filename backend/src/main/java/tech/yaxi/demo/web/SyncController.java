@@ -0,0 +1,42 @@
+package tech.yaxi.demo.web;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import tech.yaxi.demo.AccountSync;
+
+/**
+ * Reports the {@link AccountSync} state. Without {@code yaxi.sync.enabled},
+ * all endpoints answer 404.
+ */
+@RestController
+@RequestMapping("/sync")
+public class SyncController {
+
+    @Nullable
+    private final AccountSync accountSync;
+
+    @Autowired
+    public SyncController(Optional<AccountSync> accountSync) {
+        this.accountSync = accountSync.orElse(null);
+    }
+
+    @GetMapping("/accounts/{iban}")
+    ResponseEntity<AccountSync.State> state(@PathVariable String iban) {
+        var state = this.accountSync == null ? null : this.accountSync.state(iban);
+        return state == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(state);
+    }
+
+    @GetMapping("/stats")
+    ResponseEntity<AccountSync.Stats> stats() {
+        return this.accountSync == null
+                ? ResponseEntity.notFound().build()
+                : ResponseEntity.ok(this.accountSync.stats());
+    }
+}
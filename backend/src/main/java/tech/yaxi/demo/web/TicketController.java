@@ -1,14 +1,24 @@
 package tech.yaxi.demo.web;
 
 import java.util.Map;
+import java.util.Optional;
 
+import com.fasterxml.jackson.databind.node.TextNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import tech.yaxi.demo.AccountSync;
+import tech.yaxi.demo.RoutexMetrics;
+import tech.yaxi.demo.Ticket;
+import tech.yaxi.demo.TicketRegistry;
 import tech.yaxi.demo.TicketService;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -18,16 +28,41 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 public class TicketController {
 
     private final TicketService ticketService;
+    private final RoutexMetrics metrics;
+    @Nullable
+    private final AccountSync accountSync;
 
     @Autowired
-    public TicketController(TicketService ticketService) {
+    public TicketController(TicketService ticketService, RoutexMetrics metrics, Optional<AccountSync> accountSync) {
         this.ticketService = ticketService;
+        this.metrics = metrics;
+        this.accountSync = accountSync.orElse(null);
     }
 
+    /**
+     * Issues a ticket and returns it as a JSON string. With
+     * {@link AccountSync}, transactions tickets only ask for bookings since
+     * the last sync of the account. While the {@link TicketRegistry} is
+     * full, answers 503 with a Retry-After of when the next tickets expire.
+     */
     @CrossOrigin(origins = "*")
     @PostMapping(produces = APPLICATION_JSON_VALUE)
-    String createTicket(@RequestParam("service") String service, @RequestBody Map<String, Object> ticketData) {
-        var ticket = ticketService.issueTicket(service, ticketData);
-        return "\"" + ticket.serialized() + "\"";
+    ResponseEntity<TextNode> createTicket(
+            @RequestParam("service") String service, @RequestBody Map<String, Object> ticketData) {
+        long start = System.nanoTime();
+        var data = this.accountSync == null ? ticketData : this.accountSync.ticketData(service, ticketData);
+        Ticket ticket;
+        try {
+            ticket = ticketService.issueTicket(service, data);
+        } catch (TicketRegistry.FullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(e.retryAfterSeconds()))
+                    .build();
+        }
+        if (this.accountSync != null) {
+            this.accountSync.ticketIssued(ticket.id(), service, data);
+        }
+        this.metrics.recordTicket(service, System.nanoTime() - start);
+        return ResponseEntity.ok(TextNode.valueOf(ticket.serialized()));
     }
 }
@@ -0,0 +1,96 @@
+package tech.yaxi.demo.web;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.analytics.Dimension;
+import tech.yaxi.demo.analytics.TransactionColumns;
+import tech.yaxi.demo.model.Transaction;
+import tech.yaxi.demo.store.StoredTransaction;
+import tech.yaxi.demo.store.TransactionStore;
+
+/**
+ * Queries the {@link TransactionStore} and aggregates the
+ * {@link TransactionColumns}. Without {@code yaxi.store.enabled} and
+ * {@code yaxi.analytics.enabled} respectively, the endpoints answer 404.
+ */
+@RestController
+@RequestMapping("/transactions")
+public class TransactionController {
+
+    @Nullable
+    private final TransactionStore store;
+    @Nullable
+    private final TransactionColumns columns;
+
+    @Autowired
+    public TransactionController(Optional<TransactionStore> store, Optional<TransactionColumns> columns) {
+        this.store = store.orElse(null);
+        this.columns = columns.orElse(null);
+    }
+
+    /**
+     * Finds the stored transactions with the given entry reference or
+     * account servicer reference, each with the ID of the ticket it was
+     * delivered for.
+     */
+    @GetMapping
+    ResponseEntity<List<TicketResult<Transaction>>> find(
+            @RequestParam(required = false) @Nullable String entryReference,
+            @RequestParam(required = false) @Nullable String accountServicerReference) {
+        if (this.store == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if ((entryReference == null) == (accountServicerReference == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        var found = entryReference != null
+                ? this.store.findByEntryReference(entryReference)
+                : this.store.findByAccountServicerReference(accountServicerReference);
+        return ResponseEntity.ok(found.stream().map(TransactionController::toResult).toList());
+    }
+
+    @GetMapping("/stats")
+    ResponseEntity<TransactionStore.Stats> stats() {
+        return this.store == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(this.store.stats());
+    }
+
+    /**
+     * Counts and sums the transactions booked between {@code from} and
+     * {@code to} by the comma-separated {@link Dimension dimensions}
+     * {@code groupBy}, largest groups first.
+     */
+    @GetMapping("/aggregate")
+    ResponseEntity<TransactionColumns.Aggregation> aggregate(
+            @RequestParam(defaultValue = "currency") List<String> groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Nullable LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Nullable LocalDate to,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (this.columns == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            var dimensions = groupBy.stream().map(Dimension::of).toList();
+            return ResponseEntity.ok(this.columns.aggregate(dimensions, from, to, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static TicketResult<Transaction> toResult(StoredTransaction transaction) {
+        return new TicketResult<>(transaction.ticketId(), transaction.toTransaction());
+    }
+}
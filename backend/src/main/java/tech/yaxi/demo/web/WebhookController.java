@@ -2,38 +2,46 @@ package tech.yaxi.demo.web;
 
 import java.util.List;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.convert.converter.Converter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import tech.yaxi.demo.TicketService;
-import tech.yaxi.demo.model.Transaction;
 
 @RestController
 @RequestMapping("/results")
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class WebhookController {
 
-    private final TicketService ticketService;
-    private final ObjectMapper objectMapper;
+    private final WebhookHandler webhookHandler;
 
     @Autowired
-    public WebhookController(TicketService ticketService, ObjectMapper objectMapper) {
-        this.ticketService = ticketService;
-        this.objectMapper = objectMapper;
+    public WebhookController(WebhookHandler webhookHandler) {
+        this.webhookHandler = webhookHandler;
     }
 
+    /**
+     * Processes a result right away, or, with {@code yaxi.webhook.async}
+     * enabled, only checks its signature and queues it for processing.
+     * Results that were already accepted are acknowledged right away.
+     */
     @CrossOrigin(origins = "*")
     @PostMapping
-    void processTransactions(@RequestBody String transactions) {
-        Converter<List<Object>, List<Transaction>> converter = (xs) -> xs.stream()
-                .map(transaction -> objectMapper.convertValue(transaction, Transaction.class))
-                .toList();
-        var result = ticketService.verifyResults(transactions, converter);
-        System.out.println(result.id());
-        System.out.println(result.data());
+    ResponseEntity<Void> processTransactions(@RequestBody byte[] transactions) {
+        return this.webhookHandler.handle(transactions);
+    }
+
+    /**
+     * Processes many results at once, given as one JWT per line or as a JSON
+     * array, and reports the outcome for each of them.
+     */
+    @CrossOrigin(origins = "*")
+    @PostMapping("/batch")
+    ResponseEntity<List<WebhookHandler.BatchItem>> processBatch(@RequestBody byte[] body) {
+        return this.webhookHandler.handleBatch(body);
     }
 }
@@ -0,0 +1,216 @@
+package tech.yaxi.demo.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import tech.yaxi.demo.InvalidResultException;
+import tech.yaxi.demo.ResultDeduplicator;
+import tech.yaxi.demo.ResultProcessor;
+import tech.yaxi.demo.ResultQueue;
+import tech.yaxi.demo.jfr.WebhookEvent;
+
+/**
+ * Handles results delivered to the webhook, independently of the web stack:
+ * {@link WebhookController} calls it on a servlet request thread,
+ * {@link ReactiveWebhookController} on a worker once the body has arrived.
+ */
+@Component
+public class WebhookHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebhookHandler.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String REJECTED = "rejected";
+    private static final String FAILED = "failed";
+
+    private final ResultProcessor resultProcessor;
+    private final ResultDeduplicator resultDeduplicator;
+    @Nullable
+    private final ResultQueue resultQueue;
+    private final long retryAfterSeconds;
+    private final int maxBatchItems;
+
+    @Autowired
+    public WebhookHandler(
+            ResultProcessor resultProcessor,
+            ResultDeduplicator resultDeduplicator,
+            Optional<ResultQueue> resultQueue,
+            @Value("${yaxi.webhook.retryAfterSeconds:5}") long retryAfterSeconds,
+            @Value("${yaxi.webhook.batch.maxItems:1000}") int maxBatchItems) {
+        this.resultProcessor = resultProcessor;
+        this.resultDeduplicator = resultDeduplicator;
+        this.resultQueue = resultQueue.orElse(null);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.maxBatchItems = maxBatchItems;
+    }
+
+    enum Outcome {
+        PROCESSED,
+        QUEUED,
+        DUPLICATE,
+        /** The queue is full. */
+        BUSY;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The outcome for one result of a batch. Rejected results and ones that
+     * failed to be processed carry the reason, processed ones their ticket
+     * ID.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record BatchItem(int index, String status, @Nullable UUID ticketId, @Nullable String error) {
+    }
+
+    /**
+     * Processes or queues a serialized result and returns the response for
+     * it. Blocks while the result is processed.
+     */
+    ResponseEntity<Void> handle(byte[] transactions) {
+        var outcome = process(transactions, null);
+        return switch (outcome) {
+            case PROCESSED, DUPLICATE -> ResponseEntity.ok().build();
+            case QUEUED -> ResponseEntity.accepted().build();
+            case BUSY -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(this.retryAfterSeconds))
+                    .build();
+        };
+    }
+
+    /**
+     * Processes or queues the results in a batch body, either one compact JWT
+     * per line or a JSON array of them, and returns the outcome for each.
+     * Each result is verified and processed on a virtual thread of its own,
+     * as sinks may block, and a result that is invalid or fails doesn't
+     * affect the others.
+     */
+    ResponseEntity<List<BatchItem>> handleBatch(byte[] body) {
+        List<byte[]> results;
+        try {
+            results = splitBatch(body);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (results.size() > this.maxBatchItems) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        var futures = new ArrayList<CompletableFuture<BatchItem>>(results.size());
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < results.size(); ++i) {
+                int index = i;
+                futures.add(CompletableFuture.supplyAsync(() -> processBatchItem(index, results.get(index)), executor));
+            }
+        }
+        return ResponseEntity.ok(futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    private BatchItem processBatchItem(int index, byte[] result) {
+        var ticketId = new UUID[1];
+        try {
+            var outcome = process(result, ticketId);
+            return new BatchItem(index, outcome.label(), ticketId[0], null);
+        } catch (InvalidResultException e) {
+            return new BatchItem(index, REJECTED, null, e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to process result {} of a batch", index, e);
+            return new BatchItem(index, FAILED, null, e.getMessage() == null ? e.toString() : e.getMessage());
+        }
+    }
+
+    /**
+     * Processes a single result. Invalid results throw an
+     * {@link InvalidResultException}; the ID of a processed result's ticket
+     * is stored in {@code ticketId} if given.
+     */
+    private Outcome process(byte[] transactions, @Nullable UUID[] ticketId) {
+        var event = new WebhookEvent();
+        event.begin();
+        event.payloadSize = transactions.length;
+        Outcome outcome = null;
+        try {
+            if (this.resultDeduplicator.isDuplicate(transactions)) {
+                outcome = Outcome.DUPLICATE;
+            } else if (this.resultQueue == null) {
+                var result = this.resultProcessor.process(transactions);
+                outcome = Outcome.PROCESSED;
+                if (ticketId != null) {
+                    ticketId[0] = result.id();
+                }
+                if (event.shouldCommit()) {
+                    event.ticketId = result.id().toString();
+                    event.transactions = result.data() == null ? 0 : result.data().size();
+                }
+            } else {
+                var signedResult = this.resultProcessor.checkSignature(transactions);
+                // Remembered by the worker once processed, so that a retry after
+                // a failure is processed again rather than acknowledged
+                if (this.resultQueue.offer(signedResult)) {
+                    outcome = Outcome.QUEUED;
+                } else {
+                    outcome = Outcome.BUSY;
+                }
+            }
+            return outcome;
+        } finally {
+            event.outcome = outcome == null ? REJECTED : outcome.label();
+            event.commit();
+        }
+    }
+
+    private static List<byte[]> splitBatch(byte[] body) throws IOException {
+        int start = 0;
+        while (start < body.length && Character.isWhitespace(body[start])) {
+            ++start;
+        }
+        var results = new ArrayList<byte[]>();
+        if (start < body.length && body[start] == '[') {
+            try (var parser = JSON_FACTORY.createParser(body)) {
+                parser.nextToken();
+                while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                    results.add(parser.getText().getBytes(StandardCharsets.US_ASCII));
+                }
+                if (parser.currentToken() != JsonToken.END_ARRAY) {
+                    throw new IOException("Expected an array of strings");
+                }
+            }
+            return results;
+        }
+        for (int lineStart = 0; lineStart < body.length; ) {
+            int lineEnd = lineStart;
+            while (lineEnd < body.length && body[lineEnd] != '\n') {
+                ++lineEnd;
+            }
+            int end = lineEnd;
+            while (end > lineStart && Character.isWhitespace(body[end - 1])) {
+                --end;
+            }
+            if (end > lineStart) {
+                results.add(Arrays.copyOfRange(body, lineStart, end));
+            }
+            lineStart = lineEnd + 1;
+        }
+        return results;
+    }
+}
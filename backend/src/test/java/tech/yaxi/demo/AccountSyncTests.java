@@ -0,0 +1,130 @@
+package tech.yaxi.demo;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.model.Transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccountSyncTests {
+
+    private static final String IBAN = "NL31YAXI1234567891";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final AccountSync sync = new AccountSync(16);
+
+    @Test
+    void testDropsBookingsSeenBefore() throws JsonProcessingException {
+        var first = List.of(
+                booking("2026-03-02", "c"),
+                booking("2026-03-01", "b"),
+                booking("2026-02-27", "a"));
+        assertThat(receive(first)).isEqualTo(first);
+        assertThat(this.sync.state(IBAN)).isEqualTo(new AccountSync.State(LocalDate.of(2026, 3, 2), "c", 1));
+
+        var pending = transaction("Pending", null, "p");
+        var second = List.of(booking("2026-03-03", "e"), booking("2026-03-02", "d"), booking("2026-03-02", "c"),
+                booking("2026-03-01", "b"), pending);
+        assertThat(receive(second)).containsExactly(second.get(0), second.get(1), pending);
+        assertThat(this.sync.state(IBAN)).isEqualTo(new AccountSync.State(LocalDate.of(2026, 3, 3), "e", 1));
+
+        // A booking on the boundary date that was not seen yet still passes
+        var third = List.of(booking("2026-03-03", "e"), booking("2026-03-03", "f"));
+        assertThat(receive(third)).containsExactly(third.get(1));
+        assertThat(this.sync.state(IBAN)).isEqualTo(new AccountSync.State(LocalDate.of(2026, 3, 3), "f", 2));
+
+        var stats = this.sync.stats();
+        assertThat(stats.accounts()).isEqualTo(1);
+        assertThat(stats.tickets()).isZero();
+        assertThat(stats.received()).isEqualTo(10);
+        assertThat(stats.dropped()).isEqualTo(3);
+    }
+
+    @Test
+    void testMovesTheRangeUpToTheLastBookingDate() throws JsonProcessingException {
+        Map<String, Object> data = Map.of("account", Map.of("iban", IBAN), "range", Map.of("from", "2026-01-01"));
+        assertThat(this.sync.ticketData("Transactions", data)).isSameAs(data);
+
+        receive(List.of(booking("2026-03-02", "a")));
+        assertThat(this.sync.ticketData("Transactions", data))
+                .isEqualTo(Map.of("account", Map.of("iban", IBAN), "range", Map.of("from", "2026-03-02")));
+        assertThat(this.sync.ticketData("Balances", data)).isSameAs(data);
+
+        Map<String, Object> later = Map.of("account", Map.of("iban", IBAN), "range", Map.of("from", "2026-04-01"));
+        assertThat(this.sync.ticketData("Transactions", later)).isSameAs(later);
+
+        // A range entirely in the past is left alone
+        Map<String, Object> past = Map.of("account", Map.of("iban", IBAN),
+                "range", Map.of("from", "2026-01-01", "to", "2026-02-01"));
+        assertThat(this.sync.ticketData("Transactions", past)).isSameAs(past);
+    }
+
+    @Test
+    void testPassesBookingsOfAnOlderWindowFetchedLater() throws JsonProcessingException {
+        var newer = List.of(booking("2026-03-02", "c"), booking("2026-03-01", "b"));
+        assertThat(receive(newer, Map.of("from", "2026-03-01"))).isEqualTo(newer);
+
+        // The range isn't moved up past dates that were never fetched
+        Map<String, Object> data = Map.of("account", Map.of("iban", IBAN), "range", Map.of("from", "2026-02-01"));
+        assertThat(this.sync.ticketData("Transactions", data)).isSameAs(data);
+
+        var older = List.of(booking("2026-03-01", "b"), booking("2026-02-28", "a2"), booking("2026-02-01", "a1"));
+        assertThat(receive(older, Map.of("from", "2026-02-01", "to", "2026-03-01")))
+                .containsExactly(older.get(1), older.get(2));
+        assertThat(this.sync.state(IBAN)).isEqualTo(new AccountSync.State(LocalDate.of(2026, 3, 2), "c", 1));
+
+        // Now that the older window adjoins the fetched dates, it is known as well
+        assertThat(receive(older, Map.of("from", "2026-02-01", "to", "2026-03-01"))).isEmpty();
+        assertThat(this.sync.ticketData("Transactions", data))
+                .isEqualTo(Map.of("account", Map.of("iban", IBAN), "range", Map.of("from", "2026-03-02")));
+    }
+
+    @Test
+    void testPassesBookingsAfterAGap() throws JsonProcessingException {
+        receive(List.of(booking("2026-03-02", "c")), Map.of());
+        receive(List.of(booking("2026-03-20", "e")), Map.of("from", "2026-03-10"));
+
+        // Nothing between the two ranges was fetched
+        var between = List.of(booking("2026-03-05", "d"), booking("2026-03-15", "f"));
+        assertThat(receive(between, Map.of("from", "2026-03-01", "to", "2026-03-20")))
+                .containsExactly(between.get(0));
+    }
+
+    @Test
+    void testPassesResultsOfUnknownTickets() throws JsonProcessingException {
+        var result = new TicketResult<>(UUID.randomUUID(), List.of(booking("2026-03-02", "a")));
+        assertThat(this.sync.filter(result)).isSameAs(result);
+        assertThat(this.sync.state(IBAN)).isNull();
+    }
+
+    private List<Transaction> receive(List<Transaction> transactions) {
+        return receive(transactions, Map.of());
+    }
+
+    private List<Transaction> receive(List<Transaction> transactions, Map<String, Object> range) {
+        var ticketId = UUID.randomUUID();
+        this.sync.ticketIssued(ticketId, "Transactions", Map.of("account", Map.of("iban", IBAN), "range", range));
+        return this.sync.filter(new TicketResult<>(ticketId, transactions)).data();
+    }
+
+    private Transaction booking(String bookingDate, String entryReference) throws JsonProcessingException {
+        return transaction("Booked", bookingDate, entryReference);
+    }
+
+    private Transaction transaction(String status, String bookingDate, String entryReference)
+            throws JsonProcessingException {
+        var json = this.objectMapper.createObjectNode()
+                .put("status", status)
+                .put("bookingDate", bookingDate)
+                .put("entryReference", entryReference);
+        json.putObject("amount").put("currency", "EUR").put("amount", "1.00");
+        return this.objectMapper.treeToValue(json, Transaction.class);
+    }
+}
@@ -0,0 +1,62 @@
+package tech.yaxi.demo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResultDeduplicatorTests {
+
+    @Test
+    void keepsResultsThatWereSeenAgain() {
+        var deduplicator = new ResultDeduplicator(5);
+        for (int i = 0; i < 5; ++i) {
+            deduplicator.remember(signedResult(i), null);
+        }
+        assertThat(deduplicator.isDuplicate(signedResult(0).data())).isTrue();
+
+        // The eldest result that wasn't seen again goes first
+        deduplicator.remember(signedResult(5), null);
+        assertThat(deduplicator.isDuplicate(signedResult(0).data())).isTrue();
+        assertThat(deduplicator.isDuplicate(signedResult(1).data())).isFalse();
+        assertThat(deduplicator.isDuplicate(signedResult(5).data())).isTrue();
+
+        var stats = deduplicator.stats();
+        assertThat(stats.size()).isEqualTo(5);
+        assertThat(stats.hits()).isEqualTo(3);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void recognizesResultsSignedAgainForTheSameTicket() {
+        var deduplicator = new ResultDeduplicator(16);
+        var ticketId = UUID.randomUUID();
+        deduplicator.remember(signedResult(0), ticketId);
+
+        assertThat(deduplicator.isDuplicate(signedResult(0), ticketId)).isFalse();
+        assertThat(deduplicator.isDuplicate(signedResult(1), ticketId)).isTrue();
+        assertThat(deduplicator.isDuplicate(signedResult(1), UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void ignoresMalformedResults() {
+        var deduplicator = new ResultDeduplicator(16);
+        var data = "not a JWT".getBytes(StandardCharsets.US_ASCII);
+        deduplicator.remember(new SignedResult(data, 0, 0), null);
+
+        assertThat(deduplicator.isDuplicate(data)).isFalse();
+        assertThat(deduplicator.stats().size()).isZero();
+        assertThat(new ResultDeduplicator(0).isDuplicate(signedResult(0).data())).isFalse();
+    }
+
+    private static SignedResult signedResult(int n) {
+        var signature = new byte[32];
+        signature[0] = (byte) n;
+        var jwt = "e30.e30." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature) + "\n";
+        return new SignedResult(jwt.getBytes(StandardCharsets.US_ASCII), 3, 7);
+    }
+}
@@ -0,0 +1,81 @@
+package tech.yaxi.demo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.Base64;
+
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TicketKeysLoaderTests {
+
+    private static final String KEY_A = encode("key-a-key-a-key-a-key-a-key-a-00");
+    private static final String KEY_B = encode("key-b-key-b-key-b-key-b-key-b-00");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLoadsKeysFromEnvironment() throws ParseException {
+        var environment = new MockEnvironment()
+                .withProperty("yaxi.keyId", "b")
+                .withProperty("yaxi.key", KEY_B)
+                .withProperty("yaxi.verificationKeys[0].keyId", "a")
+                .withProperty("yaxi.verificationKeys[0].key", KEY_A);
+        var ticketService = new TicketService("a", KEY_A);
+        new TicketKeysLoader(ticketService, environment, "").load();
+
+        assertThat(keyIdOf(ticketService.issueTicket("Transactions", null))).isEqualTo("b");
+    }
+
+    @Test
+    void testReloadsKeysFileWhenModified() throws IOException, ParseException {
+        var keysFile = this.tempDir.resolve("keys.yaml");
+        writeKeys(keysFile, "a", KEY_A, Instant.parse("2025-01-01T00:00:00Z"));
+        var ticketService = new TicketService("initial", KEY_B);
+        var loader = new TicketKeysLoader(ticketService, new MockEnvironment(), keysFile.toString());
+
+        loader.load();
+        assertThat(keyIdOf(ticketService.issueTicket("Transactions", null))).isEqualTo("a");
+        assertThat(loader.reloadIfChanged()).isFalse();
+
+        writeKeys(keysFile, "b", KEY_B, Instant.parse("2025-01-02T00:00:00Z"));
+        assertThat(loader.reloadIfChanged()).isTrue();
+        assertThat(keyIdOf(ticketService.issueTicket("Transactions", null))).isEqualTo("b");
+
+        // A broken file keeps the current keys
+        Files.writeString(keysFile, "yaxi: [");
+        Files.setLastModifiedTime(keysFile, FileTime.from(Instant.parse("2025-01-03T00:00:00Z")));
+        assertThat(loader.reloadIfChanged()).isFalse();
+        assertThat(keyIdOf(ticketService.issueTicket("Transactions", null))).isEqualTo("b");
+    }
+
+    private static void writeKeys(Path file, String keyId, String key, Instant modified) throws IOException {
+        Files.writeString(file, """
+                yaxi:
+                    keyId: '%s'
+                    key: '%s'
+                    verificationKeys:
+                        - keyId: 'a'
+                          key: '%s'
+                """.formatted(keyId, key, KEY_A));
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+    }
+
+    private static String keyIdOf(Ticket ticket) throws ParseException {
+        return SignedJWT.parse(ticket.serialized()).getHeader().getKeyID();
+    }
+
+    private static String encode(String key) {
+        return Base64.getEncoder().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,150 @@
+package tech.yaxi.demo;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import tech.yaxi.demo.TicketRegistry.Consumption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+public class TicketRegistryTests {
+
+    private static final Instant START = Instant.parse("2025-07-07T12:00:00Z");
+
+    private final MutableClock clock = new MutableClock(START);
+
+    @Test
+    void consumesIssuedTicketsOnce() {
+        var registry = new TicketRegistry(16, Duration.ofSeconds(1), clock);
+        var id = UUID.randomUUID();
+        registry.register(id, START.getEpochSecond() + 600);
+
+        assertThat(registry.isOutstanding(id)).isTrue();
+        assertThat(registry.consume(UUID.randomUUID())).isEqualTo(Consumption.UNKNOWN);
+        assertThat(registry.consume(id)).isEqualTo(Consumption.ACCEPTED);
+        assertThat(registry.consume(id)).isEqualTo(Consumption.ALREADY_CONSUMED);
+        assertThat(registry.isOutstanding(id)).isFalse();
+        assertThatIllegalStateException().isThrownBy(() -> registry.register(id, START.getEpochSecond() + 600));
+    }
+
+    @Test
+    void expiresTicketsOnTheTimingWheel() {
+        var registry = new TicketRegistry(16, Duration.ofSeconds(1), clock);
+        var soon = UUID.randomUUID();
+        var later = UUID.randomUUID();
+        // More than one revolution of the wheel ahead
+        var muchLater = UUID.randomUUID();
+        registry.register(soon, START.getEpochSecond() + 10);
+        registry.register(later, START.getEpochSecond() + 20);
+        registry.register(muchLater, START.getEpochSecond() + 2000);
+
+        clock.advance(Duration.ofSeconds(10));
+        registry.expire();
+        assertThat(registry.consume(soon)).isEqualTo(Consumption.UNKNOWN);
+        assertThat(registry.isOutstanding(later)).isTrue();
+
+        clock.advance(Duration.ofSeconds(1500));
+        registry.expire();
+        assertThat(registry.isOutstanding(later)).isFalse();
+        assertThat(registry.isOutstanding(muchLater)).isTrue();
+        assertThat(registry.size()).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(500));
+        registry.expire();
+        assertThat(registry.size()).isZero();
+    }
+
+    @Test
+    void staysBoundedAndReusesExpiredSlots() {
+        var registry = new TicketRegistry(100, Duration.ofSeconds(1), clock);
+        var consumed = new ArrayList<UUID>();
+        // Many rounds of filling up and expiring leave tombstones that force rehashing
+        for (int round = 0; round < 50; ++round) {
+            for (int i = 0; i < 100; ++i) {
+                var id = UUID.randomUUID();
+                registry.register(id, clock.instant().getEpochSecond() + 5);
+                if (i % 2 == 0) {
+                    assertThat(registry.consume(id)).isEqualTo(Consumption.ACCEPTED);
+                    consumed.add(id);
+                }
+            }
+            assertThatExceptionOfType(TicketRegistry.FullException.class)
+                    .isThrownBy(() -> registry.register(UUID.randomUUID(), clock.instant().getEpochSecond() + 5))
+                    .withMessage("Too many outstanding tickets")
+                    .satisfies(e -> assertThat(e.retryAfterSeconds()).isEqualTo(5));
+            for (var id : consumed.subList(consumed.size() - 50, consumed.size())) {
+                assertThat(registry.consume(id)).isEqualTo(Consumption.ALREADY_CONSUMED);
+            }
+            clock.advance(Duration.ofSeconds(5));
+        }
+    }
+
+    @Test
+    void consumesConcurrentlyExactlyOnce() throws Exception {
+        var registry = new TicketRegistry(10_000, Duration.ofSeconds(1), clock);
+        var ids = new ArrayList<UUID>();
+        for (int i = 0; i < 10_000; ++i) {
+            var id = UUID.randomUUID();
+            ids.add(id);
+            registry.register(id, START.getEpochSecond() + 600);
+        }
+
+        var accepted = new AtomicInteger();
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int thread = 0; thread < 8; ++thread) {
+            tasks.add(() -> {
+                for (var id : ids) {
+                    if (registry.consume(id) == Consumption.ACCEPTED) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            for (var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+
+        assertThat(accepted).hasValue(ids.size());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            this.instant = this.instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.instant;
+        }
+    }
+}
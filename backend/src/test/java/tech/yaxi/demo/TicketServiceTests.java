@@ -1,20 +1,42 @@
 package tech.yaxi.demo;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TicketServiceTests {
 
+    private static final String RESULT_KEY =
+            "/fVLyhshE5E0kJO8FlX018bMNiemXo0SBAWEv4E4MjrurBZ6gKtWoEAqj4wtfnpumtPoztqxgE4ErAsPv88xhQ==";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final UUID ID = UUID.fromString("a9523f11-f87a-41e6-a000-647a1b4eea35");
     private final TicketService ticketService = new TicketService(
             "test-key-id",
@@ -33,4 +55,168 @@ public class TicketServiceTests {
     void testIssueAccountsTicket() {
         assertThatNoException().isThrownBy(() -> ticketService.issueTicket("Accounts", null));
     }
+
+    @Test
+    void testIssuedTicketsMatchNimbus() {
+        var exp = OffsetDateTime.parse("2022-07-07T13:59:00Z").toInstant();
+        var nested = new LinkedHashMap<String, Object>();
+        nested.put("iban", "NL31YAXI1234567891");
+        nested.put("currency", "EUR");
+        nested.put("nothing", null);
+        var data = new LinkedHashMap<String, Object>();
+        data.put("account", nested);
+        data.put("range", Map.of("from", "2024-01-01"));
+        data.put("numbers", List.of(0, -1, Integer.MAX_VALUE, Long.MIN_VALUE, true, false));
+        data.put("escapes", "\"\\/\t\b\n\r\f\u0000\u001f\u007f<>&='");
+        data.put("unicode", "äöü € \u2028\u2029 \uD83D\uDE00 \uD83D unpaired");
+        data.put("", List.of(List.of(), Map.of()));
+
+        for (var service : List.of("Transactions", "Accounts", "CollectPayment", "Sp\u00e9cial \"service\"")) {
+            for (var ticketData : Arrays.asList(null, Map.of(), data, List.of("not", "a", "map"), "string")) {
+                assertThat(ticketService.issueTicket(service, ticketData).serialized())
+                        .as("%s %s", service, ticketData)
+                        .isEqualTo(ticketService.signTicket(service, ID, exp, ticketData));
+            }
+        }
+    }
+
+    @Test
+    void testIssuedTicketsFallBackToNimbus() {
+        var exp = OffsetDateTime.parse("2022-07-07T13:59:00Z").toInstant();
+        var data = Map.of("amount", 1.5, "big", new BigDecimal("1E+3"));
+
+        assertThat(ticketService.issueTicket("Transactions", data).serialized())
+                .isEqualTo(ticketService.signTicket("Transactions", ID, exp, data));
+    }
+
+    @Test
+    void testVerifyResultsStreaming() throws IOException {
+        var resultService = new TicketService("test", RESULT_KEY);
+        var data = loadResults();
+
+        TicketResult<List<Object>> expected = resultService.verifyResults(
+                new String(data, StandardCharsets.US_ASCII),
+                (List<Object> xs) -> xs);
+        TicketResult<JsonNode> actual = resultService.verifyResults(data, OBJECT_MAPPER::readTree);
+
+        assertThat(actual.id()).isEqualTo(expected.id());
+        assertThat(OBJECT_MAPPER.convertValue(actual.data(), new TypeReference<List<Object>>() { })).isEqualTo(expected.data());
+    }
+
+    @Test
+    void testVerifyResultsStreamingRejectsTamperedPayload() throws IOException {
+        var resultService = new TicketService("test", RESULT_KEY);
+        var data = loadResults();
+        // Flip a bit in the middle of the payload segment
+        data[data.length / 2] ^= 1;
+
+        assertThatThrownBy(() -> resultService.verifyResults(data, OBJECT_MAPPER::readTree))
+                .isInstanceOf(InvalidResultException.class);
+    }
+
+    @Test
+    void testVerifyResultsRejectsWrongKey() throws IOException {
+        var data = loadResults();
+
+        assertThatThrownBy(() -> ticketService.verifyResults(data, OBJECT_MAPPER::readTree))
+                .isInstanceOf(InvalidResultException.class)
+                .hasMessageContaining("Invalid signature");
+        assertThatThrownBy(() -> ticketService.verifyResults(new String(data, StandardCharsets.US_ASCII), x -> x))
+                .isInstanceOf(InvalidResultException.class)
+                .hasMessageContaining("Invalid signature");
+    }
+
+    @Test
+    void testVerifyResultsRejectsExpiredResults() throws IOException {
+        // The fixture expires at 2050-07-07T12:00:00Z
+        var resultService = new TicketService(
+                "test",
+                Base64.getDecoder().decode(RESULT_KEY),
+                Clock.fixed(OffsetDateTime.parse("2050-07-07T12:01:01Z").toInstant(), ZoneOffset.UTC),
+                () -> ID);
+        var data = loadResults();
+
+        assertThatThrownBy(() -> resultService.verifyResults(data, OBJECT_MAPPER::readTree))
+                .isInstanceOf(InvalidResultException.class)
+                .hasMessage("Expired JWT");
+        assertThatThrownBy(() -> resultService.verifyResults(new String(data, StandardCharsets.US_ASCII), x -> x))
+                .isInstanceOf(InvalidResultException.class)
+                .hasMessage("Expired JWT");
+    }
+
+    @Test
+    void testVerifyResultsWithRotatedKeys() throws JOSEException {
+        var oldKey = "old-secret-key-old-secret-key-00".getBytes(StandardCharsets.UTF_8);
+        var newKey = "new-secret-key-new-secret-key-00".getBytes(StandardCharsets.UTF_8);
+        var service = new TicketService("new", newKey, Clock.systemUTC(), () -> ID);
+        service.updateKeys("new", Map.of("new", newKey, "old", oldKey));
+
+        var oldResult = signResult("old", oldKey);
+        var newResult = signResult("new", newKey);
+        assertThat(service.verifyResults(oldResult, OBJECT_MAPPER::readTree).id()).isEqualTo(ID);
+        assertThat(service.verifyResults(newResult, OBJECT_MAPPER::readTree).id()).isEqualTo(ID);
+
+        // Once the old key is dropped, its results are checked against the active key
+        service.updateKeys("new", Map.of("new", newKey));
+        assertThatThrownBy(() -> service.verifyResults(oldResult, OBJECT_MAPPER::readTree))
+                .isInstanceOf(InvalidResultException.class)
+                .hasMessageContaining("Invalid signature");
+        assertThat(service.verifyResults(newResult, OBJECT_MAPPER::readTree).id()).isEqualTo(ID);
+    }
+
+    @Test
+    void testVerifyResultsOnlyOncePerIssuedTicket() throws JOSEException {
+        var key = "registry-key-registry-key-000000".getBytes(StandardCharsets.UTF_8);
+        var registry = new TicketRegistry(10, Duration.ofSeconds(1), Clock.systemUTC());
+        var service = new TicketService("test", key, Clock.systemUTC(), () -> ID, registry);
+        var result = signResult("test", key);
+
+        assertThatThrownBy(() -> service.verifyResults(result, OBJECT_MAPPER::readTree))
+                .isInstanceOf(InvalidResultException.class)
+                .hasMessage("Unknown ticket ID");
+
+        service.issueTicket("Transactions", null);
+        assertThat(service.verifyResults(result, OBJECT_MAPPER::readTree).id()).isEqualTo(ID);
+        assertThatThrownBy(() -> service.verifyResults(result, OBJECT_MAPPER::readTree))
+                .isInstanceOf(InvalidResultException.class)
+                .hasMessage("Ticket already used")
+                .extracting(e -> ((InvalidResultException) e).reason())
+                .isEqualTo(InvalidResultException.Reason.TICKET_ALREADY_USED);
+    }
+
+    @Test
+    void testReadsResultsSignedAgainWithoutConsumingTheTicket() throws JOSEException {
+        var key = "registry-key-registry-key-000000".getBytes(StandardCharsets.UTF_8);
+        var registry = new TicketRegistry(10, Duration.ofSeconds(1), Clock.systemUTC());
+        var service = new TicketService("test", key, Clock.systemUTC(), () -> ID, registry);
+        service.issueTicket("Transactions", null);
+        service.verifyResults(signResult("test", key), OBJECT_MAPPER::readTree);
+
+        var resigned = service.checkSignature(signResult("test", key, 1));
+        assertThat(service.readResults(resigned, OBJECT_MAPPER::readTree, ID::equals).id()).isEqualTo(ID);
+        assertThatThrownBy(() -> service.readResults(resigned, OBJECT_MAPPER::readTree, id -> false))
+                .isInstanceOf(InvalidResultException.class)
+                .hasMessage("Ticket already used");
+    }
+
+    private static byte[] signResult(String keyId, byte[] key) throws JOSEException {
+        return signResult(keyId, key, 0);
+    }
+
+    private static byte[] signResult(String keyId, byte[] key, long issuedAt) throws JOSEException {
+        var header = new JWSHeader.Builder(JWSAlgorithm.HS256).keyID(keyId).type(JOSEObjectType.JWT).build();
+        var claims = new JWTClaimsSet.Builder()
+                .claim("data", Map.of("ticketId", ID.toString(), "data", List.of()))
+                .claim("iat", issuedAt)
+                .build();
+        var jwt = new SignedJWT(header, claims);
+        jwt.sign(new MACSigner(key));
+        return jwt.serialize().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] loadResults() throws IOException {
+        return new DefaultResourceLoader()
+                .getResource("classpath:transactions.txt")
+                .getContentAsByteArray();
+    }
 }
@@ -0,0 +1,38 @@
+package tech.yaxi.demo;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeOrderedIdsTests {
+
+    private static final Instant NOW = Instant.parse("2025-07-07T12:00:00Z");
+
+    @Test
+    void createsVersion7Ids() {
+        var id = new TimeOrderedIds(Clock.fixed(NOW, ZoneOffset.UTC)).get();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(NOW.toEpochMilli());
+    }
+
+    @Test
+    void ordersIdsWithinTheSameMillisecond() {
+        var ids = new TimeOrderedIds(Clock.fixed(NOW, ZoneOffset.UTC));
+        UUID previous = ids.get();
+        // More IDs than the counter holds, so the timestamp has to run ahead
+        for (int i = 0; i < 10_000; ++i) {
+            var id = ids.get();
+            assertThat(id.getMostSignificantBits()).isGreaterThan(previous.getMostSignificantBits());
+            assertThat(id.version()).isEqualTo(7);
+            previous = id;
+        }
+        assertThat(previous.getMostSignificantBits() >>> 16).isEqualTo(NOW.toEpochMilli() + 2);
+    }
+}
@@ -0,0 +1,54 @@
+package tech.yaxi.demo;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.model.Transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class TransactionsReaderTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void parallelReadPreservesOrder() throws IOException {
+        byte[] json = new DefaultResourceLoader()
+                .getResource("classpath:random_transactions.json")
+                .getContentAsByteArray();
+        List<Transaction> expected = objectMapper.readValue(json, new TypeReference<>() { });
+
+        var reader = new TransactionsReader(objectMapper, 100, 4, 64);
+        try {
+            assertThat(read(reader, json)).isEqualTo(expected);
+        } finally {
+            reader.stop();
+        }
+    }
+
+    @Test
+    void parallelReadReportsInvalidElements() {
+        byte[] json = "[{\"status\":\"booked\"},{\"status\":\"booked\"},{\"status\":17}]".getBytes();
+
+        var reader = new TransactionsReader(objectMapper, 1, 2, 1);
+        try {
+            assertThatExceptionOfType(IOException.class).isThrownBy(() -> read(reader, json));
+        } finally {
+            reader.stop();
+        }
+    }
+
+    private List<Transaction> read(TransactionsReader reader, byte[] json) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            parser.nextToken();
+            return reader.read(parser);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package tech.yaxi.demo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.sink.ResultDispatcher;
+import tech.yaxi.demo.sink.RingBufferResultSink;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the request paths on many virtual threads at once and checks with
+ * JFR that none of them blocks while pinned to its carrier thread, e.g.
+ * inside a {@code synchronized} block.
+ */
+public class VirtualThreadPinningTests {
+
+    private static final String RESULT_KEY =
+            "/fVLyhshE5E0kJO8FlX018bMNiemXo0SBAWEv4E4MjrurBZ6gKtWoEAqj4wtfnpumtPoztqxgE4ErAsPv88xhQ==";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void requestPathsDontPinVirtualThreads() throws Exception {
+        var transactions = new DefaultResourceLoader()
+                .getResource("classpath:transactions.txt")
+                .getContentAsByteArray();
+        var ringBuffer = new RingBufferResultSink(64);
+        var resultDispatcher = new ResultDispatcher(List.of(ringBuffer), List.of("ring-buffer"), 16, 16);
+        var resultProcessor = new ResultProcessor(
+                new TicketService("test", RESULT_KEY),
+                new TransactionsReader(Jackson2ObjectMapperBuilder.json().build(), 1000, 1, 256),
+                resultDispatcher,
+                new ResultDeduplicator(16),
+                new RoutexMetrics(new SimpleMeterRegistry()));
+        var ticketService = new TicketService("test", Base64.getDecoder().decode(RESULT_KEY), Clock.systemUTC(),
+                UUID::randomUUID, new TicketRegistry(100_000, Duration.ofSeconds(1), Clock.systemUTC()));
+
+        var path = this.tempDir.resolve("pinning.jfr");
+        try (var recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            var tasks = new ArrayList<Callable<Object>>();
+            for (int i = 0; i < 500; ++i) {
+                tasks.add(() -> ticketService.issueTicket("Transactions", Map.of()));
+                tasks.add(() -> resultProcessor.process(transactions.clone()));
+                tasks.add(() -> ringBuffer.latest(8));
+            }
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (var future : executor.invokeAll(tasks)) {
+                    future.get();
+                }
+            }
+            recording.stop();
+            recording.dump(path);
+        }
+
+        assertThat(pinnedEvents(path)).isEmpty();
+    }
+
+    private static List<String> pinnedEvents(Path path) throws IOException {
+        return RecordingFile.readAllEvents(path).stream()
+                .filter(event -> event.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+                .map(RecordedEvent::toString)
+                .toList();
+    }
+}
@@ -0,0 +1,145 @@
+package tech.yaxi.demo.analytics;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+import tech.yaxi.demo.store.TransactionStore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TransactionColumnsTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void testAggregatesByCurrencyAndMonth() throws JsonProcessingException {
+        var columns = new TransactionColumns(2, 4);
+        columns.append(List.of(new TicketResult<>(UUID.randomUUID(), List.of(
+                transaction("2026-03-02", "EUR", "10.50"),
+                transaction("2026-03-31", "EUR", "-0.25"),
+                transaction("2026-04-01", "EUR", "99999999999999999999.123456789"),
+                transaction("2026-04-15", "USD", "3"),
+                transaction(null, "EUR", "1")))));
+
+        var aggregation = columns.aggregate(List.of(Dimension.MONTH), null, null, 10);
+        assertThat(aggregation.transactions()).isEqualTo(5);
+        assertThat(aggregation.groupCount()).isEqualTo(3);
+        assertThat(aggregation.groups()).containsExactly(
+                new TransactionColumns.Group(Map.of("month", "2026-03"), 2, Map.of("EUR", new BigDecimal("10.25"))),
+                new TransactionColumns.Group(Map.of("month", "2026-04"), 2,
+                        Map.of("EUR", new BigDecimal("99999999999999999999.123456789"), "USD", new BigDecimal("3"))),
+                new TransactionColumns.Group(nullKey("month"), 1, Map.of("EUR", new BigDecimal("1"))));
+
+        var march = columns.aggregate(
+                List.of(Dimension.CURRENCY), LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), 10);
+        assertThat(march.transactions()).isEqualTo(2);
+        assertThat(march.groups()).extracting(TransactionColumns.Group::key).containsExactly(Map.of("currency", "EUR"));
+
+        assertThat(columns.aggregate(List.of(Dimension.CURRENCY), null, null, 1).groups()).hasSize(1);
+    }
+
+    @Test
+    void testSumsPastTheRangeOfCompactMoney() throws JsonProcessingException {
+        var columns = new TransactionColumns(2, 4);
+        columns.append(List.of(new TicketResult<>(UUID.randomUUID(), List.of(
+                transaction("2026-03-02", "EUR", "900000000000000.25"),
+                transaction("2026-03-03", "EUR", "900000000000000.5"),
+                transaction("2026-03-04", "EUR", "0.25")))));
+
+        var aggregation = columns.aggregate(List.of(Dimension.CURRENCY), null, null, 10);
+        assertThat(aggregation.groups()).containsExactly(new TransactionColumns.Group(
+                Map.of("currency", "EUR"), 3, Map.of("EUR", new BigDecimal("1800000000000001"))));
+    }
+
+    @Test
+    void testAgreesWithTheRecords() throws IOException {
+        var transactions = loadTransactions();
+        var columns = new TransactionColumns(100, 4);
+        columns.append(List.of(new TicketResult<>(UUID.randomUUID(), transactions)));
+
+        var expected = new HashMap<List<Object>, BigDecimal>();
+        var counts = new HashMap<List<Object>, Long>();
+        for (var transaction : transactions) {
+            var key = new ArrayList<>();
+            key.add(transaction.status());
+            key.add(transaction.purposeCode().orElse(null));
+            expected.merge(key, transaction.amount().amount(), BigDecimal::add);
+            counts.merge(key, 1L, Long::sum);
+        }
+
+        var aggregation = columns.aggregate(List.of(Dimension.STATUS, Dimension.PURPOSE_CODE), null, null, 10_000);
+        assertThat(aggregation.transactions()).isEqualTo(transactions.size());
+        assertThat(aggregation.groups()).hasSize(expected.size());
+        for (var group : aggregation.groups()) {
+            var key = new ArrayList<>(group.key().values());
+            assertThat(group.count()).isEqualTo(counts.get(key));
+            var total = group.totals().values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertThat(total).isEqualByComparingTo(expected.get(key));
+        }
+    }
+
+    @Test
+    void testLoadsTheStore(@TempDir Path directory) throws IOException {
+        var transactions = loadTransactions().subList(0, 300);
+        try (var store = new TransactionStore(directory, DataSize.ofMegabytes(1), false)) {
+            store.append(List.of(new TicketResult<>(UUID.randomUUID(), transactions)));
+            var columns = new TransactionColumns(64, 2, Optional.of(store));
+            assertThat(columns.size()).isEqualTo(transactions.size());
+            assertThat(columns.aggregate(List.of(), null, null, 10).transactions()).isEqualTo(transactions.size());
+        }
+    }
+
+    @Test
+    void testComputesMonthsOfEpochDays() {
+        for (var date = LocalDate.of(-2001, 1, 1); date.isBefore(LocalDate.of(2401, 1, 1)); date = date.plusDays(13)) {
+            assertThat(TransactionColumns.month((int) date.toEpochDay()))
+                    .isEqualTo(date.getYear() * 12 + date.getMonthValue() - 1);
+        }
+    }
+
+    @Test
+    void testRejectsUnknownDimensions() {
+        assertThatIllegalArgumentException().isThrownBy(() -> Dimension.of("debtor"));
+        assertThat(Dimension.of("bankTransactionCode")).isEqualTo(Dimension.BANK_TRANSACTION_CODE);
+    }
+
+    private Transaction transaction(String bookingDate, String currency, String amount)
+            throws JsonProcessingException {
+        var json = this.objectMapper.createObjectNode()
+                .put("status", "Booked")
+                .put("bookingDate", bookingDate);
+        json.putObject("amount").put("currency", currency).put("amount", amount);
+        return this.objectMapper.treeToValue(json, Transaction.class);
+    }
+
+    private static Map<String, Object> nullKey(String dimension) {
+        var key = new HashMap<String, Object>();
+        key.put(dimension, null);
+        return key;
+    }
+
+    private List<Transaction> loadTransactions() throws IOException {
+        return this.objectMapper.readValue(
+                new DefaultResourceLoader().getResource("classpath:random_transactions.json").getContentAsByteArray(),
+                new TypeReference<>() { });
+    }
+}
@@ -0,0 +1,62 @@
+package tech.yaxi.demo.jfr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import tech.yaxi.demo.TicketService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecordingSummaryTests {
+
+    private static final String RESULT_KEY =
+            "/fVLyhshE5E0kJO8FlX018bMNiemXo0SBAWEv4E4MjrurBZ6gKtWoEAqj4wtfnpumtPoztqxgE4ErAsPv88xhQ==";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void summarizesStages() throws IOException {
+        var transactions = new DefaultResourceLoader()
+                .getResource("classpath:transactions.txt")
+                .getContentAsByteArray();
+        var ticketService = new TicketService("test", RESULT_KEY);
+        var path = this.tempDir.resolve("recording.jfr");
+
+        try (var recording = new Recording()) {
+            recording.enable(ResultStageEvent.class);
+            recording.enable(TicketIssueEvent.class);
+            recording.start();
+            for (int i = 0; i < 3; ++i) {
+                ticketService.verifyResults(transactions, parser -> {
+                    parser.skipChildren();
+                    return null;
+                });
+            }
+            ticketService.issueTicket("Transactions", Map.of());
+            ticketService.issueTicket("Unknown", Map.of());
+            recording.stop();
+            recording.dump(path);
+        }
+
+        var stages = RecordingSummary.summarize(path);
+        assertThat(stages).containsOnlyKeys(
+                "result/payload", "result/signature", "ticket/Transactions", "ticket/Unknown");
+        var signature = stages.get("result/signature");
+        assertThat(signature.count()).isEqualTo(3);
+        assertThat(signature.p50()).isLessThanOrEqualTo(signature.p99());
+        assertThat(signature.p99()).isLessThanOrEqualTo(signature.max());
+
+        var out = new ByteArrayOutputStream();
+        RecordingSummary.print(stages, new PrintStream(out, true, StandardCharsets.UTF_8));
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("result/payload", "p99 (us)");
+    }
+}
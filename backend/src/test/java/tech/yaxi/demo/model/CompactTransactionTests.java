@@ -0,0 +1,74 @@
+package tech.yaxi.demo.model;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactTransactionTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    String loadFixture(String name) throws IOException {
+        return new DefaultResourceLoader()
+                .getResource("classpath:" + name)
+                .getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testRoundTripsRandomTransactions() throws IOException {
+        List<Transaction> transactions =
+                objectMapper.readValue(loadFixture("random_transactions.json"), new TypeReference<>() { });
+
+        for (var transaction : transactions) {
+            var compact = CompactTransaction.of(transaction);
+            assertThat(compact.toTransaction()).isEqualTo(transaction);
+            assertThat(compact.status()).isEqualTo(transaction.status());
+        }
+    }
+
+    @Test
+    void testSharesLowCardinalityValues() throws IOException {
+        String json = loadFixture("transaction.json");
+        var first = CompactTransaction.of(objectMapper.readValue(json, Transaction.class)).toTransaction();
+        var second = CompactTransaction.of(objectMapper.readValue(json, Transaction.class)).toTransaction();
+
+        assertThat(second.amount().currency()).isSameAs(first.amount().currency());
+        assertThat(second.bookingDate().get()).isSameAs(first.bookingDate().get());
+        assertThat(second.purposeCode().get()).isSameAs(first.purposeCode().get());
+        for (int i = 0; i < first.bankTransactionCodes().size(); ++i) {
+            assertThat(second.bankTransactionCodes().get(i)).isSameAs(first.bankTransactionCodes().get(i));
+        }
+    }
+
+    @Test
+    void testKeepsNullsDistinctFromEmptyValues() {
+        var transaction = new Transaction(
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                null,
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.of(""),
+                new Amount(null, new BigDecimal("1.00")),
+                Optional.of(false),
+                Optional.empty(),
+                null,
+                List.of(),
+                Optional.of(new Transaction.Party(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty())),
+                Optional.empty(),
+                List.of(""),
+                Optional.empty(),
+                null,
+                Optional.empty());
+
+        assertThat(CompactTransaction.of(transaction).toTransaction()).isEqualTo(transaction);
+    }
+}
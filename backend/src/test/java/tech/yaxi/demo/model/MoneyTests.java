@@ -0,0 +1,109 @@
+package tech.yaxi.demo.model;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class MoneyTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void testParsesPlainDecimals() {
+        for (var value : List.of("0", "-0.00", "1", "-9.38", "+12.5", ".5", "7.", "1234.5678", "99999999999999.9999")) {
+            var money = Money.parse(value);
+            assertThat(money.isCompact()).as(value).isTrue();
+            assertThat(money.toBigDecimal()).as(value).isEqualTo(new BigDecimal(value));
+        }
+        assertThat(Money.parse("-9.38").units()).isEqualTo(-93800);
+    }
+
+    @Test
+    void testFallsBackToBigDecimal() {
+        for (var value : List.of("1.23456", "999999999999999.9999", "-12345678901234567890", "1e-7")) {
+            var money = Money.parse(value);
+            assertThat(money.isCompact()).as(value).isFalse();
+            assertThat(money.toBigDecimal()).as(value).isEqualTo(new BigDecimal(value));
+        }
+        assertThat(Money.parse("1E+3")).isEqualTo(Money.parse("1000"));
+        assertThatExceptionOfType(NumberFormatException.class).isThrownBy(() -> Money.parse("1.2.3"));
+        assertThatExceptionOfType(NumberFormatException.class).isThrownBy(() -> Money.parse("-"));
+    }
+
+    @Test
+    void testAddsWithOverflowFallback() {
+        var max = Money.ofUnits(Long.MAX_VALUE, 4);
+        var sum = max.add(Money.parse("0.0001"));
+
+        assertThat(sum.isCompact()).isFalse();
+        assertThat(sum.toBigDecimal()).isEqualTo(max.toBigDecimal().add(new BigDecimal("0.0001")));
+        assertThat(new Money.Sum().add(max).add(Money.parse("0.0001")).result()).isEqualTo(sum);
+        assertThat(Money.parse("1.5").add(Money.parse("0.25")).toString()).isEqualTo("1.75");
+    }
+
+    @Test
+    void testSumAddsUnits() {
+        var sum = new Money.Sum().addUnits(15_000).add(Money.parse("0.25"));
+        assertThat(sum.result().toString()).isEqualTo("1.7500");
+
+        sum.addUnits(Long.MAX_VALUE);
+        assertThat(sum.result().isCompact()).isFalse();
+        assertThat(sum.result().toBigDecimal()).isEqualByComparingTo(
+                BigDecimal.valueOf(Long.MAX_VALUE, 4).add(new BigDecimal("1.75")));
+    }
+
+    @Test
+    void testComparesNumerically() {
+        assertThat(Money.parse("1.5")).isEqualTo(Money.parse("1.50"));
+        assertThat(Money.parse("1.5")).hasSameHashCodeAs(Money.of(new BigDecimal("1.500000")));
+        assertThat(Money.parse("1.5")).isEqualTo(Money.of(new BigDecimal("1.500000")));
+        assertThat(Money.parse("-2")).isLessThan(Money.parse("1.23456"));
+        assertThat(Money.parse("1e30")).isGreaterThan(Money.parse("99999999999999.9999"));
+    }
+
+    @Test
+    void testHandlesRandomTransactionAmounts() throws IOException {
+        byte[] json = new DefaultResourceLoader()
+                .getResource("classpath:random_transactions.json")
+                .getContentAsByteArray();
+        List<Map<String, Object>> transactions = objectMapper.readValue(json, new TypeReference<>() { });
+        var amounts = new ArrayList<String>();
+        for (var transaction : transactions) {
+            for (var key : List.of("amount", "originalAmount")) {
+                if (transaction.get(key) instanceof Map<?, ?> amount) {
+                    amounts.add((String) amount.get("amount"));
+                }
+            }
+        }
+
+        var sum = new Money.Sum().add(Money.parse("-9.38"));
+        var expectedSum = new BigDecimal("-9.38");
+        for (var value : amounts) {
+            var money = Money.parse(value);
+            // All amounts in the fixture have too many digits for a long
+            assertThat(money.isCompact()).as(value).isFalse();
+            assertThat(money.toBigDecimal()).as(value).isEqualTo(new BigDecimal(value));
+            sum.add(money).add(Money.parse("0.01"));
+            expectedSum = expectedSum.add(new BigDecimal(value)).add(new BigDecimal("0.01"));
+        }
+
+        assertThat(sum.result().toBigDecimal()).isEqualByComparingTo(expectedSum);
+    }
+
+    @Test
+    void testSerializesAsString() throws IOException {
+        assertThat(objectMapper.writeValueAsString(Money.parse("-9.38"))).isEqualTo("\"-9.38\"");
+        assertThat(objectMapper.readValue("\"-9.38\"", Money.class)).isEqualTo(Money.parse("-9.38"));
+    }
+}
@@ -0,0 +1,85 @@
+package tech.yaxi.demo.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class TransactionDeserializersTests {
+
+    private final ObjectMapper reflectiveMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new TransactionModule())
+            .build();
+
+    String loadFixture(String name) throws IOException {
+        return new DefaultResourceLoader()
+                .getResource("classpath:" + name)
+                .getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testMatchesReflectiveDeserialization() throws IOException {
+        for (var fixture : List.of("transaction.json", "random_transactions.json")) {
+            String json = loadFixture(fixture);
+            var type = json.startsWith("[")
+                    ? new TypeReference<List<Transaction>>() { }
+                    : new TypeReference<Transaction>() { };
+
+            assertThat(objectMapper.readValue(json, type))
+                    .as(fixture)
+                    .isEqualTo(reflectiveMapper.readValue(json, type));
+        }
+    }
+
+    @Test
+    void testMatchesReflectiveDeserializationOfEdgeCases() throws IOException {
+        String json = """
+                [
+                  {"status": "Booked", "amount": {"currency": "EUR", "amount": 1.50}},
+                  {"status": "Pending", "amount": null, "reversal": null, "exchanges": null,
+                   "fees": null, "remittanceInformation": null, "bankTransactionCodes": null,
+                   "creditor": null, "bookingDate": null, "entryReference": null},
+                  {"status": "Paid", "amount": {"currency": "EUR", "amount": "2"}, "unknown": {"a": [1, 2]},
+                   "batch": {"numberOfTransactions": 12345678901, "transactions": [{"amount": null}]},
+                   "bankTransactionCodes": [{"bai": "123"}, {"other": {"code": "X"}}]},
+                  {"status": "Canceled", "amount": {"currency": "EUR", "amount": "3"}, "batch": {}, "paymentId": 42,
+                   "reversal": "true", "remittanceInformation": ["a", null, "b"]}
+                ]
+                """;
+        var type = new TypeReference<List<Transaction>>() { };
+
+        assertThat(objectMapper.readValue(json, type)).isEqualTo(reflectiveMapper.readValue(json, type));
+    }
+
+    @Test
+    void testRejectsUnknownBankTransactionCodes() {
+        String json = """
+                {"status": "Booked", "amount": {"currency": "EUR", "amount": "1"},
+                 "bankTransactionCodes": [{"mt940": "NTRF"}]}
+                """;
+
+        assertThatExceptionOfType(InvalidTypeIdException.class)
+                .isThrownBy(() -> objectMapper.readValue(json, Transaction.class));
+    }
+
+    @Test
+    void testRejectsMalformedValues() {
+        String json = """
+                {"status": "Booked", "amount": ["EUR", "1"]}
+                """;
+
+        assertThatExceptionOfType(MismatchedInputException.class)
+                .isThrownBy(() -> objectMapper.readValue(json, Transaction.class));
+    }
+}
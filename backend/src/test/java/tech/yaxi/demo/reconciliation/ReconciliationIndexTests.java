@@ -0,0 +1,133 @@
+package tech.yaxi.demo.reconciliation;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+import tech.yaxi.demo.reconciliation.ReconciliationIndex.Match;
+import tech.yaxi.demo.reconciliation.ReconciliationIndex.Transition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.yaxi.demo.model.Transaction.Status.BOOKED;
+import static tech.yaxi.demo.model.Transaction.Status.PENDING;
+
+class ReconciliationIndexTests {
+
+    private static final UUID FIRST = UUID.fromString("0b1d6f9e-8a51-4c6e-9f0a-3d2b7c4e1a01");
+    private static final UUID SECOND = UUID.fromString("0b1d6f9e-8a51-4c6e-9f0a-3d2b7c4e1a02");
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ReconciliationIndex index = new ReconciliationIndex(100);
+
+    @Test
+    void testMatchesBookingsToPendingEntries() throws JsonProcessingException {
+        this.index.append(List.of(new TicketResult<>(FIRST, List.of(
+                transaction("Pending", "10.00", node -> node.put("transactionId", "tx-1")),
+                transaction("Pending", "20.00", node -> node.put("endToEndId", "e2e-2")),
+                transaction("Pending", "30.00", node -> { })))));
+        this.index.append(List.of(new TicketResult<>(SECOND, List.of(
+                transaction("Booked", "10", node -> node.put("transactionId", "tx-1").put("endToEndId", "e2e-1")),
+                transaction("Booked", "20.00", node -> node.put("endToEndId", "e2e-2")),
+                transaction("Booked", "30.0", node -> node.put("transactionId", "tx-3"))))));
+
+        var first = this.index.findByTransactionId("tx-1");
+        assertThat(first).singleElement().satisfies(entry -> {
+            assertThat(entry.ticketId()).isEqualTo(SECOND);
+            assertThat(entry.transaction().status()).isEqualTo(BOOKED);
+            assertThat(entry.transitions()).containsExactly(new Transition(SECOND, PENDING, BOOKED, Match.TRANSACTION_ID));
+        });
+        // Indexed by the keys of the latest version
+        assertThat(this.index.findByEndToEndId("e2e-1")).isEqualTo(first);
+        assertThat(this.index.findByEndToEndId("e2e-2")).singleElement()
+                .satisfies(entry -> assertThat(entry.transitions()).extracting(Transition::match)
+                        .containsExactly(Match.END_TO_END_ID));
+        assertThat(this.index.findByTransactionId("tx-3")).singleElement()
+                .satisfies(entry -> assertThat(entry.transitions()).extracting(Transition::match)
+                        .containsExactly(Match.FINGERPRINT));
+
+        var stats = this.index.stats();
+        assertThat(stats.entries()).isEqualTo(3);
+        assertThat(stats.open()).isZero();
+        assertThat(stats.transitions()).isEqualTo(3);
+    }
+
+    @Test
+    void testKeepsTransactionsWithOtherIdsApart() throws JsonProcessingException {
+        this.index.append(List.of(new TicketResult<>(FIRST, List.of(
+                transaction("Pending", "10.00", node -> node.put("transactionId", "tx-1").put("endToEndId", "NOTPROVIDED")),
+                transaction("Booked", "10.00", node -> node.put("transactionId", "tx-2").put("endToEndId", "NOTPROVIDED"))))));
+
+        assertThat(this.index.findByTransactionId("tx-1")).singleElement()
+                .satisfies(entry -> assertThat(entry.transitions()).isEmpty());
+        assertThat(this.index.findByEndToEndId("NOTPROVIDED")).isEmpty();
+        assertThat(this.index.stats().entries()).isEqualTo(2);
+        assertThat(this.index.stats().open()).isEqualTo(1);
+    }
+
+    @Test
+    void testKeepsEqualTransactionsWithoutIdsApart() throws JsonProcessingException {
+        this.index.append(List.of(new TicketResult<>(FIRST, List.of(
+                transaction("Booked", "10.00", node -> { }),
+                transaction("Booked", "10.00", node -> { }),
+                transaction("Pending", "20.00", node -> { }),
+                transaction("Pending", "20.00", node -> { })))));
+        assertThat(this.index.stats().entries()).isEqualTo(4);
+
+        // Only open ones from earlier results are matched by fingerprint
+        this.index.append(List.of(new TicketResult<>(SECOND, List.of(
+                transaction("Booked", "10.00", node -> { }),
+                transaction("Booked", "20.00", node -> { })))));
+        var stats = this.index.stats();
+        assertThat(stats.entries()).isEqualTo(5);
+        assertThat(stats.matched()).isEqualTo(1);
+        assertThat(stats.open()).isEqualTo(1);
+    }
+
+    @Test
+    void testLinksReversals() throws JsonProcessingException {
+        this.index.append(List.of(new TicketResult<>(FIRST, List.of(
+                transaction("Booked", "10.00", node -> { }),
+                transaction("Pending", "-10.00", node -> node.put("reversal", true))))));
+        this.index.append(List.of(new TicketResult<>(SECOND, List.of(
+                transaction("Booked", "-10.00", node -> node.put("reversal", true).put("transactionId", "rv-1"))))));
+
+        var reversal = this.index.findByTransactionId("rv-1");
+        assertThat(reversal).singleElement().satisfies(entry -> {
+            assertThat(entry.reverses()).isEqualTo(0);
+            assertThat(entry.transitions()).containsExactly(new Transition(SECOND, PENDING, BOOKED, Match.FINGERPRINT));
+        });
+        assertThat(this.index.stats().reversals()).isEqualTo(1);
+    }
+
+    @Test
+    void testEvictsTheOldestEntries() throws JsonProcessingException {
+        var index = new ReconciliationIndex(2);
+        for (int i = 0; i < 3; ++i) {
+            var id = "tx-" + i;
+            index.append(List.of(new TicketResult<>(FIRST, List.of(
+                    transaction("Pending", "1.00", node -> node.put("transactionId", id))))));
+        }
+        assertThat(index.findByTransactionId("tx-0")).isEmpty();
+        assertThat(index.findByTransactionId("tx-2")).hasSize(1);
+        assertThat(index.stats().evicted()).isEqualTo(1);
+        assertThat(index.stats().open()).isEqualTo(2);
+    }
+
+    private Transaction transaction(String status, String amount, Consumer<ObjectNode> customizer)
+            throws JsonProcessingException {
+        var json = this.objectMapper.createObjectNode()
+                .put("status", status)
+                .put("valueDate", "2026-03-02");
+        json.putObject("amount").put("currency", "EUR").put("amount", amount);
+        json.putObject("creditor").put("iban", "NL31YAXI1234567891");
+        customizer.accept(json);
+        return this.objectMapper.treeToValue(json, Transaction.class);
+    }
+}
@@ -0,0 +1,64 @@
+package tech.yaxi.demo.sink;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+public class ResultDispatcherTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesToSelectedSinks() throws Exception {
+        var ringBuffer = new RingBufferResultSink(2);
+        var file = new FileResultSink(tempDir.resolve("results.jsonl"), Jackson2ObjectMapperBuilder.json().build());
+        var dispatcher = new ResultDispatcher(
+                List.of(new NoopResultSink(), ringBuffer, file), List.of("ring-buffer", "file"), 16, 4);
+        dispatcher.start();
+        var results = List.of(result(), result(), result());
+        results.forEach(dispatcher::publish);
+        dispatcher.stop();
+
+        assertThat(ringBuffer.latest(10)).containsExactly(results.get(2), results.get(1));
+        assertThat(Files.readAllLines(tempDir.resolve("results.jsonl")))
+                .containsExactly(results.stream().map(r -> "{\"id\":\"" + r.id() + "\",\"data\":[]}").toArray(String[]::new));
+        assertThat(dispatcher.stats()).containsOnlyKeys("ring-buffer", "file");
+        assertThat(dispatcher.stats().get("file").written()).isEqualTo(3);
+        assertThat(dispatcher.stats().get("file").dropped()).isZero();
+    }
+
+    @Test
+    void dropsResultsWhenQueueIsFull() {
+        // Not started, so nothing is taken off the queue
+        var dispatcher = new ResultDispatcher(List.of(new NoopResultSink()), List.of("noop"), 2, 4);
+        for (int i = 0; i < 5; ++i) {
+            dispatcher.publish(result());
+        }
+
+        var stats = dispatcher.stats().get("noop");
+        assertThat(stats.pending()).isEqualTo(2);
+        assertThat(stats.dropped()).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsUnknownSinks() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new ResultDispatcher(List.of(new NoopResultSink()), List.of("kafka"), 16, 4))
+                .withMessageContaining("kafka");
+    }
+
+    private static TicketResult<List<Transaction>> result() {
+        return new TicketResult<>(UUID.randomUUID(), List.of());
+    }
+}
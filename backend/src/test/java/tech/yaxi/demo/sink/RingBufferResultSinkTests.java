@@ -0,0 +1,38 @@
+package tech.yaxi.demo.sink;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferResultSinkTests {
+
+    @Test
+    void testReturnsEqualTransactions() throws IOException {
+        String json = new DefaultResourceLoader()
+                .getResource("classpath:random_transactions.json")
+                .getContentAsString(StandardCharsets.UTF_8);
+        List<Transaction> transactions =
+                Jackson2ObjectMapperBuilder.json().build().readValue(json, new TypeReference<>() { });
+        var first = new TicketResult<>(UUID.randomUUID(), transactions);
+        var second = new TicketResult<>(UUID.randomUUID(), transactions.subList(0, 1));
+        var third = new TicketResult<>(UUID.randomUUID(), List.<Transaction>of());
+
+        var sink = new RingBufferResultSink(2);
+        sink.write(List.of(first, second));
+        assertThat(sink.latest(10)).containsExactly(second, first);
+
+        sink.write(List.of(third));
+        assertThat(sink.latest(1)).containsExactly(third);
+        assertThat(sink.latest(10)).containsExactly(third, second);
+    }
+}
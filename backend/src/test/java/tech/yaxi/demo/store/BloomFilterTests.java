@@ -0,0 +1,58 @@
+package tech.yaxi.demo.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTests {
+
+    @Test
+    void testKeepsTheFalsePositiveRateWhileGrowing() {
+        var filter = new BloomFilter(0.01, 1000);
+        var random = new SplittableRandom(42);
+        for (int i = 0; i < 50_000; ++i) {
+            filter.add(random.nextLong());
+        }
+        assertThat(filter.stages()).isGreaterThan(4);
+        assertThat(filter.count()).isEqualTo(50_000);
+
+        random = new SplittableRandom(42);
+        for (int i = 0; i < 50_000; ++i) {
+            assertThat(filter.mightContain(random.nextLong())).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; ++i) {
+            if (filter.mightContain(random.nextLong())) {
+                ++falsePositives;
+            }
+        }
+        // About 1% of them, with some leeway for chance
+        assertThat(falsePositives).isLessThan(1200);
+    }
+
+    @Test
+    void testRoundTrips() throws IOException {
+        var filter = new BloomFilter(0.001, 100);
+        for (long i = 0; i < 1000; ++i) {
+            filter.add(TransactionCodec.mix(i));
+        }
+        var bytes = new ByteArrayOutputStream();
+        filter.writeTo(new DataOutputStream(bytes));
+
+        var read = BloomFilter.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), bytes.size());
+        assertThat(read.falsePositiveRate()).isEqualTo(0.001);
+        assertThat(read.stages()).isEqualTo(filter.stages());
+        assertThat(read.bytes()).isEqualTo(filter.bytes());
+        for (long i = 0; i < 1000; ++i) {
+            assertThat(read.mightContain(TransactionCodec.mix(i))).isTrue();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package tech.yaxi.demo.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.TicketResult;
+import tech.yaxi.demo.model.Transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionStoreTests {
+
+    private static final UUID TICKET_ID = UUID.fromString("6f1e4d0c-3a59-4a8e-9df1-2f7e1b2c9a10");
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTripsRandomTransactions() throws IOException {
+        var transactions = loadTransactions();
+        try (var store = new TransactionStore(this.directory, 1 << 20, true)) {
+            store.append(List.of(new TicketResult<>(TICKET_ID, transactions)));
+            assertFound(store, transactions);
+        }
+        // Reopening rebuilds the indexes from the batch footers
+        try (var store = new TransactionStore(this.directory, 1 << 20, true)) {
+            assertThat(store.stats().transactions()).isEqualTo(transactions.size());
+            assertFound(store, transactions);
+        }
+    }
+
+    @Test
+    void testStartsNewSegmentsWhenFull() throws IOException {
+        var transactions = loadTransactions().subList(0, 200);
+        try (var store = new TransactionStore(this.directory, 16 * 1024, false)) {
+            for (int i = 0; i < transactions.size(); i += 10) {
+                store.append(List.of(new TicketResult<>(TICKET_ID, transactions.subList(i, i + 10))));
+            }
+            assertThat(store.stats().segments()).isGreaterThan(1);
+        }
+        try (var store = new TransactionStore(this.directory, 16 * 1024, false)) {
+            assertThat(store.stats().segments()).isGreaterThan(1);
+            assertThat(store.stats().transactions()).isEqualTo(transactions.size());
+            assertFound(store, transactions);
+        }
+    }
+
+    @Test
+    void testDiscardsTornBatch() throws IOException {
+        var transactions = loadTransactions().subList(0, 20);
+        long end;
+        try (var store = new TransactionStore(this.directory, 1 << 20, true)) {
+            store.append(List.of(new TicketResult<>(TICKET_ID, transactions.subList(0, 10))));
+            end = store.stats().bytes();
+            store.append(List.of(new TicketResult<>(TICKET_ID, transactions.subList(10, 20))));
+        }
+        // Corrupt a record of the second batch, as if its pages never made it to disk
+        try (var channel = FileChannel.open(this.directory.resolve("segment-000000.dat"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), end + Segment.BATCH_HEADER_SIZE + 30);
+        }
+
+        try (var store = new TransactionStore(this.directory, 1 << 20, true)) {
+            assertThat(store.stats().transactions()).isEqualTo(10);
+            assertThat(store.stats().bytes()).isEqualTo(end);
+            store.append(List.of(new TicketResult<>(TICKET_ID, transactions.subList(10, 20))));
+        }
+        try (var store = new TransactionStore(this.directory, 1 << 20, true)) {
+            assertThat(store.stats().transactions()).isEqualTo(20);
+            assertFound(store, transactions);
+        }
+    }
+
+    @Test
+    void testDiscardsEmptyLastSegment() throws IOException {
+        var transactions = loadTransactions().subList(0, 20);
+        try (var store = new TransactionStore(this.directory, 1 << 20, true)) {
+            store.append(List.of(new TicketResult<>(TICKET_ID, transactions.subList(0, 10))));
+        }
+        // As if the store crashed between creating the next segment and mapping it
+        var empty = Files.createFile(this.directory.resolve("segment-000001.dat"));
+
+        try (var store = new TransactionStore(this.directory, 1 << 20, true)) {
+            assertThat(empty).doesNotExist();
+            assertThat(store.stats().segments()).isEqualTo(1);
+            assertThat(store.stats().transactions()).isEqualTo(10);
+            store.append(List.of(new TicketResult<>(TICKET_ID, transactions.subList(10, 20))));
+        }
+        try (var store = new TransactionStore(this.directory, 1 << 20, true)) {
+            assertFound(store, transactions);
+        }
+    }
+
+    @Test
+    void testIgnoresOtherFiles() throws IOException {
+        Files.writeString(this.directory.resolve("README"), "not a segment");
+        try (var store = new TransactionStore(this.directory, 1 << 20, true)) {
+            assertThat(store.stats().segments()).isZero();
+            assertThat(store.findByEntryReference("missing")).isEmpty();
+        }
+    }
+
+    @Test
+    void testDropsDuplicates() throws IOException {
+        var transactions = loadTransactions();
+        var overlapping = transactions.subList(500, 1000);
+        try (var store = new TransactionStore(this.directory, 1 << 20, true, true, 0.01, 100)) {
+            store.append(List.of(new TicketResult<>(TICKET_ID, transactions.subList(0, 700))));
+            // Repeated by a later result of the same batch
+            store.append(List.of(new TicketResult<>(TICKET_ID, overlapping),
+                    new TicketResult<>(UUID.randomUUID(), List.of(transactions.get(999)))));
+
+            var stats = store.stats();
+            assertThat(stats.transactions()).isEqualTo(new HashSet<>(transactions).size());
+            assertThat(stats.duplicates().checked()).isEqualTo(1201);
+            assertThat(stats.duplicates().dropped()).isEqualTo(1201 - stats.transactions());
+            assertThat(stats.duplicates().filterStages()).isGreaterThan(1);
+            assertFound(store, transactions.subList(0, 700));
+        }
+    }
+
+    @Test
+    void testKeepsEqualTransactionsOfOneResult() throws IOException {
+        var transaction = loadTransactions().get(0);
+        try (var store = new TransactionStore(this.directory, 1 << 20, true, true, 0.01, 100)) {
+            store.append(List.of(new TicketResult<>(TICKET_ID, List.of(transaction, transaction))));
+            assertThat(store.stats().transactions()).isEqualTo(2);
+            assertThat(store.stats().duplicates().dropped()).isZero();
+
+            store.append(List.of(new TicketResult<>(UUID.randomUUID(), List.of(transaction, transaction))));
+            assertThat(store.stats().transactions()).isEqualTo(2);
+            assertThat(store.stats().duplicates().dropped()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void testRestoresDuplicateDetection() throws IOException {
+        var transactions = loadTransactions();
+        try (var store = new TransactionStore(this.directory, 16 * 1024, false, true, 0.01, 100)) {
+            store.append(List.of(new TicketResult<>(TICKET_ID, transactions.subList(0, 100))));
+        }
+        var filter = Files.readAllBytes(this.directory.resolve(DuplicateDetector.FILTER_FILE));
+        var table = Files.readAllBytes(this.directory.resolve(DuplicateDetector.TABLE_FILE));
+        try (var store = new TransactionStore(this.directory, 16 * 1024, false, true, 0.01, 100)) {
+            for (int i = 0; i < 300; i += 10) {
+                store.append(List.of(new TicketResult<>(TICKET_ID, transactions.subList(i, i + 10))));
+            }
+            assertThat(store.stats().duplicates().dropped()).isEqualTo(100);
+        }
+
+        // As if the later batches were appended after the last checkpoint
+        Files.write(this.directory.resolve(DuplicateDetector.FILTER_FILE), filter);
+        Files.write(this.directory.resolve(DuplicateDetector.TABLE_FILE), table);
+        try (var store = new TransactionStore(this.directory, 16 * 1024, false, true, 0.01, 100)) {
+            // Whichever ticket they come with
+            store.append(List.of(new TicketResult<>(UUID.randomUUID(), transactions.subList(0, 300))));
+            assertThat(store.stats().transactions()).isEqualTo(300);
+            assertThat(store.stats().duplicates().dropped()).isEqualTo(300);
+        }
+
+        // A filter for another rate is rebuilt from the table
+        Files.write(this.directory.resolve(DuplicateDetector.FILTER_FILE), new byte[] {1, 2, 3});
+        try (var store = new TransactionStore(this.directory, 16 * 1024, false, true, 0.001, 100)) {
+            store.append(List.of(new TicketResult<>(TICKET_ID, transactions.subList(250, 350))));
+            assertThat(store.stats().transactions()).isEqualTo(350);
+            assertThat(store.stats().duplicates().indexed()).isEqualTo(350);
+            assertThat(store.stats().duplicates().falsePositiveRate()).isEqualTo(0.001);
+        }
+    }
+
+    private static void assertFound(TransactionStore store, List<Transaction> transactions) {
+        for (var transaction : transactions) {
+            if (transaction.entryReference().isPresent()) {
+                var found = store.findByEntryReference(transaction.entryReference().get());
+                assertThat(found).allSatisfy(stored -> assertThat(stored.entryReference())
+                        .isEqualTo(transaction.entryReference().get()));
+                assertThat(found).extracting(StoredTransaction::toTransaction).contains(transaction);
+            }
+            if (transaction.accountServicerReference().isPresent()) {
+                var found = store.findByAccountServicerReference(transaction.accountServicerReference().get());
+                assertThat(found).extracting(StoredTransaction::toTransaction).contains(transaction);
+                assertThat(found).extracting(StoredTransaction::ticketId).containsOnly(TICKET_ID);
+                assertThat(found).extracting(StoredTransaction::status).contains(transaction.status());
+            }
+        }
+    }
+
+    private List<Transaction> loadTransactions() throws IOException {
+        return this.objectMapper.readValue(
+                new DefaultResourceLoader().getResource("classpath:random_transactions.json").getContentAsByteArray(),
+                new TypeReference<>() { });
+    }
+}
@@ -0,0 +1,116 @@
+package tech.yaxi.demo.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class DecompressingFilterTests {
+
+    private static final byte[] BODY = "{\"transactions\": []}".getBytes(StandardCharsets.UTF_8);
+
+    private final DecompressingFilter filter = new DecompressingFilter(DataSize.ofMegabytes(1));
+
+    @Test
+    void testDecodesEncodingsRegardlessOfLocale() throws IOException, ServletException {
+        var locale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            var request = filter(gzipRequest("GZIP"));
+            assertThat(request.getInputStream().readAllBytes()).isEqualTo(BODY);
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    void testNotifiesReadListener() throws IOException, ServletException {
+        var compressed = gzipRequest("gzip");
+        compressed.setAsyncSupported(true);
+        var request = filter(compressed);
+        request.startAsync();
+        var in = request.getInputStream();
+        var body = new ByteArrayOutputStream();
+        var allDataRead = new boolean[1];
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                var buffer = new byte[4];
+                while (in.isReady() && !in.isFinished()) {
+                    int n = in.read(buffer);
+                    if (n > 0) {
+                        body.write(buffer, 0, n);
+                    }
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        assertThat(body.toByteArray()).isEqualTo(BODY);
+        assertThat(allDataRead[0]).isTrue();
+    }
+
+    @Test
+    void testRejectsReadListenerOutsideAsyncProcessing() throws IOException, ServletException {
+        var in = filter(gzipRequest("gzip")).getInputStream();
+        assertThatIllegalStateException().isThrownBy(() -> in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() {
+            }
+
+            @Override
+            public void onAllDataRead() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        }));
+    }
+
+    /**
+     * Runs {@code request} through the filter and returns the request the
+     * chain got.
+     */
+    private HttpServletRequest filter(MockHttpServletRequest request) throws IOException, ServletException {
+        var filtered = new HttpServletRequest[1];
+        var response = new MockHttpServletResponse();
+        this.filter.doFilter(request, response, (req, res) -> filtered[0] = (HttpServletRequest) req);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(filtered[0]).isNotNull();
+        return filtered[0];
+    }
+
+    private static MockHttpServletRequest gzipRequest(String encoding) throws IOException {
+        var gzip = new ByteArrayOutputStream();
+        try (var out = new GZIPOutputStream(gzip)) {
+            out.write(BODY);
+        }
+        var request = new MockHttpServletRequest("POST", "/results");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        request.setContent(gzip.toByteArray());
+        return request;
+    }
+}
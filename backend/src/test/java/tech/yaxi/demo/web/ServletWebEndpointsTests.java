@@ -0,0 +1,8 @@
+package tech.yaxi.demo.web;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class ServletWebEndpointsTests extends WebEndpointsTests {
+}
@@ -0,0 +1,224 @@
+package tech.yaxi.demo.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the whole application on a real server, once per web stack
+ * (see the subclasses), so that both stacks behave the same.
+ */
+@TestPropertySource(properties = {
+        "yaxi.keyId=test",
+        "yaxi.key=/fVLyhshE5E0kJO8FlX018bMNiemXo0SBAWEv4E4MjrurBZ6gKtWoEAqj4wtfnpumtPoztqxgE4ErAsPv88xhQ==",
+        "yaxi.tickets.registry.enabled=false",
+        "yaxi.results.sinks=noop",
+        "yaxi.webhook.decompression.maxSize=1MB",
+})
+abstract class WebEndpointsTests {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void issuesTickets() {
+        var ticket = this.client.post()
+                .uri("/ticket?service=Transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("account", Map.of("iban", "NL31YAXI1234567891")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(ticket).startsWith("\"ey").endsWith("\"");
+    }
+
+    @Test
+    void compressesLargeResponses() throws IOException, InterruptedException {
+        // WebTestClient decompresses responses on its own and drops the header
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + this.port + "/ticket?service=Transactions"))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"note\": \"" + "x".repeat(2000) + "\"}"))
+                .build();
+        try (var client = HttpClient.newHttpClient()) {
+            var response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+            try (var body = new GZIPInputStream(response.body())) {
+                assertThat(new String(body.readAllBytes(), StandardCharsets.US_ASCII)).startsWith("\"ey");
+            }
+        }
+    }
+
+    @Test
+    void acceptsResultsAndAcknowledgesDuplicates() throws IOException {
+        var transactions = readTransactions();
+        for (int i = 0; i < 2; ++i) {
+            this.client.post()
+                    .uri("/results")
+                    .bodyValue(transactions)
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+        // Pipeline counters are metrics, not endpoints next to the webhook
+        assertThat(this.meterRegistry.get("yaxi.results.dedup.lookups").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(this.meterRegistry.get("yaxi.results.sink.dropped").tag("sink", "noop").functionCounter().count())
+                .isZero();
+        assertThat(this.meterRegistry.find("yaxi.results.queue.depth").gauge()).isNull();
+        this.client.get()
+                .uri("/results/sinks")
+                .exchange()
+                .expectStatus().is4xxClientError();
+    }
+
+    @Test
+    void rejectsInvalidResults() throws IOException {
+        var transactions = readTransactions();
+        transactions[transactions.length - 3] ^= 1;
+        this.client.post()
+                .uri("/results")
+                .bodyValue(transactions)
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
+    @Test
+    void reportsTheOutcomeOfEachResultInABatch() throws IOException {
+        var valid = new String(readTransactions(), StandardCharsets.US_ASCII).strip();
+        var tampered = valid.substring(0, valid.length() - 2) + (valid.endsWith("AA") ? "BB" : "AA");
+
+        this.client.post()
+                .uri("/results/batch")
+                .bodyValue(valid + "\n\n" + tampered + "\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].status").value(status -> assertThat(status).isIn("processed", "duplicate"))
+                .jsonPath("$[1].index").isEqualTo(1)
+                .jsonPath("$[1].status").isEqualTo("rejected")
+                .jsonPath("$[1].error").isEqualTo("Signed JWT rejected: Invalid signature");
+
+        this.client.post()
+                .uri("/results/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[\"" + valid + "\", \"not a JWT\"]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("duplicate")
+                .jsonPath("$[1].status").isEqualTo("rejected");
+
+        this.client.post()
+                .uri("/results/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[1]")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void decompressesResults() throws IOException {
+        var transactions = readTransactions();
+        var gzip = new ByteArrayOutputStream();
+        try (var out = new GZIPOutputStream(gzip)) {
+            out.write(transactions);
+        }
+        var deflate = new ByteArrayOutputStream();
+        try (var out = new DeflaterOutputStream(deflate)) {
+            out.write(transactions);
+        }
+
+        // The first of them is processed, the other one acknowledged as a duplicate
+        for (var body : Map.of("gzip", gzip.toByteArray(), "deflate", deflate.toByteArray()).entrySet()) {
+            this.client.post()
+                    .uri("/results")
+                    .header(HttpHeaders.CONTENT_ENCODING, body.getKey())
+                    .bodyValue(body.getValue())
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+    }
+
+    @Test
+    void rejectsBadlyCompressedBodies() throws IOException {
+        this.client.post()
+                .uri("/results")
+                .header(HttpHeaders.CONTENT_ENCODING, "br")
+                .bodyValue(readTransactions())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                .expectHeader().valueEquals(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        this.client.post()
+                .uri("/results")
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .bodyValue(readTransactions())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        // 2 MB of zeros, beyond the limit of 1 MB
+        var bomb = new ByteArrayOutputStream();
+        try (var out = new GZIPOutputStream(bomb)) {
+            out.write(new byte[2 << 20]);
+        }
+        this.client.post()
+                .uri("/results")
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .bodyValue(bomb.toByteArray())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void queriesTransactionsOnlyWhenEnabled() {
+        this.client.get()
+                .uri("/transactions?entryReference=1")
+                .exchange()
+                .expectStatus().isNotFound();
+        this.client.get()
+                .uri("/transactions/aggregate?groupBy=currency")
+                .exchange()
+                .expectStatus().isNotFound();
+        this.client.get()
+                .uri("/reconciliation?transactionId=1")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private static byte[] readTransactions() throws IOException {
+        return new DefaultResourceLoader()
+                .getResource("classpath:transactions.txt")
+                .getContentAsByteArray();
+    }
+}
@@ -2,26 +2,130 @@ package tech.yaxi.demo.web;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.yaxi.demo.InvalidResultException;
+import tech.yaxi.demo.ResultDeduplicator;
+import tech.yaxi.demo.ResultPipelineMetrics;
+import tech.yaxi.demo.ResultProcessor;
+import tech.yaxi.demo.ResultQueue;
+import tech.yaxi.demo.RoutexMetrics;
 import tech.yaxi.demo.TicketService;
+import tech.yaxi.demo.TransactionsReader;
+import tech.yaxi.demo.sink.NoopResultSink;
+import tech.yaxi.demo.sink.ResultDispatcher;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatNoException;
 
 public class WebhookControllerTests {
 
-    private final WebhookController controller = new WebhookController(
+    private final ResultDispatcher resultDispatcher =
+            new ResultDispatcher(List.of(new NoopResultSink()), List.of("noop"), 16, 16);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResultDeduplicator resultDeduplicator = new ResultDeduplicator(16);
+    private final ResultProcessor resultProcessor = new ResultProcessor(
             new TicketService("test", "/fVLyhshE5E0kJO8FlX018bMNiemXo0SBAWEv4E4MjrurBZ6gKtWoEAqj4wtfnpumtPoztqxgE4ErAsPv88xhQ=="),
-            Jackson2ObjectMapperBuilder.json().build()
+            new TransactionsReader(Jackson2ObjectMapperBuilder.json().build(), 1000, 1, 256),
+            resultDispatcher,
+            resultDeduplicator,
+            new RoutexMetrics(meterRegistry)
     );
+    private final WebhookController controller =
+            new WebhookController(new WebhookHandler(resultProcessor, resultDeduplicator, Optional.empty(), 5, 100));
 
     @Test
     void testHook() throws IOException {
-        String transactions = new DefaultResourceLoader()
-                .getResource("classpath:transactions.txt")
-                .getContentAsString(StandardCharsets.UTF_8);
+        byte[] transactions = readTransactions();
         assertThatNoException().isThrownBy(() -> controller.processTransactions(transactions));
+        assertThat(resultDispatcher.stats().get("noop").pending()).isEqualTo(1);
+
+        assertThat(meterRegistry.get("yaxi.results.stage").tag("stage", "conversion").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("yaxi.results.size").summary().totalAmount()).isEqualTo(transactions.length);
+    }
+
+    @Test
+    void testDuplicateHook() throws IOException {
+        byte[] transactions = readTransactions();
+        controller.processTransactions(transactions);
+        assertThat(controller.processTransactions(transactions.clone()).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(resultDispatcher.stats().get("noop").pending()).isEqualTo(1);
+        var stats = resultDeduplicator.stats();
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(1);
+    }
+
+    @Test
+    void testAsyncHook() throws IOException {
+        // No workers are started, so the queue fills up
+        var queue = new ResultQueue(resultProcessor, 1, 1);
+        var asyncController = new WebhookController(new WebhookHandler(resultProcessor, new ResultDeduplicator(0), Optional.of(queue), 7, 100));
+        byte[] transactions = readTransactions();
+
+        assertThat(asyncController.processTransactions(transactions).getStatusCode())
+                .isEqualTo(HttpStatus.ACCEPTED);
+        var rejected = asyncController.processTransactions(transactions);
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+
+        var stats = queue.stats();
+        assertThat(stats.depth()).isEqualTo(1);
+        var registry = new SimpleMeterRegistry();
+        new ResultPipelineMetrics(resultDispatcher, resultDeduplicator, Optional.of(queue)).bindTo(registry);
+        assertThat(registry.get("yaxi.results.queue.depth").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("yaxi.results.queue.offered").tag("outcome", "rejected").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(stats.accepted()).isEqualTo(1);
+        assertThat(stats.rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void testAsyncHookChecksSignature() throws IOException {
+        var queue = new ResultQueue(resultProcessor, 1, 1);
+        var asyncController = new WebhookController(new WebhookHandler(resultProcessor, resultDeduplicator, Optional.of(queue), 5, 100));
+        byte[] transactions = readTransactions();
+        transactions[transactions.length - 3] ^= 1;
+
+        assertThatExceptionOfType(InvalidResultException.class)
+                .isThrownBy(() -> asyncController.processTransactions(transactions));
+        assertThat(queue.stats().accepted()).isZero();
+        assertThat(meterRegistry.get("yaxi.results.rejected").tag("reason", "signature").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testBatchReportsFailuresPerItem() throws IOException {
+        byte[] transactions = readTransactions();
+        var failingDeduplicator = new ResultDeduplicator(16) {
+            @Override
+            public boolean isDuplicate(byte[] data) {
+                if (data.length == 1) {
+                    throw new IllegalStateException("Broken");
+                }
+                return super.isDuplicate(data);
+            }
+        };
+        var batchController = new WebhookController(
+                new WebhookHandler(resultProcessor, failingDeduplicator, Optional.empty(), 5, 100));
+        var body = (new String(transactions, StandardCharsets.US_ASCII).strip() + "\nx\n").getBytes(StandardCharsets.US_ASCII);
+
+        var items = batchController.processBatch(body).getBody();
+        assertThat(items).extracting(WebhookHandler.BatchItem::status).containsExactly("processed", "failed");
+        assertThat(items.get(1).error()).isEqualTo("Broken");
+    }
+
+    private static byte[] readTransactions() throws IOException {
+        return new DefaultResourceLoader()
+                .getResource("classpath:transactions.txt")
+                .getContentAsByteArray();
     }
 }